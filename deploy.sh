@@ -73,7 +73,7 @@ print_success "Kubernetes resources applied"
 
 # Wait for deployment to be ready
 print_status "Waiting for deployment to be ready..."
-kubectl wait --for=condition=available --timeout=300s deployment/twitter-clone-app -n ${NAMESPACE}
+kubectl rollout status --timeout=300s statefulset/twitter-clone-app -n ${NAMESPACE}
 print_success "Deployment is ready"
 
 # Get service information
@@ -105,7 +105,7 @@ print_success "🎉 Twitter Clone deployed successfully!"
 
 echo ""
 echo "📝 Useful commands:"
-echo "   View logs: kubectl logs -f deployment/twitter-clone-app -n ${NAMESPACE}"
-echo "   Scale app: kubectl scale deployment twitter-clone-app --replicas=5 -n ${NAMESPACE}"
+echo "   View logs: kubectl logs -f statefulset/twitter-clone-app -n ${NAMESPACE}"
+echo "   Scale app: kubectl scale statefulset twitter-clone-app --replicas=5 -n ${NAMESPACE}"
 echo "   Delete app: kubectl delete -k k8s/"
 echo "   Port forward: kubectl port-forward service/twitter-clone-service 8080:80 -n ${NAMESPACE}"
\ No newline at end of file
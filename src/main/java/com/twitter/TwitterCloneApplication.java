@@ -2,13 +2,33 @@ package com.twitter;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
 
 @SpringBootApplication
-@EnableJpaAuditing
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
+@EnableCaching
+@EnableScheduling
 public class TwitterCloneApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(TwitterCloneApplication.class, args);
     }
-}
\ No newline at end of file
+
+    /**
+     * Audit timestamps at the database's TIMESTAMP(6) precision, so an entity still in
+     * memory carries the same createdAt as its stored row and keyset cursors built from
+     * it do not match that row again.
+     */
+    @Bean
+    public DateTimeProvider auditingDateTimeProvider() {
+        return () -> Optional.of(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+    }
+}
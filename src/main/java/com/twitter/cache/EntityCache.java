@@ -0,0 +1,227 @@
+package com.twitter.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.twitter.dto.UserDto;
+import com.twitter.model.Tweet;
+import com.twitter.model.User;
+import com.twitter.repository.TweetRepository;
+import com.twitter.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Local cache tier in front of tweet and user lookups by ID.
+ *
+ * Tweets are cached as {@link TweetSnapshot}s and users as {@link UserDto}s without
+ * viewer state; callers always get a copy of a cached user. Puts and evictions made
+ * inside a transaction are applied after it commits, so an eviction lands after the
+ * write it belongs to is visible. Sizes, TTL and stats recording come from
+ * {@code spring.cache.caffeine.spec}.
+ *
+ * Evictions win over puts of values read before them: every eviction bumps a
+ * generation for its key, a loader notes the generation before it queries, and the
+ * put is dropped if the generation moved meanwhile. The check and the put, and the
+ * bump and the eviction, each run atomically on the key's map entry.
+ */
+@Component
+public class EntityCache {
+    
+    public static final String TWEETS = "tweets";
+    public static final String USERS = "users";
+    
+    // Striped by key hash; a collision only drops a put that would have been safe
+    private static final int GENERATION_STRIPES = 4096;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private TweetRepository tweetRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private ConcurrentMap<Object, Object> tweets;
+    private ConcurrentMap<Object, Object> users;
+    
+    private final AtomicLongArray tweetGenerations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLongArray userGenerations = new AtomicLongArray(GENERATION_STRIPES);
+    
+    @PostConstruct
+    public void init() {
+        tweets = nativeMap(TWEETS);
+        users = nativeMap(USERS);
+    }
+    
+    public TweetSnapshot getTweet(Long tweetId) {
+        TweetSnapshot snapshot = (TweetSnapshot) tweets.get(tweetId);
+        if (snapshot == null) {
+            long generation = generation(tweetGenerations, tweetId);
+            snapshot = tweetRepository.findById(tweetId)
+                    .map(tweet -> cacheTweet(tweet, generation))
+                    .orElse(null);
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Returns the snapshots for the given IDs, loading all misses with one query.
+     * IDs of tweets that no longer exist are absent from the result.
+     */
+    public Map<Long, TweetSnapshot> getTweets(Collection<Long> tweetIds) {
+        Map<Long, TweetSnapshot> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        
+        Map<Long, Long> generations = new HashMap<>();
+        for (Long tweetId : tweetIds) {
+            TweetSnapshot snapshot = (TweetSnapshot) tweets.get(tweetId);
+            if (snapshot != null) {
+                found.put(tweetId, snapshot);
+            } else {
+                missing.add(tweetId);
+                generations.put(tweetId, generation(tweetGenerations, tweetId));
+            }
+        }
+        
+        if (!missing.isEmpty()) {
+            for (Tweet tweet : tweetRepository.findAllById(missing)) {
+                found.put(tweet.getId(), cacheTweet(tweet, generations.get(tweet.getId())));
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Caches a tweet the caller has just loaded. Prefer the lookups above, which also
+     * guard the window between the query and this call.
+     */
+    public TweetSnapshot cacheTweet(Tweet tweet) {
+        return cacheTweet(tweet, generation(tweetGenerations, tweet.getId()));
+    }
+    
+    public void evictTweet(Long tweetId) {
+        evict(tweets, tweetGenerations, tweetId);
+    }
+    
+    public void evictTweets(Collection<Long> tweetIds) {
+        for (Long tweetId : tweetIds) {
+            evict(tweets, tweetGenerations, tweetId);
+        }
+    }
+    
+    public UserDto getUser(Long userId) {
+        UserDto user = (UserDto) users.get(userId);
+        if (user == null) {
+            long generation = generation(userGenerations, userId);
+            user = userRepository.findById(userId)
+                    .map(loaded -> cacheUser(loaded, generation))
+                    .orElse(null);
+        }
+        return user != null ? new UserDto(user) : null;
+    }
+    
+    /**
+     * Returns copies of the cached users for the given IDs, loading all misses
+     * with one query. IDs of users that do not exist are absent from the result.
+     */
+    public Map<Long, UserDto> getUsers(Collection<Long> userIds) {
+        Map<Long, UserDto> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        
+        Map<Long, Long> generations = new HashMap<>();
+        for (Long userId : userIds) {
+            UserDto user = (UserDto) users.get(userId);
+            if (user != null) {
+                found.put(userId, new UserDto(user));
+            } else {
+                missing.add(userId);
+                generations.put(userId, generation(userGenerations, userId));
+            }
+        }
+        
+        if (!missing.isEmpty()) {
+            for (User user : userRepository.findAllById(missing)) {
+                found.put(user.getId(), new UserDto(cacheUser(user, generations.get(user.getId()))));
+            }
+        }
+        return found;
+    }
+    
+    public void evictUser(Long userId) {
+        evict(users, userGenerations, userId);
+    }
+    
+    public void evictUsers(Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            evict(users, userGenerations, userId);
+        }
+    }
+    
+    private TweetSnapshot cacheTweet(Tweet tweet, long generation) {
+        TweetSnapshot snapshot = new TweetSnapshot(tweet);
+        put(tweets, tweetGenerations, snapshot.getId(), snapshot, generation);
+        return snapshot;
+    }
+    
+    private UserDto cacheUser(User user, long generation) {
+        UserDto snapshot = new UserDto(user, user.getFollowersCount(), user.getFollowingCount(),
+                user.getTweetsCount());
+        put(users, userGenerations, user.getId(), snapshot, generation);
+        return snapshot;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private ConcurrentMap<Object, Object> nativeMap(String name) {
+        Object nativeCache = cacheManager.getCache(name).getNativeCache();
+        if (nativeCache instanceof Cache) {
+            return ((Cache<Object, Object>) nativeCache).asMap();
+        }
+        return (ConcurrentMap<Object, Object>) nativeCache;
+    }
+    
+    private static long generation(AtomicLongArray generations, Long key) {
+        return generations.get(stripe(key));
+    }
+    
+    private static int stripe(Long key) {
+        return (Long.hashCode(key) & Integer.MAX_VALUE) % GENERATION_STRIPES;
+    }
+    
+    private static void put(ConcurrentMap<Object, Object> cache, AtomicLongArray generations,
+                            Long key, Object value, long generation) {
+        afterCommit(() -> cache.compute(key, (k, current) ->
+                generations.get(stripe(key)) == generation ? value : current));
+    }
+    
+    private static void evict(ConcurrentMap<Object, Object> cache, AtomicLongArray generations, Long key) {
+        afterCommit(() -> cache.compute(key, (k, current) -> {
+            generations.incrementAndGet(stripe(key));
+            return null;
+        }));
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
\ No newline at end of file
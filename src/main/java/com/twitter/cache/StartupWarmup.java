@@ -0,0 +1,113 @@
+package com.twitter.cache;
+
+import com.twitter.model.Tweet;
+import com.twitter.repository.TweetRepository;
+import com.twitter.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Preloads what the first requests after a restart read, so they are not served
+ * from a cold cache.
+ *
+ * The newest tweets and their authors, plus the most followed users, are loaded
+ * into {@link EntityCache}; that also pulls their table pages into the database
+ * cache. The index ranges covering those tweets in the reply, retweet, like,
+ * hashtag and mention lookups are then scanned. This runs as an
+ * {@link ApplicationRunner}, so the instance only reports ready once it is done.
+ * A failure is logged and does not stop startup.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+    
+    // Each counts the index entries of the warmed tweet range, reading the index pages
+    private static final String[] INDEX_SCANS = {
+        "SELECT COUNT(*) FROM tweets WHERE parent_tweet_id >= ?",
+        "SELECT COUNT(*) FROM tweets WHERE original_tweet_id >= ?",
+        "SELECT COUNT(*) FROM user_likes WHERE tweet_id >= ?",
+        "SELECT COUNT(*) FROM tweet_hashtags WHERE tweet_id >= ?",
+        "SELECT COUNT(*) FROM tweet_mentions WHERE tweet_id >= ?"
+    };
+    
+    @Autowired
+    private TweetRepository tweetRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private EntityCache entityCache;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.storage.warmup.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.storage.warmup.recent-tweets:10000}")
+    private int recentTweets;
+    
+    @Value("${app.storage.warmup.top-users:1000}")
+    private int topUsers;
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        try {
+            // Cache puts are applied when this transaction commits
+            transactionTemplate.executeWithoutResult(status -> warm());
+        } catch (RuntimeException e) {
+            logger.warn("Startup warm-up failed; serving from a cold cache", e);
+        }
+    }
+    
+    private void warm() {
+        long start = System.currentTimeMillis();
+        List<Tweet> tweets = recentTweets > 0
+                ? tweetRepository.findNewest(PageRequest.of(0, recentTweets))
+                : Collections.<Tweet>emptyList();
+        Set<Long> userIds = new HashSet<>();
+        long oldestId = Long.MAX_VALUE;
+        for (Tweet tweet : tweets) {
+            entityCache.cacheTweet(tweet);
+            userIds.add(tweet.getAuthor().getId());
+            oldestId = Math.min(oldestId, tweet.getId());
+        }
+        if (topUsers > 0) {
+            userIds.addAll(userRepository.findMostFollowedIds(PageRequest.of(0, topUsers)));
+        }
+        entityCache.getUsers(userIds);
+
+        if (!tweets.isEmpty()) {
+            for (String scan : INDEX_SCANS) {
+                jdbcTemplate.queryForObject(scan, Long.class, oldestId);
+            }
+        }
+        logger.info("Warmed {} tweets and {} users in {} ms", tweets.size(), userIds.size(),
+                System.currentTimeMillis() - start);
+    }
+}
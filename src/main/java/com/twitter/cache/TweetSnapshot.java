@@ -0,0 +1,90 @@
+package com.twitter.cache;
+
+import com.twitter.model.Tweet;
+
+import java.time.LocalDateTime;
+
+/**
+ * Viewer-independent copy of a single tweet row, safe to keep across sessions.
+ * Authors and nested tweets are referenced by ID only, so a cached snapshot never
+ * goes stale because some other row changed.
+ */
+public class TweetSnapshot {
+    
+    private final Long id;
+    private final String content;
+    private final Long authorId;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final String type;
+    private final String imageUrl;
+    private final Long originalTweetId;
+    private final Long parentTweetId;
+    private final long likesCount;
+    private final long retweetsCount;
+    private final long repliesCount;
+    
+    public TweetSnapshot(Tweet tweet) {
+        this.id = tweet.getId();
+        this.content = tweet.getContent();
+        this.authorId = tweet.getAuthor() != null ? tweet.getAuthor().getId() : null;
+        this.createdAt = tweet.getCreatedAt();
+        this.updatedAt = tweet.getUpdatedAt();
+        this.type = tweet.getType().name();
+        this.imageUrl = tweet.getImageUrl();
+        // Reading the ID of a lazy reference does not initialize it
+        this.originalTweetId = tweet.getOriginalTweet() != null ? tweet.getOriginalTweet().getId() : null;
+        this.parentTweetId = tweet.getParentTweet() != null ? tweet.getParentTweet().getId() : null;
+        this.likesCount = tweet.getLikesCount() != null ? tweet.getLikesCount() : 0L;
+        this.retweetsCount = tweet.getRetweetsCount() != null ? tweet.getRetweetsCount() : 0L;
+        this.repliesCount = tweet.getRepliesCount() != null ? tweet.getRepliesCount() : 0L;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getContent() {
+        return content;
+    }
+    
+    public Long getAuthorId() {
+        return authorId;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public String getImageUrl() {
+        return imageUrl;
+    }
+    
+    public Long getOriginalTweetId() {
+        return originalTweetId;
+    }
+    
+    public Long getParentTweetId() {
+        return parentTweetId;
+    }
+    
+    public long getLikesCount() {
+        return likesCount;
+    }
+    
+    public long getRetweetsCount() {
+        return retweetsCount;
+    }
+    
+    public long getRepliesCount() {
+        return repliesCount;
+    }
+}
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.twitter.config;
 
+import com.twitter.security.BoundedPasswordEncoder;
 import com.twitter.security.CustomUserDetailsService;
 import com.twitter.security.JwtAuthenticationEntryPoint;
 import com.twitter.security.JwtAuthenticationFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -34,6 +37,18 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private JwtAuthenticationEntryPoint unauthorizedHandler;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.security.bcrypt-strength:10}")
+    private int bcryptStrength;
+    
+    @Value("${app.security.hash-pool-size:0}")
+    private int hashPoolSize;
+    
+    @Value("${app.security.hash-queue-capacity:64}")
+    private int hashQueueCapacity;
+    
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
         return new JwtAuthenticationFilter();
@@ -54,7 +69,10 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // Defaults to one hashing thread per core; hashing is CPU bound
+        int poolSize = hashPoolSize > 0 ? hashPoolSize : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), poolSize,
+                hashQueueCapacity, meterRegistry);
     }
     
     @Override
@@ -85,6 +103,10 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                         .permitAll()
                     .antMatchers("/h2-console/**")
                         .permitAll()
+                    .antMatchers("/actuator/timelines/**")
+                        .hasRole("ADMIN")
+                    .antMatchers(HttpMethod.POST, "/actuator/**")
+                        .authenticated()
                     .antMatchers("/actuator/**")
                         .permitAll()
                     .antMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**")
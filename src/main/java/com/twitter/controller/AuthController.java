@@ -4,9 +4,14 @@ import com.twitter.dto.AuthRequest;
 import com.twitter.dto.AuthResponse;
 import com.twitter.dto.UserDto;
 import com.twitter.model.User;
+import com.twitter.security.CustomUserDetailsService;
 import com.twitter.security.JwtTokenProvider;
+import com.twitter.security.PasswordHashingRejectedException;
+import com.twitter.security.UserPrincipal;
+import com.twitter.service.UserDtoAssembler;
 import com.twitter.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -30,6 +35,12 @@ public class AuthController {
     @Autowired
     JwtTokenProvider tokenProvider;
     
+    @Autowired
+    UserDtoAssembler userDtoAssembler;
+    
+    @Autowired
+    CustomUserDetailsService customUserDetailsService;
+    
     @PostMapping("/signin")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody AuthRequest loginRequest) {
         try {
@@ -44,13 +55,15 @@ public class AuthController {
             
             String jwt = tokenProvider.generateToken(authentication);
             
-            User user = userService.findByUsernameOrEmail(loginRequest.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
-            UserDto userDto = userService.getUserProfile(user.getId(), null);
+            // The authenticated principal already carries the ID; no need to look the user up again
+            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+            UserDto userDto = userDtoAssembler.toDto(userPrincipal.getId(), null);
             
             return ResponseEntity.ok(new AuthResponse(jwt, userDto));
         } catch (Exception e) {
+            if (isHashingRejected(e)) {
+                return serviceUnavailable();
+            }
             return ResponseEntity.badRequest()
                     .body("Error: Invalid username or password!");
         }
@@ -78,10 +91,13 @@ public class AuthController {
             
             String jwt = tokenProvider.generateToken(authentication);
             
-            UserDto userDto = userService.getUserProfile(user.getId(), null);
+            UserDto userDto = userDtoAssembler.toDto(user.getId(), null);
             
             return ResponseEntity.ok(new AuthResponse(jwt, userDto));
         } catch (Exception e) {
+            if (isHashingRejected(e)) {
+                return serviceUnavailable();
+            }
             return ResponseEntity.badRequest()
                     .body("Error: " + e.getMessage());
         }
@@ -91,11 +107,14 @@ public class AuthController {
     public ResponseEntity<?> refreshToken(@RequestHeader("Authorization") String token) {
         try {
             String jwt = token.substring(7); // Remove "Bearer " prefix
-            if (tokenProvider.validateToken(jwt)) {
-                Long userId = tokenProvider.getUserIdFromJWT(jwt);
-                String newJwt = tokenProvider.generateTokenFromUserId(userId);
+            UserPrincipal tokenPrincipal = tokenProvider.getPrincipalFromToken(jwt);
+            if (tokenPrincipal != null) {
+                // Authorities come from the user record and config as at sign-in, never from
+                // the presented token, so a revoked role is not carried forward
+                UserPrincipal userPrincipal = (UserPrincipal) customUserDetailsService.loadUserById(tokenPrincipal.getId());
+                String newJwt = tokenProvider.generateToken(userPrincipal);
                 
-                UserDto userDto = userService.getUserProfile(userId, null);
+                UserDto userDto = userDtoAssembler.toDto(userPrincipal.getId(), null);
                 
                 return ResponseEntity.ok(new AuthResponse(newJwt, userDto));
             } else {
@@ -107,4 +126,33 @@ public class AuthController {
                     .body("Error: " + e.getMessage());
         }
     }
+    
+    @PostMapping("/signout")
+    public ResponseEntity<?> signOut(@RequestHeader("Authorization") String token,
+                                     @RequestParam(defaultValue = "false") boolean allSessions) {
+        String jwt = token.startsWith("Bearer ") ? token.substring(7) : token;
+        if (!tokenProvider.revokeToken(jwt, allSessions)) {
+            return ResponseEntity.badRequest()
+                    .body("Error: Invalid token!");
+        }
+        return ResponseEntity.ok("Signed out successfully");
+    }
+    
+    /**
+     * The authentication manager may wrap encoder failures, so check the whole cause chain.
+     */
+    private static boolean isHashingRejected(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof PasswordHashingRejectedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static ResponseEntity<String> serviceUnavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body("Error: Too many sign-in attempts, please retry shortly");
+    }
 }
\ No newline at end of file
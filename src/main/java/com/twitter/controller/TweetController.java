@@ -1,12 +1,17 @@
 package com.twitter.controller;
 
+import com.twitter.dto.BulkTweetRequest;
+import com.twitter.dto.BulkTweetResult;
+import com.twitter.dto.FeedCursor;
+import com.twitter.dto.FeedSlice;
+import com.twitter.dto.TrendingTopic;
 import com.twitter.dto.TweetDto;
 import com.twitter.dto.TweetRequest;
-import com.twitter.model.Tweet;
 import com.twitter.security.CurrentUser;
 import com.twitter.security.UserPrincipal;
 import com.twitter.service.TweetService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -15,6 +20,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/tweets")
@@ -29,32 +35,40 @@ public class TweetController {
     public ResponseEntity<TweetDto> createTweet(@Valid @RequestBody TweetRequest tweetRequest,
                                                @CurrentUser UserPrincipal currentUser) {
         try {
-            Tweet tweet = tweetService.createTweet(
+            TweetDto tweetDto = tweetService.createTweet(
                 currentUser.getId(),
                 tweetRequest.getContent(),
                 tweetRequest.getImageUrl()
             );
-            
-            TweetDto tweetDto = tweetService.getTweetById(tweet.getId(), currentUser.getId());
             return ResponseEntity.ok(tweetDto);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> createTweets(@Valid @RequestBody BulkTweetRequest request,
+                                         @CurrentUser UserPrincipal currentUser) {
+        try {
+            List<BulkTweetResult> results = tweetService.createTweets(currentUser.getId(), request.getTweets());
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+    
     @PostMapping("/{tweetId}/reply")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<TweetDto> replyToTweet(@PathVariable Long tweetId,
                                                 @Valid @RequestBody TweetRequest tweetRequest,
                                                 @CurrentUser UserPrincipal currentUser) {
         try {
-            Tweet reply = tweetService.createReply(
+            TweetDto tweetDto = tweetService.createReply(
                 currentUser.getId(),
                 tweetId,
                 tweetRequest.getContent()
             );
-            
-            TweetDto tweetDto = tweetService.getTweetById(reply.getId(), currentUser.getId());
             return ResponseEntity.ok(tweetDto);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -68,13 +82,11 @@ public class TweetController {
                                                 @CurrentUser UserPrincipal currentUser) {
         try {
             String content = tweetRequest != null ? tweetRequest.getContent() : null;
-            Tweet retweet = tweetService.createRetweet(
+            TweetDto tweetDto = tweetService.createRetweet(
                 currentUser.getId(),
                 tweetId,
                 content
             );
-            
-            TweetDto tweetDto = tweetService.getTweetById(retweet.getId(), currentUser.getId());
             return ResponseEntity.ok(tweetDto);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -98,8 +110,11 @@ public class TweetController {
     public ResponseEntity<?> likeTweet(@PathVariable Long tweetId,
                                       @CurrentUser UserPrincipal currentUser) {
         try {
-            tweetService.likeTweet(tweetId, currentUser.getId());
-            return ResponseEntity.ok().body("Tweet liked successfully");
+            boolean liked = tweetService.likeTweet(tweetId, currentUser.getId());
+            return ResponseEntity.ok().body(liked ? "Tweet liked successfully" : "Tweet already liked");
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent like from the same user won the insert
+            return ResponseEntity.ok().body("Tweet already liked");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
@@ -110,8 +125,8 @@ public class TweetController {
     public ResponseEntity<?> unlikeTweet(@PathVariable Long tweetId,
                                         @CurrentUser UserPrincipal currentUser) {
         try {
-            tweetService.unlikeTweet(tweetId, currentUser.getId());
-            return ResponseEntity.ok().body("Tweet unliked successfully");
+            boolean unliked = tweetService.unlikeTweet(tweetId, currentUser.getId());
+            return ResponseEntity.ok().body(unliked ? "Tweet unliked successfully" : "Tweet was not liked");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
@@ -134,6 +149,20 @@ public class TweetController {
         return tweetService.getReplies(tweetId, pageable, currentUserId);
     }
     
+    @GetMapping("/{tweetId}/replies/cursor")
+    public ResponseEntity<FeedSlice<TweetDto>> getRepliesAfter(@PathVariable Long tweetId,
+                                                              @RequestParam(required = false) String after,
+                                                              @RequestParam(defaultValue = "20") int size,
+                                                              @CurrentUser UserPrincipal currentUser) {
+        try {
+            FeedCursor cursor = after != null ? FeedCursor.decode(after) : FeedCursor.EARLIEST;
+            Long currentUserId = currentUser != null ? currentUser.getId() : null;
+            return ResponseEntity.ok(tweetService.getRepliesAfter(tweetId, cursor, size, currentUserId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{tweetId}/retweets")
     public Page<TweetDto> getRetweets(@PathVariable Long tweetId,
                                      @RequestParam(defaultValue = "0") int page,
@@ -144,6 +173,19 @@ public class TweetController {
         return tweetService.getRetweets(tweetId, pageable, currentUserId);
     }
     
+    @GetMapping("/{tweetId}/retweets/cursor")
+    public ResponseEntity<FeedSlice<TweetDto>> getRetweetsBefore(@PathVariable Long tweetId,
+                                                                @RequestParam(required = false) String before,
+                                                                @RequestParam(defaultValue = "20") int size,
+                                                                @CurrentUser UserPrincipal currentUser) {
+        try {
+            Long currentUserId = currentUser != null ? currentUser.getId() : null;
+            return ResponseEntity.ok(tweetService.getRetweetsBefore(tweetId, cursorOrLatest(before), size, currentUserId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/timeline")
     @PreAuthorize("hasRole('USER')")
     public Page<TweetDto> getTimeline(@RequestParam(defaultValue = "0") int page,
@@ -153,6 +195,18 @@ public class TweetController {
         return tweetService.getTimelineTweets(currentUser.getId(), pageable);
     }
     
+    @GetMapping("/timeline/cursor")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<FeedSlice<TweetDto>> getTimelineBefore(@RequestParam(required = false) String before,
+                                                                @RequestParam(defaultValue = "20") int size,
+                                                                @CurrentUser UserPrincipal currentUser) {
+        try {
+            return ResponseEntity.ok(tweetService.getTimelineBefore(currentUser.getId(), cursorOrLatest(before), size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/trending")
     public Page<TweetDto> getTrendingTweets(@RequestParam(defaultValue = "0") int page,
                                           @RequestParam(defaultValue = "20") int size,
@@ -162,6 +216,23 @@ public class TweetController {
         return tweetService.getTrendingTweets(pageable, currentUserId);
     }
     
+    @GetMapping("/trending/cursor")
+    public ResponseEntity<FeedSlice<TweetDto>> getTrendingTweetsBefore(@RequestParam(required = false) String before,
+                                                                      @RequestParam(defaultValue = "20") int size,
+                                                                      @CurrentUser UserPrincipal currentUser) {
+        try {
+            Long currentUserId = currentUser != null ? currentUser.getId() : null;
+            return ResponseEntity.ok(tweetService.getTrendingTweetsBefore(cursorOrLatest(before), size, currentUserId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/trending/hashtags")
+    public List<TrendingTopic> getTrendingHashtags(@RequestParam(defaultValue = "10") int limit) {
+        return tweetService.getTrendingHashtags(limit);
+    }
+    
     @GetMapping("/search")
     public Page<TweetDto> searchTweets(@RequestParam String q,
                                       @RequestParam(defaultValue = "0") int page,
@@ -172,6 +243,44 @@ public class TweetController {
         return tweetService.searchTweets(q, pageable, currentUserId);
     }
     
+    @GetMapping("/search/cursor")
+    public ResponseEntity<FeedSlice<TweetDto>> searchTweetsBefore(@RequestParam String q,
+                                                                 @RequestParam(required = false) String before,
+                                                                 @RequestParam(defaultValue = "20") int size,
+                                                                 @CurrentUser UserPrincipal currentUser) {
+        try {
+            Long currentUserId = currentUser != null ? currentUser.getId() : null;
+            return ResponseEntity.ok(tweetService.searchTweetsBefore(q, cursorOrLatest(before), size, currentUserId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/hashtag/{tag}")
+    public ResponseEntity<FeedSlice<TweetDto>> getHashtagTweetsBefore(@PathVariable String tag,
+                                                                     @RequestParam(required = false) String before,
+                                                                     @RequestParam(defaultValue = "20") int size,
+                                                                     @CurrentUser UserPrincipal currentUser) {
+        try {
+            Long currentUserId = currentUser != null ? currentUser.getId() : null;
+            return ResponseEntity.ok(tweetService.getHashtagTweetsBefore(tag, cursorOrLatest(before), size, currentUserId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/mentions")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<FeedSlice<TweetDto>> getMentionsBefore(@RequestParam(required = false) String before,
+                                                                @RequestParam(defaultValue = "20") int size,
+                                                                @CurrentUser UserPrincipal currentUser) {
+        try {
+            return ResponseEntity.ok(tweetService.getMentionsBefore(currentUser.getId(), cursorOrLatest(before), size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/user/{userId}")
     public Page<TweetDto> getUserTweets(@PathVariable Long userId,
                                        @RequestParam(defaultValue = "0") int page,
@@ -182,6 +291,19 @@ public class TweetController {
         return tweetService.getUserTweets(userId, pageable, currentUserId);
     }
     
+    @GetMapping("/user/{userId}/cursor")
+    public ResponseEntity<FeedSlice<TweetDto>> getUserTweetsBefore(@PathVariable Long userId,
+                                                                  @RequestParam(required = false) String before,
+                                                                  @RequestParam(defaultValue = "20") int size,
+                                                                  @CurrentUser UserPrincipal currentUser) {
+        try {
+            Long currentUserId = currentUser != null ? currentUser.getId() : null;
+            return ResponseEntity.ok(tweetService.getUserTweetsBefore(userId, cursorOrLatest(before), size, currentUserId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/user/{userId}/likes")
     public Page<TweetDto> getUserLikedTweets(@PathVariable Long userId,
                                             @RequestParam(defaultValue = "0") int page,
@@ -191,4 +313,21 @@ public class TweetController {
         Long currentUserId = currentUser != null ? currentUser.getId() : null;
         return tweetService.getLikedTweets(userId, pageable, currentUserId);
     }
+    
+    @GetMapping("/user/{userId}/likes/cursor")
+    public ResponseEntity<FeedSlice<TweetDto>> getUserLikedTweetsBefore(@PathVariable Long userId,
+                                                                       @RequestParam(required = false) String before,
+                                                                       @RequestParam(defaultValue = "20") int size,
+                                                                       @CurrentUser UserPrincipal currentUser) {
+        try {
+            Long currentUserId = currentUser != null ? currentUser.getId() : null;
+            return ResponseEntity.ok(tweetService.getLikedTweetsBefore(userId, cursorOrLatest(before), size, currentUserId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    private FeedCursor cursorOrLatest(String before) {
+        return before != null ? FeedCursor.decode(before) : FeedCursor.LATEST;
+    }
 }
\ No newline at end of file
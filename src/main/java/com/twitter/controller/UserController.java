@@ -1,11 +1,15 @@
 package com.twitter.controller;
 
+import com.twitter.dto.FollowBatchRequest;
+import com.twitter.dto.FollowBatchResult;
+import com.twitter.dto.RelationshipDto;
 import com.twitter.dto.UserDto;
 import com.twitter.model.User;
 import com.twitter.security.CurrentUser;
 import com.twitter.security.UserPrincipal;
 import com.twitter.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -13,6 +17,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import javax.validation.Valid;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -68,8 +74,23 @@ public class UserController {
     public ResponseEntity<?> followUser(@PathVariable Long userId,
                                        @CurrentUser UserPrincipal currentUser) {
         try {
-            userService.followUser(currentUser.getId(), userId);
-            return ResponseEntity.ok().body("Successfully followed user");
+            boolean followed = userService.followUser(currentUser.getId(), userId);
+            return ResponseEntity.ok().body(followed ? "Successfully followed user" : "Already following this user");
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent follow of the same user won the insert
+            return ResponseEntity.ok().body("Already following this user");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+    
+    @PostMapping("/follow/batch")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> followUsers(@Valid @RequestBody FollowBatchRequest request,
+                                        @CurrentUser UserPrincipal currentUser) {
+        try {
+            List<Long> followed = userService.followUsers(currentUser.getId(), request.getUserIds());
+            return ResponseEntity.ok(new FollowBatchResult(followed));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
@@ -80,13 +101,24 @@ public class UserController {
     public ResponseEntity<?> unfollowUser(@PathVariable Long userId,
                                          @CurrentUser UserPrincipal currentUser) {
         try {
-            userService.unfollowUser(currentUser.getId(), userId);
-            return ResponseEntity.ok().body("Successfully unfollowed user");
+            boolean unfollowed = userService.unfollowUser(currentUser.getId(), userId);
+            return ResponseEntity.ok().body(unfollowed ? "Successfully unfollowed user" : "Not following this user");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
     }
     
+    @GetMapping("/relationships")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<RelationshipDto>> getRelationships(@RequestParam List<Long> ids,
+                                                                  @CurrentUser UserPrincipal currentUser) {
+        try {
+            return ResponseEntity.ok(userService.getRelationships(currentUser.getId(), ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{userId}/followers")
     public Page<UserDto> getFollowers(@PathVariable Long userId,
                                      @RequestParam(defaultValue = "0") int page,
@@ -110,4 +142,21 @@ public class UserController {
         Pageable pageable = PageRequest.of(page, size);
         return userService.searchUsers(q, pageable);
     }
+    
+    @GetMapping("/recommendations")
+    @PreAuthorize("hasRole('USER')")
+    public List<UserDto> getRecommendations(@CurrentUser UserPrincipal currentUser,
+                                            @RequestParam(defaultValue = "10") int limit) {
+        return userService.getRecommendations(currentUser.getId(), limit);
+    }
+    
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<UserDto>> autocomplete(@RequestParam String q,
+                                                      @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(userService.autocomplete(q, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
\ No newline at end of file
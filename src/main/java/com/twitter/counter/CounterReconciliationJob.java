@@ -0,0 +1,178 @@
+package com.twitter.counter;
+
+import com.twitter.cache.EntityCache;
+import com.twitter.repository.TweetRepository;
+import com.twitter.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Periodically recomputes the denormalized counters on tweets and users from the
+ * underlying join tables and repairs any that have drifted.
+ *
+ * Rows are walked in ID order, one short transaction per batch. A counter that
+ * receives a concurrent increment while its batch is being reconciled may be off
+ * by that increment until the next run. Tweets with deltas still buffered in
+ * {@link TweetCounterBuffer} are skipped.
+ */
+@Component
+public class CounterReconciliationJob {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CounterReconciliationJob.class);
+    
+    @Autowired
+    private TweetRepository tweetRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TweetCounterBuffer tweetCounterBuffer;
+    
+    @Autowired
+    private EntityCache entityCache;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.counters.reconcile-batch-size:500}")
+    private int batchSize;
+    
+    private TransactionTemplate transactionTemplate;
+    private Counter tweetCorrections;
+    private Counter userCorrections;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        tweetCorrections = Counter.builder("counters.reconciled")
+                .description("Denormalized counters repaired by reconciliation")
+                .tag("entity", "tweet")
+                .register(meterRegistry);
+        userCorrections = Counter.builder("counters.reconciled")
+                .description("Denormalized counters repaired by reconciliation")
+                .tag("entity", "user")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(initialDelayString = "${app.counters.reconcile-interval-ms:3600000}",
+               fixedDelayString = "${app.counters.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        int tweets = reconcileTweets();
+        int users = reconcileUsers();
+        if (tweets > 0 || users > 0) {
+            logger.info("Counter reconciliation repaired {} tweets and {} users", tweets, users);
+        }
+    }
+    
+    public int reconcileTweets() {
+        int repaired = 0;
+        long afterId = 0L;
+        
+        while (true) {
+            List<Long> ids = tweetRepository.findIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer fixed = transactionTemplate.execute(status -> reconcileTweetBatch(ids));
+            repaired += fixed != null ? fixed : 0;
+            afterId = ids.get(ids.size() - 1);
+        }
+        
+        tweetCorrections.increment(repaired);
+        return repaired;
+    }
+    
+    public int reconcileUsers() {
+        int repaired = 0;
+        long afterId = 0L;
+        
+        while (true) {
+            List<Long> ids = userRepository.findIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer fixed = transactionTemplate.execute(status -> reconcileUserBatch(ids));
+            repaired += fixed != null ? fixed : 0;
+            afterId = ids.get(ids.size() - 1);
+        }
+        
+        userCorrections.increment(repaired);
+        return repaired;
+    }
+    
+    private int reconcileTweetBatch(List<Long> tweetIds) {
+        Map<Long, Long> likes = toCountMap(tweetRepository.countLikesByTweetIds(tweetIds));
+        Map<Long, Long> retweets = toCountMap(tweetRepository.countRetweetsByTweetIds(tweetIds));
+        Map<Long, Long> replies = toCountMap(tweetRepository.countRepliesByTweetIds(tweetIds));
+        
+        int repaired = 0;
+        for (Object[] row : tweetRepository.findCountersByTweetIds(tweetIds)) {
+            Long tweetId = (Long) row[0];
+            if (tweetCounterBuffer.hasPending(tweetId)) {
+                // The stored value is behind by the buffered delta; check again next run
+                continue;
+            }
+            long actualLikes = likes.getOrDefault(tweetId, 0L);
+            long actualRetweets = retweets.getOrDefault(tweetId, 0L);
+            long actualReplies = replies.getOrDefault(tweetId, 0L);
+            
+            if ((Long) row[1] != actualLikes || (Long) row[2] != actualRetweets || (Long) row[3] != actualReplies) {
+                logger.debug("Repairing counters for tweet {}: likes {}->{}, retweets {}->{}, replies {}->{}",
+                        tweetId, row[1], actualLikes, row[2], actualRetweets, row[3], actualReplies);
+                tweetRepository.updateCounters(tweetId, actualLikes, actualRetweets, actualReplies);
+                entityCache.evictTweet(tweetId);
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+    
+    private int reconcileUserBatch(List<Long> userIds) {
+        Map<Long, Long> followers = toCountMap(userRepository.countFollowersByUserIds(userIds));
+        Map<Long, Long> following = toCountMap(userRepository.countFollowingByUserIds(userIds));
+        Map<Long, Long> tweets = toCountMap(tweetRepository.countTweetsByUserIds(userIds));
+        
+        int repaired = 0;
+        for (Object[] row : userRepository.findCountersByUserIds(userIds)) {
+            Long userId = (Long) row[0];
+            long actualFollowers = followers.getOrDefault(userId, 0L);
+            long actualFollowing = following.getOrDefault(userId, 0L);
+            long actualTweets = tweets.getOrDefault(userId, 0L);
+            
+            if ((Long) row[1] != actualFollowers || (Long) row[2] != actualFollowing || (Long) row[3] != actualTweets) {
+                logger.debug("Repairing counters for user {}: followers {}->{}, following {}->{}, tweets {}->{}",
+                        userId, row[1], actualFollowers, row[2], actualFollowing, row[3], actualTweets);
+                userRepository.updateCounters(userId, actualFollowers, actualFollowing, actualTweets);
+                entityCache.evictUser(userId);
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+    
+    private Map<Long, Long> toCountMap(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+}
\ No newline at end of file
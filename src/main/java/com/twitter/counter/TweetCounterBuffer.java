@@ -0,0 +1,315 @@
+package com.twitter.counter;
+
+import com.twitter.cache.EntityCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Absorbs like/retweet/reply counter increments in memory and writes them to the
+ * tweets table in periodic batches, so a hot tweet costs one UPDATE per flush
+ * instead of one per click.
+ *
+ * Each tweet gets a set of {@link LongAdder}s, which stripe concurrent increments
+ * across cells. A flush reads the pending sum, applies it to the database and only
+ * then subtracts exactly that amount, so increments racing with a flush are kept
+ * for the next one. Readers add {@link #pendingLikes} etc. to the persisted value.
+ *
+ * When the buffer already tracks {@code max-pending} tweets, increments for new
+ * tweets are written through to the database directly.
+ *
+ * Flushes run on a dedicated thread rather than the shared scheduler, so the
+ * longer scheduled jobs (reconciliation, index rebuilds) cannot delay them.
+ */
+@Component
+public class TweetCounterBuffer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TweetCounterBuffer.class);
+    
+    private static final String FLUSH_SQL = "UPDATE tweets SET likes_count = likes_count + ?, " +
+            "retweets_count = retweets_count + ?, replies_count = replies_count + ? WHERE id = ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private EntityCache entityCache;
+    
+    @Value("${app.counters.max-pending:100000}")
+    private int maxPending;
+    
+    @Value("${app.counters.drain-on-shutdown:true}")
+    private boolean drainOnShutdown;
+    
+    @Value("${app.counters.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+    
+    private final ConcurrentMap<Long, PendingCounts> pending = new ConcurrentHashMap<>();
+    
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate writeThroughTemplate;
+    private Timer flushTimer;
+    private Timer flushLag;
+    private Counter writeThroughs;
+    private ScheduledExecutorService flushScheduler;
+    private volatile long nextFlushDue;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Write-throughs run from afterCommit callbacks and need their own transaction
+        writeThroughTemplate = new TransactionTemplate(transactionManager);
+        writeThroughTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        flushTimer = Timer.builder("counters.flush")
+                .description("Time taken to write buffered counter deltas to the database")
+                .register(meterRegistry);
+        flushLag = Timer.builder("counters.flush.lag")
+                .description("How late a scheduled counter flush started")
+                .register(meterRegistry);
+        writeThroughs = Counter.builder("counters.write-through")
+                .description("Counter increments written directly because the buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("counters.pending", pending, Map::size)
+                .description("Tweets with counter deltas waiting to be flushed")
+                .register(meterRegistry);
+        
+        if (flushIntervalMs > 0) {
+            flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "counter-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            nextFlushDue = System.currentTimeMillis() + flushIntervalMs;
+            flushScheduler.scheduleWithFixedDelay(this::scheduledFlush, flushIntervalMs, flushIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    public void addLikes(Long tweetId, long delta) {
+        addAfterCommit(tweetId, delta, 0, 0);
+    }
+    
+    public void addRetweets(Long tweetId, long delta) {
+        addAfterCommit(tweetId, 0, delta, 0);
+    }
+    
+    public void addReplies(Long tweetId, long delta) {
+        addAfterCommit(tweetId, 0, 0, delta);
+    }
+    
+    public long pendingLikes(Long tweetId) {
+        PendingCounts counts = pending.get(tweetId);
+        return counts != null ? counts.likes.sum() : 0L;
+    }
+    
+    public long pendingRetweets(Long tweetId) {
+        PendingCounts counts = pending.get(tweetId);
+        return counts != null ? counts.retweets.sum() : 0L;
+    }
+    
+    public long pendingReplies(Long tweetId) {
+        PendingCounts counts = pending.get(tweetId);
+        return counts != null ? counts.replies.sum() : 0L;
+    }
+    
+    public boolean hasPending(Long tweetId) {
+        PendingCounts counts = pending.get(tweetId);
+        return counts != null && !counts.isZero();
+    }
+    
+    public int pendingCount() {
+        return pending.size();
+    }
+    
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushTimer.record(this::doFlush);
+    }
+    
+    private void scheduledFlush() {
+        flushLag.record(Math.max(0L, System.currentTimeMillis() - nextFlushDue), TimeUnit.MILLISECONDS);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule
+            logger.error("Counter flush failed", e);
+        } finally {
+            nextFlushDue = System.currentTimeMillis() + flushIntervalMs;
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (flushScheduler != null) {
+            flushScheduler.shutdown();
+            try {
+                flushScheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (drainOnShutdown) {
+            logger.info("Draining {} buffered tweet counters before shutdown", pending.size());
+            doFlush();
+        } else {
+            logger.warn("Discarding {} buffered tweet counters on shutdown", pending.size());
+        }
+    }
+    
+    private synchronized void doFlush() {
+        List<Long> tweetIds = new ArrayList<>();
+        List<long[]> deltas = new ArrayList<>();
+        List<Object[]> args = new ArrayList<>();
+        
+        for (Map.Entry<Long, PendingCounts> entry : pending.entrySet()) {
+            PendingCounts counts = entry.getValue();
+            long likes = counts.likes.sum();
+            long retweets = counts.retweets.sum();
+            long replies = counts.replies.sum();
+            
+            if (likes == 0 && retweets == 0 && replies == 0) {
+                tryEvict(entry.getKey(), counts);
+                continue;
+            }
+            tweetIds.add(entry.getKey());
+            deltas.add(new long[]{likes, retweets, replies});
+            args.add(new Object[]{likes, retweets, replies, entry.getKey()});
+        }
+        
+        if (args.isEmpty()) {
+            return;
+        }
+        
+        try {
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, args));
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush {} buffered tweet counters, will retry", args.size(), e);
+            return;
+        }
+        
+        entityCache.evictTweets(tweetIds);
+        
+        // Subtract exactly what was written; anything added meanwhile stays pending
+        for (int i = 0; i < tweetIds.size(); i++) {
+            PendingCounts counts = pending.get(tweetIds.get(i));
+            long[] delta = deltas.get(i);
+            counts.likes.add(-delta[0]);
+            counts.retweets.add(-delta[1]);
+            counts.replies.add(-delta[2]);
+        }
+    }
+    
+    /**
+     * Removes an idle entry. The entry is marked retired before the final check, and
+     * writers that observe the mark back their delta out and retry on a fresh entry,
+     * so no increment can land in an entry that is no longer in the map.
+     */
+    private void tryEvict(Long tweetId, PendingCounts counts) {
+        counts.retired = true;
+        if (counts.isZero()) {
+            pending.remove(tweetId, counts);
+        } else {
+            counts.retired = false;
+        }
+    }
+    
+    private void addAfterCommit(Long tweetId, long likes, long retweets, long replies) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(tweetId, likes, retweets, replies);
+                }
+            });
+        } else {
+            add(tweetId, likes, retweets, replies);
+        }
+    }
+    
+    private void add(Long tweetId, long likes, long retweets, long replies) {
+        while (true) {
+            PendingCounts counts = pending.get(tweetId);
+            if (counts == null) {
+                if (pending.size() >= maxPending) {
+                    writeThrough(tweetId, likes, retweets, replies);
+                    return;
+                }
+                counts = pending.computeIfAbsent(tweetId, id -> new PendingCounts());
+            }
+            
+            counts.add(likes, retweets, replies);
+            if (!counts.retired) {
+                return;
+            }
+            counts.add(-likes, -retweets, -replies);
+            Thread.yield();
+        }
+    }
+    
+    private void writeThrough(Long tweetId, long likes, long retweets, long replies) {
+        writeThroughs.increment();
+        writeThroughTemplate.execute(status -> {
+            jdbcTemplate.update(FLUSH_SQL, likes, retweets, replies, tweetId);
+            entityCache.evictTweet(tweetId);
+            return null;
+        });
+    }
+    
+    private static class PendingCounts {
+        private final LongAdder likes = new LongAdder();
+        private final LongAdder retweets = new LongAdder();
+        private final LongAdder replies = new LongAdder();
+        private volatile boolean retired;
+        
+        void add(long likesDelta, long retweetsDelta, long repliesDelta) {
+            if (likesDelta != 0) {
+                likes.add(likesDelta);
+            }
+            if (retweetsDelta != 0) {
+                retweets.add(retweetsDelta);
+            }
+            if (repliesDelta != 0) {
+                replies.add(repliesDelta);
+            }
+        }
+        
+        boolean isZero() {
+            return likes.sum() == 0 && retweets.sum() == 0 && replies.sum() == 0;
+        }
+    }
+}
\ No newline at end of file
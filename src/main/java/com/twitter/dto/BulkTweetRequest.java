@@ -0,0 +1,36 @@
+package com.twitter.dto;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Tweets posted in one request. Items are validated one by one by the service so
+ * that an invalid item is reported without rejecting the rest.
+ *
+ * At most {@value #MAX_TWEETS} tweets per request: after the commit every created
+ * tweet is added to the search index and trends on the request thread (only
+ * timeline fan-out is queued), so the limit bounds that work and the response time.
+ */
+public class BulkTweetRequest {
+    
+    public static final int MAX_TWEETS = 100;
+    
+    @NotEmpty
+    @Size(max = MAX_TWEETS)
+    private List<TweetRequest> tweets;
+    
+    public BulkTweetRequest() {}
+    
+    public BulkTweetRequest(List<TweetRequest> tweets) {
+        this.tweets = tweets;
+    }
+    
+    public List<TweetRequest> getTweets() {
+        return tweets;
+    }
+    
+    public void setTweets(List<TweetRequest> tweets) {
+        this.tweets = tweets;
+    }
+}
@@ -0,0 +1,60 @@
+package com.twitter.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+/**
+ * Outcome of one item of a bulk create, by its position in the request. Exactly one
+ * of {@code id} and {@code error} is set.
+ */
+public class BulkTweetResult {
+    private int index;
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long id;
+    private String error;
+    
+    public BulkTweetResult() {}
+    
+    public BulkTweetResult(int index, Long id, String error) {
+        this.index = index;
+        this.id = id;
+        this.error = error;
+    }
+    
+    public static BulkTweetResult created(int index, Long id) {
+        return new BulkTweetResult(index, id, null);
+    }
+    
+    public static BulkTweetResult failed(int index, String error) {
+        return new BulkTweetResult(index, null, error);
+    }
+    
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    public boolean isCreated() {
+        return id != null;
+    }
+}
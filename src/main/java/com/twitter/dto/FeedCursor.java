@@ -0,0 +1,73 @@
+package com.twitter.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Keyset position in a tweet feed: the (createdAt, id) of the last item a client has seen.
+ * Feeds ordered by rank rather than time also record the item's rank, so they can resume
+ * at the same depth if the item has dropped out. Clients treat the encoded form as an
+ * opaque token.
+ */
+public class FeedCursor {
+    
+    public static final FeedCursor LATEST = new FeedCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+    
+    public static final FeedCursor EARLIEST = new FeedCursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0L);
+    
+    private final LocalDateTime createdAt;
+    private final Long id;
+    private final Integer rank;
+    
+    public FeedCursor(LocalDateTime createdAt, Long id) {
+        this(createdAt, id, null);
+    }
+    
+    public FeedCursor(LocalDateTime createdAt, Long id, Integer rank) {
+        this.createdAt = createdAt;
+        this.id = id;
+        this.rank = rank;
+    }
+    
+    public static FeedCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":");
+            if (parts.length != 3 && parts.length != 4) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime createdAt = LocalDateTime.ofEpochSecond(
+                Long.parseLong(parts[0]), Integer.parseInt(parts[1]), ZoneOffset.UTC);
+            Integer rank = parts.length == 4 ? Integer.valueOf(parts[3]) : null;
+            if (rank != null && rank < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new FeedCursor(createdAt, Long.parseLong(parts[2]), rank);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+    
+    public String encode() {
+        String raw = createdAt.toEpochSecond(ZoneOffset.UTC) + ":" + createdAt.getNano() + ":" + id
+                + (rank != null ? ":" + rank : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    /**
+     * Zero-based rank of the item in a ranked feed, or null for time-ordered feeds.
+     */
+    public Integer getRank() {
+        return rank;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.twitter.dto;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated feed. Pass {@code nextCursor} back to fetch the
+ * following page; it is null once the feed is exhausted.
+ */
+public class FeedSlice<T> {
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    
+    public FeedSlice() {}
+    
+    public FeedSlice(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+    
+    // Getters and Setters
+    public List<T> getContent() {
+        return content;
+    }
+    
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean isHasNext() {
+        return hasNext;
+    }
+    
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
\ No newline at end of file
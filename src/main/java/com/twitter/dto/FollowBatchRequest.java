@@ -0,0 +1,26 @@
+package com.twitter.dto;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class FollowBatchRequest {
+    
+    @NotEmpty
+    @Size(max = 100)
+    private List<Long> userIds;
+    
+    public FollowBatchRequest() {}
+    
+    public FollowBatchRequest(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+    
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+    
+    public void setUserIds(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.twitter.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import java.util.List;
+
+/**
+ * The users a batch follow newly followed, in request order.
+ */
+public class FollowBatchResult {
+    
+    @JsonSerialize(contentUsing = ToStringSerializer.class)
+    private List<Long> followed;
+    
+    public FollowBatchResult() {}
+    
+    public FollowBatchResult(List<Long> followed) {
+        this.followed = followed;
+    }
+    
+    public List<Long> getFollowed() {
+        return followed;
+    }
+    
+    public void setFollowed(List<Long> followed) {
+        this.followed = followed;
+    }
+}
\ No newline at end of file
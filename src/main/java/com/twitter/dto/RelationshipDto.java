@@ -0,0 +1,51 @@
+package com.twitter.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+/**
+ * How the viewer and another user are connected.
+ */
+public class RelationshipDto {
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long userId;
+    private boolean following;
+    private boolean followedBy;
+    
+    public RelationshipDto() {}
+    
+    public RelationshipDto(Long userId, boolean following, boolean followedBy) {
+        this.userId = userId;
+        this.following = following;
+        this.followedBy = followedBy;
+    }
+    
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public boolean isFollowing() {
+        return following;
+    }
+    
+    public void setFollowing(boolean following) {
+        this.following = following;
+    }
+    
+    public boolean isFollowedBy() {
+        return followedBy;
+    }
+    
+    public void setFollowedBy(boolean followedBy) {
+        this.followedBy = followedBy;
+    }
+    
+    public boolean isMutual() {
+        return following && followedBy;
+    }
+}
\ No newline at end of file
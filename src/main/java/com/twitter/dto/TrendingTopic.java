@@ -0,0 +1,34 @@
+package com.twitter.dto;
+
+/**
+ * A trending hashtag with its decayed activity score. Scores are only meaningful
+ * relative to each other.
+ */
+public class TrendingTopic {
+    private String tag;
+    private double score;
+    
+    public TrendingTopic() {}
+    
+    public TrendingTopic(String tag, double score) {
+        this.tag = tag;
+        this.score = score;
+    }
+    
+    // Getters and Setters
+    public String getTag() {
+        return tag;
+    }
+    
+    public void setTag(String tag) {
+        this.tag = tag;
+    }
+    
+    public double getScore() {
+        return score;
+    }
+    
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
\ No newline at end of file
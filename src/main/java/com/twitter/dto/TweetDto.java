@@ -1,10 +1,14 @@
 package com.twitter.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import com.twitter.model.Tweet;
 
 import java.time.LocalDateTime;
 
 public class TweetDto {
+    // Snowflake IDs exceed 2^53, past which JavaScript numbers lose precision
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
     private String content;
     private UserDto author;
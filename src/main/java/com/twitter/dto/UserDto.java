@@ -1,10 +1,13 @@
 package com.twitter.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import com.twitter.model.User;
 
 import java.time.LocalDateTime;
 
 public class UserDto {
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
     private String username;
     private String email;
@@ -29,6 +32,20 @@ public class UserDto {
         this.createdAt = user.getCreatedAt();
     }
     
+    public UserDto(UserDto other) {
+        this.id = other.id;
+        this.username = other.username;
+        this.email = other.email;
+        this.displayName = other.displayName;
+        this.bio = other.bio;
+        this.profileImageUrl = other.profileImageUrl;
+        this.createdAt = other.createdAt;
+        this.followersCount = other.followersCount;
+        this.followingCount = other.followingCount;
+        this.tweetsCount = other.tweetsCount;
+        this.isFollowing = other.isFollowing;
+    }
+    
     public UserDto(User user, Long followersCount, Long followingCount, Long tweetsCount) {
         this(user);
         this.followersCount = followersCount;
@@ -0,0 +1,29 @@
+package com.twitter.event;
+
+/**
+ * Published by UserService when a follow edge is added or removed.
+ */
+public class FollowChangedEvent {
+    
+    private final Long followerId;
+    private final Long followingId;
+    private final boolean following;
+    
+    public FollowChangedEvent(Long followerId, Long followingId, boolean following) {
+        this.followerId = followerId;
+        this.followingId = followingId;
+        this.following = following;
+    }
+    
+    public Long getFollowerId() {
+        return followerId;
+    }
+    
+    public Long getFollowingId() {
+        return followingId;
+    }
+    
+    public boolean isFollowing() {
+        return following;
+    }
+}
\ No newline at end of file
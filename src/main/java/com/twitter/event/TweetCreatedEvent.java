@@ -0,0 +1,58 @@
+package com.twitter.event;
+
+import com.twitter.model.Tweet;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by TweetService when a tweet, reply or retweet has been saved.
+ * Listeners that touch derived state should run after the transaction commits.
+ */
+public class TweetCreatedEvent {
+    
+    private final Long tweetId;
+    private final Long authorId;
+    private final String content;
+    private final Tweet.TweetType type;
+    private final Long originalTweetId;
+    private final Long parentTweetId;
+    private final LocalDateTime createdAt;
+    
+    public TweetCreatedEvent(Tweet tweet) {
+        this.tweetId = tweet.getId();
+        this.authorId = tweet.getAuthor().getId();
+        this.content = tweet.getContent();
+        this.type = tweet.getType();
+        this.originalTweetId = tweet.getOriginalTweet() != null ? tweet.getOriginalTweet().getId() : null;
+        this.parentTweetId = tweet.getParentTweet() != null ? tweet.getParentTweet().getId() : null;
+        this.createdAt = tweet.getCreatedAt() != null ? tweet.getCreatedAt() : LocalDateTime.now();
+    }
+    
+    public Long getTweetId() {
+        return tweetId;
+    }
+    
+    public Long getAuthorId() {
+        return authorId;
+    }
+    
+    public String getContent() {
+        return content;
+    }
+    
+    public Tweet.TweetType getType() {
+        return type;
+    }
+    
+    public Long getOriginalTweetId() {
+        return originalTweetId;
+    }
+    
+    public Long getParentTweetId() {
+        return parentTweetId;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
\ No newline at end of file
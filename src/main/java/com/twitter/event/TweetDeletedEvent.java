@@ -0,0 +1,29 @@
+package com.twitter.event;
+
+/**
+ * Published by TweetService when a tweet has been deleted.
+ */
+public class TweetDeletedEvent {
+    
+    private final Long tweetId;
+    private final Long authorId;
+    private final String content;
+    
+    public TweetDeletedEvent(Long tweetId, Long authorId, String content) {
+        this.tweetId = tweetId;
+        this.authorId = authorId;
+        this.content = content;
+    }
+    
+    public Long getTweetId() {
+        return tweetId;
+    }
+    
+    public Long getAuthorId() {
+        return authorId;
+    }
+    
+    public String getContent() {
+        return content;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.twitter.event;
+
+/**
+ * Published by TweetService when a user likes a tweet they had not liked before.
+ */
+public class TweetLikedEvent {
+    
+    private final Long tweetId;
+    private final Long userId;
+    
+    public TweetLikedEvent(Long tweetId, Long userId) {
+        this.tweetId = tweetId;
+        this.userId = userId;
+    }
+    
+    public Long getTweetId() {
+        return tweetId;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.twitter.event;
+
+/**
+ * Published by UserService when a user is created or their profile is updated.
+ */
+public class UserProfileChangedEvent {
+    
+    private final Long userId;
+    private final String username;
+    private final String displayName;
+    private final long followersCount;
+    
+    public UserProfileChangedEvent(Long userId, String username, String displayName, long followersCount) {
+        this.userId = userId;
+        this.username = username;
+        this.displayName = displayName;
+        this.followersCount = followersCount;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    public long getFollowersCount() {
+        return followersCount;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,162 @@
+package com.twitter.graph;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.twitter.repository.TweetRepository;
+import com.twitter.timeline.TimelineEntry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Who to follow" suggestions from the in-memory social graph.
+ *
+ * A {@link FollowRecommender} shortlists friends-of-friends by mutual count; the
+ * shortlist is then re-scored by how recently each candidate tweeted, with one
+ * grouped query, so dormant accounts sink. Ranked lists are cached per user and
+ * refreshed in the background once they are {@code refresh-after-ms} old; reads
+ * drop anyone the user has followed since. Nothing is suggested until the graph is
+ * loaded.
+ */
+@Service
+public class FollowRecommendationService {
+    
+    // Candidates who never tweeted still count their mutuals at this fraction
+    private static final double MIN_RECENCY_WEIGHT = 0.1;
+    
+    @Autowired
+    private SocialGraphService socialGraph;
+    
+    @Autowired
+    private TweetRepository tweetRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.recommendations.parallelism:0}")
+    private int parallelism;
+    
+    @Value("${app.recommendations.max-followees:200}")
+    private int maxFollowees;
+    
+    @Value("${app.recommendations.max-fanout:500}")
+    private int maxFanout;
+    
+    @Value("${app.recommendations.leaf-size:16}")
+    private int leafSize;
+    
+    @Value("${app.recommendations.shortlist-size:200}")
+    private int shortlistSize;
+    
+    @Value("${app.recommendations.max-results:50}")
+    private int maxResults;
+    
+    @Value("${app.recommendations.recency-half-life-ms:604800000}")
+    private long recencyHalfLifeMs;
+    
+    @Value("${app.recommendations.cache-size:10000}")
+    private long cacheSize;
+    
+    @Value("${app.recommendations.refresh-after-ms:300000}")
+    private long refreshAfterMs;
+    
+    @Value("${app.recommendations.expire-after-ms:3600000}")
+    private long expireAfterMs;
+    
+    private ForkJoinPool pool;
+    private FollowRecommender recommender;
+    private LoadingCache<Long, List<Long>> recommendations;
+    private Timer computeTimer;
+    
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        recommender = new FollowRecommender(pool, maxFollowees, maxFanout, leafSize);
+        recommendations = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .refreshAfterWrite(refreshAfterMs, TimeUnit.MILLISECONDS)
+                .expireAfterAccess(expireAfterMs, TimeUnit.MILLISECONDS)
+                .build(this::compute);
+        computeTimer = Timer.builder("recommendations.compute")
+                .description("Time taken to compute who-to-follow suggestions for one user")
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+    
+    /**
+     * Returns the IDs of up to {@code limit} users to suggest, best first.
+     */
+    public List<Long> recommend(Long userId, int limit) {
+        if (!socialGraph.isReady() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        
+        List<Long> ranked = recommendations.get(userId);
+        List<Long> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (Long candidateId : ranked) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (!socialGraph.isFollowing(userId, candidateId)) {
+                result.add(candidateId);
+            }
+        }
+        return result;
+    }
+    
+    private List<Long> compute(Long userId) {
+        // Tweet times are zone-less, so measure ages on the same clock they were written with
+        long nowMillis = TimelineEntry.toEpochMillis(LocalDateTime.now());
+        return computeTimer.record(() -> rank(
+                recommender.candidates(socialGraph.getGraph(), userId, shortlistSize), nowMillis));
+    }
+    
+    private List<Long> rank(List<FollowRecommender.Candidate> shortlist, long nowMillis) {
+        if (shortlist.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        List<Long> candidateIds = new ArrayList<>(shortlist.size());
+        for (FollowRecommender.Candidate candidate : shortlist) {
+            candidateIds.add(candidate.getUserId());
+        }
+        Map<Long, Long> lastTweetAt = new HashMap<>();
+        for (Object[] row : tweetRepository.findLastTweetTimesByAuthorIds(candidateIds)) {
+            lastTweetAt.put((Long) row[0], TimelineEntry.toEpochMillis((LocalDateTime) row[1]));
+        }
+        
+        Map<Long, Double> scores = new HashMap<>();
+        for (FollowRecommender.Candidate candidate : shortlist) {
+            Long lastAt = lastTweetAt.get(candidate.getUserId());
+            double recency = MIN_RECENCY_WEIGHT;
+            if (lastAt != null) {
+                double age = Math.max(0, nowMillis - lastAt);
+                recency = Math.max(MIN_RECENCY_WEIGHT, Math.pow(2, -age / recencyHalfLifeMs));
+            }
+            scores.put(candidate.getUserId(), candidate.getMutuals() * recency);
+        }
+        
+        // The shortlist is already in mutual-count order, so the stable sort keeps it for equal scores
+        candidateIds.sort(Comparator.comparing(scores::get, Comparator.reverseOrder()));
+        int size = Math.min(maxResults, candidateIds.size());
+        return Collections.unmodifiableList(new ArrayList<>(candidateIds.subList(0, size)));
+    }
+}
\ No newline at end of file
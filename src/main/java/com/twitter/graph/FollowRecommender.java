@@ -0,0 +1,160 @@
+package com.twitter.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds friends-of-friends: users followed by the people a user follows, ranked by
+ * how many of those people follow them.
+ *
+ * The traversal reads at most {@code maxFollowees} of the user's followees, sampled
+ * evenly across the list, and at most {@code maxFanout} of each followee's own
+ * followees (the highest IDs, i.e. the newest accounts), so one request touches at
+ * most {@code maxFollowees * maxFanout} edges however well connected the user is.
+ * The second hop is split across a fork/join pool; each task gathers its followees'
+ * lists into one sorted {@code long[]} and the halves are merged on the way up, so
+ * mutual counts fall out as run lengths without any hashing or boxing.
+ */
+public class FollowRecommender {
+    
+    private static final Comparator<Candidate> BY_MUTUALS = Comparator
+            .comparingInt(Candidate::getMutuals).reversed()
+            .thenComparing(Comparator.comparingLong(Candidate::getUserId).reversed());
+    
+    private final ForkJoinPool pool;
+    private final int maxFollowees;
+    private final int maxFanout;
+    private final int leafSize;
+    
+    public FollowRecommender(ForkJoinPool pool, int maxFollowees, int maxFanout, int leafSize) {
+        if (maxFollowees <= 0 || maxFanout <= 0 || leafSize <= 0) {
+            throw new IllegalArgumentException("maxFollowees, maxFanout and leafSize must be positive");
+        }
+        this.pool = pool;
+        this.maxFollowees = maxFollowees;
+        this.maxFanout = maxFanout;
+        this.leafSize = leafSize;
+    }
+    
+    /**
+     * Returns up to {@code limit} users the given user does not follow yet, most mutual
+     * followees first, ties broken towards newer accounts.
+     */
+    public List<Candidate> candidates(SocialGraph graph, long userId, int limit) {
+        long[] followees = graph.following(userId, 0, Integer.MAX_VALUE);
+        if (followees.length == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+        
+        long[] sampled = sample(followees);
+        long[] reached = pool.invoke(new SecondHop(graph, sampled, 0, sampled.length));
+        
+        List<Candidate> candidates = new ArrayList<>();
+        int i = 0;
+        while (i < reached.length) {
+            long candidate = reached[i];
+            int run = i;
+            while (i < reached.length && reached[i] == candidate) {
+                i++;
+            }
+            if (candidate != userId && Arrays.binarySearch(followees, candidate) < 0) {
+                candidates.add(new Candidate(candidate, i - run));
+            }
+        }
+        candidates.sort(BY_MUTUALS);
+        return candidates.size() > limit ? new ArrayList<>(candidates.subList(0, limit)) : candidates;
+    }
+    
+    private long[] sample(long[] followees) {
+        if (followees.length <= maxFollowees) {
+            return followees;
+        }
+        long[] sampled = new long[maxFollowees];
+        for (int i = 0; i < maxFollowees; i++) {
+            sampled[i] = followees[(int) ((long) i * followees.length / maxFollowees)];
+        }
+        return sampled;
+    }
+    
+    private static long[] merge(long[] left, long[] right) {
+        long[] merged = new long[left.length + right.length];
+        int l = 0;
+        int r = 0;
+        int m = 0;
+        while (l < left.length && r < right.length) {
+            merged[m++] = left[l] <= right[r] ? left[l++] : right[r++];
+        }
+        System.arraycopy(left, l, merged, m, left.length - l);
+        System.arraycopy(right, r, merged, m + left.length - l, right.length - r);
+        return merged;
+    }
+    
+    private class SecondHop extends RecursiveTask<long[]> {
+        
+        private final SocialGraph graph;
+        private final long[] followees;
+        private final int from;
+        private final int to;
+        
+        SecondHop(SocialGraph graph, long[] followees, int from, int to) {
+            this.graph = graph;
+            this.followees = followees;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected long[] compute() {
+            if (to - from <= leafSize) {
+                return gather();
+            }
+            int mid = (from + to) >>> 1;
+            SecondHop left = new SecondHop(graph, followees, from, mid);
+            left.fork();
+            long[] right = new SecondHop(graph, followees, mid, to).compute();
+            return merge(left.join(), right);
+        }
+        
+        private long[] gather() {
+            long[][] lists = new long[to - from][];
+            int total = 0;
+            for (int i = from; i < to; i++) {
+                long followee = followees[i];
+                int count = graph.followingCount(followee);
+                lists[i - from] = graph.following(followee, Math.max(0, count - maxFanout), maxFanout);
+                total += lists[i - from].length;
+            }
+            long[] gathered = new long[total];
+            int at = 0;
+            for (long[] list : lists) {
+                System.arraycopy(list, 0, gathered, at, list.length);
+                at += list.length;
+            }
+            Arrays.sort(gathered);
+            return gathered;
+        }
+    }
+    
+    public static class Candidate {
+        private final long userId;
+        private final int mutuals;
+        
+        Candidate(long userId, int mutuals) {
+            this.userId = userId;
+            this.mutuals = mutuals;
+        }
+        
+        public long getUserId() {
+            return userId;
+        }
+        
+        public int getMutuals() {
+            return mutuals;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,395 @@
+package com.twitter.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Follow graph held as primitive adjacency lists.
+ *
+ * Each user gets a slot in an open-addressing table keyed by user ID; a slot holds the
+ * user's followees and followers as sorted {@code long[]} with a length, so a follow
+ * check is a binary search and a page of IDs is an array copy. No per-edge objects are
+ * allocated and nothing is boxed. User IDs must be positive; 0 marks an empty slot.
+ *
+ * Reads share a read lock and writes take the write lock. A write shifts the tail of
+ * one sorted list, which for a user with a million followers is a few megabytes of
+ * memmove; bulk loads go through {@link Builder}, which appends and sorts once.
+ */
+public class SocialGraph {
+    
+    private static final long[] EMPTY = new long[0];
+    private static final int INITIAL_SLOTS = 1024;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private long[] keys;
+    private long[][] following;
+    private int[] followingSizes;
+    private long[][] followers;
+    private int[] followersSizes;
+    
+    private int users;
+    private long edges;
+    
+    public SocialGraph() {
+        this(INITIAL_SLOTS);
+    }
+    
+    private SocialGraph(int slots) {
+        allocate(slots);
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * Records that {@code followerId} follows {@code followeeId}. Returns false if it already did.
+     */
+    public boolean follow(long followerId, long followeeId) {
+        checkId(followerId);
+        checkId(followeeId);
+        lock.writeLock().lock();
+        try {
+            int follower = slotFor(followerId);
+            if (!insert(following, followingSizes, follower, followeeId)) {
+                return false;
+            }
+            int followee = slotFor(followeeId);
+            insert(followers, followersSizes, followee, followerId);
+            edges++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Removes the edge. Returns false if {@code followerId} did not follow {@code followeeId}.
+     */
+    public boolean unfollow(long followerId, long followeeId) {
+        lock.writeLock().lock();
+        try {
+            int follower = find(followerId);
+            int followee = find(followeeId);
+            if (follower < 0 || followee < 0 || !delete(following, followingSizes, follower, followeeId)) {
+                return false;
+            }
+            delete(followers, followersSizes, followee, followerId);
+            edges--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public boolean isFollowing(long followerId, long followeeId) {
+        lock.readLock().lock();
+        try {
+            int slot = find(followerId);
+            return slot >= 0 && Arrays.binarySearch(following[slot], 0, followingSizes[slot], followeeId) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int followingCount(long userId) {
+        lock.readLock().lock();
+        try {
+            int slot = find(userId);
+            return slot >= 0 ? followingSizes[slot] : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int followersCount(long userId) {
+        lock.readLock().lock();
+        try {
+            int slot = find(userId);
+            return slot >= 0 ? followersSizes[slot] : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns up to {@code limit} IDs the user follows, in ascending ID order, skipping the first {@code offset}.
+     */
+    public long[] following(long userId, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int slot = find(userId);
+            return slot >= 0 ? page(following[slot], followingSizes[slot], offset, limit) : EMPTY;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns up to {@code limit} IDs of the user's followers, in ascending ID order, skipping the first {@code offset}.
+     */
+    public long[] followers(long userId, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int slot = find(userId);
+            return slot >= 0 ? page(followers[slot], followersSizes[slot], offset, limit) : EMPTY;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the IDs in {@code sortedIds} that the user follows. {@code sortedIds} must be ascending.
+     */
+    public long[] followingAmong(long userId, long[] sortedIds) {
+        lock.readLock().lock();
+        try {
+            int slot = find(userId);
+            return slot >= 0 ? intersect(following[slot], followingSizes[slot], sortedIds) : EMPTY;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the IDs in {@code sortedIds} that follow the user. {@code sortedIds} must be ascending.
+     */
+    public long[] followersAmong(long userId, long[] sortedIds) {
+        lock.readLock().lock();
+        try {
+            int slot = find(userId);
+            return slot >= 0 ? intersect(followers[slot], followersSizes[slot], sortedIds) : EMPTY;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int userCount() {
+        lock.readLock().lock();
+        try {
+            return users;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public long edgeCount() {
+        lock.readLock().lock();
+        try {
+            return edges;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private static long[] page(long[] ids, int size, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+        if (offset >= size) {
+            return EMPTY;
+        }
+        return Arrays.copyOfRange(ids, offset, offset + Math.min(limit, size - offset));
+    }
+    
+    // Binary search per query ID, each starting where the last one stopped; the
+    // query is a page of IDs and the list may be millions long
+    private static long[] intersect(long[] ids, int size, long[] sortedIds) {
+        long[] found = new long[Math.min(size, sortedIds.length)];
+        int count = 0;
+        int from = 0;
+        for (long id : sortedIds) {
+            if (from >= size) {
+                break;
+            }
+            int at = Arrays.binarySearch(ids, from, size, id);
+            if (at >= 0) {
+                found[count++] = id;
+                from = at + 1;
+            } else {
+                from = -at - 1;
+            }
+        }
+        return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+    
+    private static boolean insert(long[][] lists, int[] sizes, int slot, long id) {
+        long[] ids = lists[slot];
+        int size = sizes[slot];
+        int at = Arrays.binarySearch(ids, 0, size, id);
+        if (at >= 0) {
+            return false;
+        }
+        at = -at - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+            lists[slot] = ids;
+        }
+        System.arraycopy(ids, at, ids, at + 1, size - at);
+        ids[at] = id;
+        sizes[slot] = size + 1;
+        return true;
+    }
+    
+    private static boolean delete(long[][] lists, int[] sizes, int slot, long id) {
+        long[] ids = lists[slot];
+        int size = sizes[slot];
+        int at = Arrays.binarySearch(ids, 0, size, id);
+        if (at < 0) {
+            return false;
+        }
+        System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+        sizes[slot] = size - 1;
+        return true;
+    }
+    
+    private static void append(long[][] lists, int[] sizes, int slot, long id) {
+        long[] ids = lists[slot];
+        int size = sizes[slot];
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, size << 1));
+            lists[slot] = ids;
+        }
+        ids[size] = id;
+        sizes[slot] = size + 1;
+    }
+    
+    // Sorts, drops duplicates and trims every list to its size; returns the remaining edge count
+    private long seal() {
+        long total = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                total += sortUnique(following, followingSizes, slot);
+                sortUnique(followers, followersSizes, slot);
+            }
+        }
+        return total;
+    }
+    
+    private static int sortUnique(long[][] lists, int[] sizes, int slot) {
+        long[] ids = lists[slot];
+        int size = sizes[slot];
+        Arrays.sort(ids, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || ids[i] != ids[unique - 1]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        lists[slot] = unique == 0 ? EMPTY : (unique == ids.length ? ids : Arrays.copyOf(ids, unique));
+        sizes[slot] = unique;
+        return unique;
+    }
+    
+    private int find(long userId) {
+        int mask = keys.length - 1;
+        for (int slot = mix(userId) & mask; ; slot = (slot + 1) & mask) {
+            long key = keys[slot];
+            if (key == userId) {
+                return slot;
+            }
+            if (key == 0) {
+                return -1;
+            }
+        }
+    }
+    
+    private int slotFor(long userId) {
+        int slot = find(userId);
+        if (slot >= 0) {
+            return slot;
+        }
+        // Keep the table at most half full so probe runs stay short
+        if ((users + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        slot = mix(userId) & mask;
+        while (keys[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = userId;
+        following[slot] = EMPTY;
+        followers[slot] = EMPTY;
+        users++;
+        return slot;
+    }
+    
+    private void resize(int slots) {
+        long[] oldKeys = keys;
+        long[][] oldFollowing = following;
+        int[] oldFollowingSizes = followingSizes;
+        long[][] oldFollowers = followers;
+        int[] oldFollowersSizes = followersSizes;
+        
+        allocate(slots);
+        int mask = slots - 1;
+        for (int old = 0; old < oldKeys.length; old++) {
+            long key = oldKeys[old];
+            if (key == 0) {
+                continue;
+            }
+            int slot = mix(key) & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            following[slot] = oldFollowing[old];
+            followingSizes[slot] = oldFollowingSizes[old];
+            followers[slot] = oldFollowers[old];
+            followersSizes[slot] = oldFollowersSizes[old];
+        }
+    }
+    
+    private void allocate(int slots) {
+        keys = new long[slots];
+        following = new long[slots][];
+        followingSizes = new int[slots];
+        followers = new long[slots][];
+        followersSizes = new int[slots];
+    }
+    
+    // Sequential IDs would cluster in neighbouring slots without mixing
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    private static void checkId(long userId) {
+        if (userId <= 0) {
+            throw new IllegalArgumentException("User IDs must be positive: " + userId);
+        }
+    }
+    
+    /**
+     * Collects edges in any order, then sorts each adjacency list once.
+     * Not thread-safe.
+     */
+    public static class Builder {
+        
+        private SocialGraph graph = new SocialGraph();
+        
+        public Builder add(long followerId, long followeeId) {
+            checkId(followerId);
+            checkId(followeeId);
+            // slotFor may grow the table, so look the arrays up only after it returns
+            int follower = graph.slotFor(followerId);
+            append(graph.following, graph.followingSizes, follower, followeeId);
+            int followee = graph.slotFor(followeeId);
+            append(graph.followers, graph.followersSizes, followee, followerId);
+            return this;
+        }
+        
+        public SocialGraph build() {
+            SocialGraph built = graph;
+            if (built == null) {
+                throw new IllegalStateException("build() has already been called");
+            }
+            graph = null;
+            built.edges = built.seal();
+            return built;
+        }
+    }
+}
\ No newline at end of file
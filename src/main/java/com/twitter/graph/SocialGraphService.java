@@ -0,0 +1,187 @@
+package com.twitter.graph;
+
+import com.twitter.event.FollowChangedEvent;
+import com.twitter.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serves follow checks, counts and follower/followee ID lists from an in-memory
+ * {@link SocialGraph} instead of the user_follows table.
+ *
+ * The graph is loaded from user_follows once the application is ready and then kept
+ * current by applying follow changes after their transactions commit; changes that
+ * commit while the load is running are replayed onto the loaded graph before it is
+ * swapped in. Until then {@link #isReady()} is false and callers query the database.
+ */
+@Service
+public class SocialGraphService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SocialGraphService.class);
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.graph.load-batch-size:10000}")
+    private int loadBatchSize;
+    
+    private final Object updateLock = new Object();
+    
+    private volatile SocialGraph graph = new SocialGraph();
+    private volatile boolean ready;
+    
+    // Non-null while a load is running; guarded by updateLock
+    private List<FollowChangedEvent> pendingReplay;
+    
+    @PostConstruct
+    public void initMetrics() {
+        Gauge.builder("graph.users", this, service -> service.graph.userCount())
+                .description("Users with at least one follow edge in the social graph")
+                .register(meterRegistry);
+        Gauge.builder("graph.edges", this, service -> service.graph.edgeCount())
+                .description("Follow edges in the social graph")
+                .register(meterRegistry);
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public boolean isFollowing(long followerId, long followeeId) {
+        return graph.isFollowing(followerId, followeeId);
+    }
+    
+    public int getFollowersCount(long userId) {
+        return graph.followersCount(userId);
+    }
+    
+    public int getFollowingCount(long userId) {
+        return graph.followingCount(userId);
+    }
+    
+    public long[] getFollowerIds(long userId, int offset, int limit) {
+        return graph.followers(userId, offset, limit);
+    }
+    
+    public long[] getFollowingIds(long userId, int offset, int limit) {
+        return graph.following(userId, offset, limit);
+    }
+    
+    public long[] getFollowingAmong(long userId, long[] sortedIds) {
+        return graph.followingAmong(userId, sortedIds);
+    }
+    
+    public long[] getFollowersAmong(long userId, long[] sortedIds) {
+        return graph.followersAmong(userId, sortedIds);
+    }
+    
+    // For traversals that read many adjacency lists; the graph is swapped out on reload
+    SocialGraph getGraph() {
+        return graph;
+    }
+    
+    public List<Long> getAllFollowerIds(long userId) {
+        return toList(graph.followers(userId, 0, Integer.MAX_VALUE));
+    }
+    
+    public List<Long> getAllFollowingIds(long userId) {
+        return toList(graph.following(userId, 0, Integer.MAX_VALUE));
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        Thread loader = new Thread(this::load, "social-graph-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+    
+    @TransactionalEventListener
+    public void onFollowChanged(FollowChangedEvent event) {
+        synchronized (updateLock) {
+            apply(graph, event);
+            if (pendingReplay != null) {
+                pendingReplay.add(event);
+            }
+        }
+    }
+    
+    /**
+     * Reads every follow edge in (follower, followee) order and swaps the result in.
+     */
+    public void load() {
+        synchronized (updateLock) {
+            if (pendingReplay != null) {
+                return;
+            }
+            pendingReplay = new ArrayList<>();
+        }
+        
+        try {
+            long start = System.currentTimeMillis();
+            SocialGraph.Builder builder = SocialGraph.builder();
+            long afterFollowerId = 0L;
+            long afterFollowingId = 0L;
+            while (true) {
+                List<Object[]> rows = userRepository.findFollowEdgesAfter(afterFollowerId, afterFollowingId,
+                        PageRequest.of(0, loadBatchSize));
+                for (Object[] row : rows) {
+                    afterFollowerId = ((Number) row[0]).longValue();
+                    afterFollowingId = ((Number) row[1]).longValue();
+                    builder.add(afterFollowerId, afterFollowingId);
+                }
+                if (rows.size() < loadBatchSize) {
+                    break;
+                }
+            }
+            SocialGraph loaded = builder.build();
+            
+            synchronized (updateLock) {
+                for (FollowChangedEvent event : pendingReplay) {
+                    apply(loaded, event);
+                }
+                graph = loaded;
+                ready = true;
+            }
+            logger.info("Social graph loaded with {} users and {} edges in {} ms", loaded.userCount(),
+                    loaded.edgeCount(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            logger.error("Failed to load social graph", e);
+        } finally {
+            synchronized (updateLock) {
+                pendingReplay = null;
+            }
+        }
+    }
+    
+    private static void apply(SocialGraph target, FollowChangedEvent event) {
+        if (event.isFollowing()) {
+            target.follow(event.getFollowerId(), event.getFollowingId());
+        } else {
+            target.unfollow(event.getFollowerId(), event.getFollowingId());
+        }
+    }
+    
+    private static List<Long> toList(long[] ids) {
+        List<Long> list = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+}
\ No newline at end of file
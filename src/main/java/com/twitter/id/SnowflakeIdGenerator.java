@@ -0,0 +1,130 @@
+package com.twitter.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Time-ordered 64-bit IDs: 41 bits of milliseconds since {@link #EPOCH_MILLIS}, 10 bits
+ * of node ID and 12 bits of per-millisecond sequence, so IDs from different nodes never
+ * collide and sort by creation time to within clock skew between nodes.
+ *
+ * The last timestamp and sequence are kept together in one {@link AtomicLong} and
+ * advanced with compare-and-set, so no lock is taken. When a millisecond's 4096
+ * sequence numbers run out, or the clock steps backwards, the generator keeps counting
+ * past the clock instead of waiting; IDs from one node therefore always increase and
+ * the clock catches up once the burst is over.
+ */
+public class SnowflakeIdGenerator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SnowflakeIdGenerator.class);
+    
+    /** 2024-01-01T00:00:00Z; 41 bits of milliseconds from here last until 2093. */
+    public static final long EPOCH_MILLIS = 1704067200000L;
+    
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+    
+    // StatefulSet pods are named <statefulset>-<ordinal>
+    private static final Pattern POD_ORDINAL = Pattern.compile(".*-(\\d+)$");
+    
+    private final long nodeBits;
+    private final LongSupplier clock;
+    
+    // (milliseconds since epoch << SEQUENCE_BITS) | sequence of the last ID handed out
+    private final AtomicLong last = new AtomicLong();
+    
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+    
+    public SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+    
+    public long nextId() {
+        long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long prev;
+        long next;
+        do {
+            prev = last.get();
+            next = now > prev ? now : prev + 1;
+        } while (!last.compareAndSet(prev, next));
+        
+        return (next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT | nodeBits | (next & SEQUENCE_MASK);
+    }
+    
+    /**
+     * The creation time encoded in an ID, in epoch milliseconds.
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS;
+    }
+    
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+    
+    /**
+     * The smallest ID any node can generate at or after {@code epochMillis}, for
+     * seeking an ID-ordered feed to a point in time.
+     */
+    public static long lowestIdAt(long epochMillis) {
+        return Math.max(0, epochMillis - EPOCH_MILLIS) << TIMESTAMP_SHIFT;
+    }
+    
+    /**
+     * Picks the node ID from configuration, or else from the ordinal at the end of a
+     * StatefulSet pod's hostname, or else 0. A value that is not a number between 0 and
+     * {@link #MAX_NODE_ID}, such as the hash suffix of a Deployment pod's name, is
+     * logged as an error and replaced by 0 rather than failing startup.
+     */
+    public static int resolveNodeId(String configured, String hostname) {
+        if (configured != null && !configured.trim().isEmpty()) {
+            int nodeId = parseNodeId(configured.trim());
+            if (nodeId < 0) {
+                logger.error("Configured node ID '{}' is not between 0 and {}; using 0. Set app.id.node-id "
+                        + "to a value unique to this instance", configured.trim(), MAX_NODE_ID);
+                return 0;
+            }
+            return nodeId;
+        }
+        if (hostname != null) {
+            Matcher matcher = POD_ORDINAL.matcher(hostname);
+            if (matcher.matches()) {
+                int nodeId = parseNodeId(matcher.group(1));
+                if (nodeId < 0) {
+                    logger.error("Hostname '{}' does not end in a pod ordinal between 0 and {}; using node ID 0. "
+                            + "Set app.id.node-id to a value unique to this instance", hostname, MAX_NODE_ID);
+                    return 0;
+                }
+                return nodeId;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * The node ID a string names, or -1 if it is not a number in range.
+     */
+    private static int parseNodeId(String value) {
+        try {
+            int nodeId = Integer.parseInt(value);
+            return nodeId <= MAX_NODE_ID ? nodeId : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.twitter.id;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hibernate generator handing out {@link SnowflakeIdGenerator} IDs, so the ID is known
+ * before the INSERT and inserts can be batched.
+ *
+ * The node ID is read from the {@value #NODE_ID_SETTING} Hibernate setting
+ * ({@code spring.jpa.properties.twitter.id.node-id}); when it is blank the pod ordinal
+ * in {@code HOSTNAME} is used. Every entity mapped to this generator shares one
+ * sequence per node.
+ */
+public class SnowflakeIdentifierGenerator implements IdentifierGenerator {
+    
+    public static final String NODE_ID_SETTING = "twitter.id.node-id";
+    
+    private static final ConcurrentMap<Integer, SnowflakeIdGenerator> GENERATORS = new ConcurrentHashMap<>();
+    
+    private SnowflakeIdGenerator generator;
+    
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        Object configured = serviceRegistry.getService(ConfigurationService.class).getSettings().get(NODE_ID_SETTING);
+        int nodeId = SnowflakeIdGenerator.resolveNodeId(configured != null ? configured.toString() : null,
+                System.getenv("HOSTNAME"));
+        generator = GENERATORS.computeIfAbsent(nodeId, SnowflakeIdGenerator::new);
+    }
+    
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return generator.nextId();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.twitter.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A single JWT revoked before its expiry, e.g. by signing out. Rows are only needed
+ * until the token would have expired anyway and are purged after that.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_expires", columnList = "expires_at"))
+public class RevokedToken {
+    
+    @Id
+    @Column(name = "token_id", length = 64)
+    private String tokenId;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    public RevokedToken() {}
+    
+    public RevokedToken(String tokenId, LocalDateTime expiresAt) {
+        this.tokenId = tokenId;
+        this.expiresAt = expiresAt;
+    }
+    
+    public String getTokenId() {
+        return tokenId;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.twitter.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -13,17 +14,21 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "tweets")
+@Table(name = "tweets", indexes = {
+    @Index(name = "idx_tweets_author_created", columnList = "author_id, created_at, id"),
+    @Index(name = "idx_tweets_created", columnList = "created_at, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Tweet {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "snowflake")
+    @GenericGenerator(name = "snowflake", strategy = "com.twitter.id.SnowflakeIdentifierGenerator")
     private Long id;
     
     @NotBlank
     @Size(max = 280)
-    @Column(columnDefinition = "TEXT")
+    @Column(length = 280)
     private String content;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -31,7 +36,7 @@ public class Tweet {
     private User author;
     
     @CreatedDate
-    @Column(updatable = false)
+    @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
     
     @LastModifiedDate
@@ -62,6 +67,33 @@ public class Tweet {
     
     private String imageUrl;
     
+    // Denormalized engagement counters. Only written by atomic UPDATE queries, so
+    // flushing a stale entity never overwrites them.
+    @Column(nullable = false, updatable = false)
+    private Long likesCount = 0L;
+    
+    @Column(nullable = false, updatable = false)
+    private Long retweetsCount = 0L;
+    
+    @Column(nullable = false, updatable = false)
+    private Long repliesCount = 0L;
+    
+    // Entities parsed from the content on write, so hashtag and mention feeds are
+    // index range scans instead of content scans
+    @ElementCollection
+    @CollectionTable(name = "tweet_hashtags", joinColumns = @JoinColumn(name = "tweet_id"),
+        indexes = @Index(name = "idx_tweet_hashtags_tag", columnList = "tag, tweet_id"))
+    @Column(name = "tag", length = 100, nullable = false)
+    @JsonIgnore
+    private Set<String> hashtags = new HashSet<>();
+    
+    @ElementCollection
+    @CollectionTable(name = "tweet_mentions", joinColumns = @JoinColumn(name = "tweet_id"),
+        indexes = @Index(name = "idx_tweet_mentions_user", columnList = "user_id, tweet_id"))
+    @Column(name = "user_id", nullable = false)
+    @JsonIgnore
+    private Set<Long> mentionedUserIds = new HashSet<>();
+    
     // Constructors
     public Tweet() {}
     
@@ -174,19 +206,47 @@ public class Tweet {
         this.imageUrl = imageUrl;
     }
     
-    // Helper methods
-    public int getLikesCount() {
-        return likedBy.size();
+    public Long getLikesCount() {
+        return likesCount;
+    }
+    
+    public void setLikesCount(Long likesCount) {
+        this.likesCount = likesCount;
+    }
+    
+    public Long getRetweetsCount() {
+        return retweetsCount;
     }
     
-    public int getRetweetsCount() {
-        return retweets.size();
+    public void setRetweetsCount(Long retweetsCount) {
+        this.retweetsCount = retweetsCount;
     }
     
-    public int getRepliesCount() {
-        return replies.size();
+    public Long getRepliesCount() {
+        return repliesCount;
     }
     
+    public void setRepliesCount(Long repliesCount) {
+        this.repliesCount = repliesCount;
+    }
+    
+    public Set<String> getHashtags() {
+        return hashtags;
+    }
+    
+    public void setHashtags(Set<String> hashtags) {
+        this.hashtags = hashtags;
+    }
+    
+    public Set<Long> getMentionedUserIds() {
+        return mentionedUserIds;
+    }
+    
+    public void setMentionedUserIds(Set<Long> mentionedUserIds) {
+        this.mentionedUserIds = mentionedUserIds;
+    }
+    
+    // Helper methods
     public boolean isLikedBy(User user) {
         return likedBy.contains(user);
     }
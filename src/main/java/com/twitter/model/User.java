@@ -1,6 +1,7 @@
 package com.twitter.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -19,7 +20,8 @@ import java.util.Set;
 public class User {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "snowflake")
+    @GenericGenerator(name = "snowflake", strategy = "com.twitter.id.SnowflakeIdentifierGenerator")
     private Long id;
     
     @NotBlank
@@ -53,6 +55,21 @@ public class User {
     @LastModifiedDate
     private LocalDateTime updatedAt;
     
+    // Denormalized counters. Only written by atomic UPDATE queries, so flushing a
+    // stale entity (e.g. a profile update) never overwrites them.
+    @Column(nullable = false, updatable = false)
+    private Long followersCount = 0L;
+    
+    @Column(nullable = false, updatable = false)
+    private Long followingCount = 0L;
+    
+    @Column(nullable = false, updatable = false)
+    private Long tweetsCount = 0L;
+    
+    // Embedded in issued JWTs; bumped by an UPDATE query to revoke every earlier token
+    @Column(nullable = false, updatable = false)
+    private Integer tokenVersion = 0;
+    
     @OneToMany(mappedBy = "author", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private Set<Tweet> tweets = new HashSet<>();
@@ -161,6 +178,38 @@ public class User {
         this.updatedAt = updatedAt;
     }
     
+    public Long getFollowersCount() {
+        return followersCount;
+    }
+    
+    public void setFollowersCount(Long followersCount) {
+        this.followersCount = followersCount;
+    }
+    
+    public Long getFollowingCount() {
+        return followingCount;
+    }
+    
+    public void setFollowingCount(Long followingCount) {
+        this.followingCount = followingCount;
+    }
+    
+    public Long getTweetsCount() {
+        return tweetsCount;
+    }
+    
+    public void setTweetsCount(Long tweetsCount) {
+        this.tweetsCount = tweetsCount;
+    }
+    
+    public Integer getTokenVersion() {
+        return tokenVersion;
+    }
+    
+    public void setTokenVersion(Integer tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+    
     public Set<Tweet> getTweets() {
         return tweets;
     }
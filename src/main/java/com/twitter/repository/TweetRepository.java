@@ -4,12 +4,15 @@ import com.twitter.model.Tweet;
 import com.twitter.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -50,6 +53,24 @@ public interface TweetRepository extends JpaRepository<Tweet, Long> {
     @Query("SELECT CASE WHEN COUNT(t) > 0 THEN true ELSE false END FROM Tweet t WHERE t.originalTweet.id = :tweetId AND t.author.id = :userId AND t.type = 'RETWEET'")
     Boolean isRetweetedByUser(@Param("tweetId") Long tweetId, @Param("userId") Long userId);
     
+    @Query("SELECT t.id, COUNT(u) FROM Tweet t JOIN t.likedBy u WHERE t.id IN :tweetIds GROUP BY t.id")
+    List<Object[]> countLikesByTweetIds(@Param("tweetIds") Collection<Long> tweetIds);
+    
+    @Query("SELECT r.originalTweet.id, COUNT(r) FROM Tweet r WHERE r.originalTweet.id IN :tweetIds GROUP BY r.originalTweet.id")
+    List<Object[]> countRetweetsByTweetIds(@Param("tweetIds") Collection<Long> tweetIds);
+    
+    @Query("SELECT r.parentTweet.id, COUNT(r) FROM Tweet r WHERE r.parentTweet.id IN :tweetIds GROUP BY r.parentTweet.id")
+    List<Object[]> countRepliesByTweetIds(@Param("tweetIds") Collection<Long> tweetIds);
+    
+    @Query("SELECT t.id FROM Tweet t JOIN t.likedBy u WHERE u.id = :userId AND t.id IN :tweetIds")
+    List<Long> findLikedTweetIdsByUser(@Param("tweetIds") Collection<Long> tweetIds, @Param("userId") Long userId);
+    
+    @Query("SELECT r.originalTweet.id FROM Tweet r WHERE r.author.id = :userId AND r.type = 'RETWEET' AND r.originalTweet.id IN :tweetIds")
+    List<Long> findRetweetedTweetIdsByUser(@Param("tweetIds") Collection<Long> tweetIds, @Param("userId") Long userId);
+    
+    @Query("SELECT t.id FROM Tweet t WHERE t.id IN :tweetIds")
+    List<Long> findExistingIds(@Param("tweetIds") Collection<Long> tweetIds);
+    
     @Query("SELECT t FROM Tweet t WHERE t.createdAt >= :since ORDER BY t.createdAt DESC")
     Page<Tweet> findTrendingTweets(@Param("since") LocalDateTime since, Pageable pageable);
     
@@ -57,4 +78,107 @@ public interface TweetRepository extends JpaRepository<Tweet, Long> {
            "(SELECT f.id FROM User u JOIN u.following f WHERE u.id = :userId) " +
            "OR t.author.id = :userId ORDER BY t.createdAt DESC")
     Page<Tweet> findTimelineTweets(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query("SELECT t.id, t.createdAt FROM Tweet t WHERE t.author.id IN " +
+           "(SELECT f.id FROM User u JOIN u.following f WHERE u.id = :userId) " +
+           "OR t.author.id = :userId ORDER BY t.createdAt DESC, t.id DESC")
+    List<Object[]> findTimelineEntries(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query("SELECT t.id, t.createdAt FROM Tweet t WHERE t.author.id = :authorId ORDER BY t.createdAt DESC, t.id DESC")
+    List<Object[]> findRecentEntriesByAuthorId(@Param("authorId") Long authorId, Pageable pageable);
+    
+    // Keyset (seek) variants of the feed queries: no OFFSET scan and no COUNT query
+    
+    @Query("SELECT t FROM Tweet t WHERE t.author.id = :authorId " +
+           "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    Slice<Tweet> findByAuthorIdBefore(@Param("authorId") Long authorId, @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT t FROM Tweet t WHERE t.parentTweet.id = :tweetId " +
+           "AND (t.createdAt > :createdAt OR (t.createdAt = :createdAt AND t.id > :id)) " +
+           "ORDER BY t.createdAt ASC, t.id ASC")
+    Slice<Tweet> findRepliesAfter(@Param("tweetId") Long tweetId, @Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT t FROM Tweet t WHERE t.originalTweet.id = :tweetId AND t.type = 'RETWEET' " +
+           "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    Slice<Tweet> findRetweetsBefore(@Param("tweetId") Long tweetId, @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT t FROM Tweet t JOIN t.likedBy u WHERE u.id = :userId " +
+           "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    Slice<Tweet> findLikedTweetsBefore(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT t FROM Tweet t WHERE t.content LIKE %:query% " +
+           "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    Slice<Tweet> searchTweetsBefore(@Param("query") String query, @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT t FROM Tweet t WHERE t.createdAt >= :since " +
+           "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    Slice<Tweet> findTrendingTweetsBefore(@Param("since") LocalDateTime since, @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id, Pageable pageable);
+    
+    // Likes, written directly against the join table so neither side's collection is loaded
+    
+    @Modifying
+    @Query(value = "INSERT INTO user_likes (user_id, tweet_id) SELECT :userId, :tweetId FROM DUAL " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM user_likes WHERE user_id = :userId AND tweet_id = :tweetId)",
+           nativeQuery = true)
+    int insertLike(@Param("userId") Long userId, @Param("tweetId") Long tweetId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM user_likes WHERE user_id = :userId AND tweet_id = :tweetId", nativeQuery = true)
+    int deleteLike(@Param("userId") Long userId, @Param("tweetId") Long tweetId);
+    
+    // Denormalized counters
+    
+    @Query("SELECT t.author.id, COUNT(t) FROM Tweet t WHERE t.author.id IN :userIds GROUP BY t.author.id")
+    List<Object[]> countTweetsByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    @Query("SELECT t.id FROM Tweet t WHERE t.id > :afterId ORDER BY t.id ASC")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT t.id, t.likesCount, t.retweetsCount, t.repliesCount FROM Tweet t WHERE t.id IN :tweetIds")
+    List<Object[]> findCountersByTweetIds(@Param("tweetIds") Collection<Long> tweetIds);
+    
+    @Modifying
+    @Query("UPDATE Tweet t SET t.likesCount = :likes, t.retweetsCount = :retweets, t.repliesCount = :replies " +
+           "WHERE t.id = :tweetId")
+    int updateCounters(@Param("tweetId") Long tweetId, @Param("likes") long likes,
+                       @Param("retweets") long retweets, @Param("replies") long replies);
+    
+    // Search index rebuild
+    
+    @Query("SELECT t.id, t.content FROM Tweet t WHERE t.id > :afterId ORDER BY t.id ASC")
+    List<Object[]> findContentAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Hashtag and mention feeds. IDs increase with creation time, so ID order is
+    // recency order and the (tag, tweet_id) / (user_id, tweet_id) indexes serve both
+    // the filter and the sort.
+    
+    @Query(value = "SELECT tweet_id FROM tweet_hashtags WHERE tag = :tag AND tweet_id < :beforeId " +
+                   "ORDER BY tweet_id DESC", nativeQuery = true)
+    List<Long> findIdsByHashtagBefore(@Param("tag") String tag, @Param("beforeId") Long beforeId, Pageable pageable);
+    
+    @Query(value = "SELECT tweet_id FROM tweet_mentions WHERE user_id = :userId AND tweet_id < :beforeId " +
+                   "ORDER BY tweet_id DESC", nativeQuery = true)
+    List<Long> findIdsMentioningBefore(@Param("userId") Long userId, @Param("beforeId") Long beforeId,
+                                       Pageable pageable);
+    
+    // Startup warm-up
+    
+    @Query("SELECT t FROM Tweet t ORDER BY t.id DESC")
+    List<Tweet> findNewest(Pageable pageable);
+    
+    // Follow recommendations
+    
+    @Query("SELECT t.author.id, MAX(t.createdAt) FROM Tweet t WHERE t.author.id IN :authorIds GROUP BY t.author.id")
+    List<Object[]> findLastTweetTimesByAuthorIds(@Param("authorIds") Collection<Long> authorIds);
 }
\ No newline at end of file
@@ -4,10 +4,12 @@ import com.twitter.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,9 +26,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     Boolean existsByEmail(String email);
     
+    @Query("SELECT u.id FROM User u WHERE u.username IN :usernames")
+    List<Long> findIdsByUsernameIn(@Param("usernames") Collection<String> usernames);
+    
+    @Query("SELECT u.username, u.id FROM User u WHERE u.username IN :usernames")
+    List<Object[]> findUsernameIdPairs(@Param("usernames") Collection<String> usernames);
+    
     @Query("SELECT u FROM User u WHERE u.username LIKE %:query% OR u.displayName LIKE %:query%")
     Page<User> searchUsers(@Param("query") String query, Pageable pageable);
     
+    // Autocomplete before the index is built; the prefix must be lowercased and have LIKE wildcards escaped
+    @Query("SELECT u.id FROM User u WHERE LOWER(u.username) LIKE CONCAT(:prefix, '%') ESCAPE '\\' " +
+           "OR LOWER(u.displayName) LIKE CONCAT(:prefix, '%') ESCAPE '\\' " +
+           "ORDER BY u.followersCount DESC, u.id ASC")
+    List<Long> findIdsByNamePrefix(@Param("prefix") String prefix, Pageable pageable);
+    
     @Query("SELECT u FROM User u WHERE u.id IN :userIds")
     List<User> findByIdIn(@Param("userIds") List<Long> userIds);
     
@@ -36,6 +50,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u.following FROM User u WHERE u.id = :userId")
     Page<User> findFollowingByUserId(@Param("userId") Long userId, Pageable pageable);
     
+    @Query("SELECT f.id FROM User u JOIN u.followers f WHERE u.id = :userId")
+    List<Long> findFollowerIdsByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT f.id FROM User u JOIN u.following f WHERE u.id = :userId")
+    List<Long> findFollowingIdsByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT u.id, COUNT(f) FROM User u JOIN u.followers f WHERE u.id IN :userIds GROUP BY u.id")
+    List<Object[]> countFollowersByUserIds(@Param("userIds") Collection<Long> userIds);
+    
     @Query("SELECT COUNT(f) FROM User u JOIN u.followers f WHERE u.id = :userId")
     Long countFollowersByUserId(@Param("userId") Long userId);
     
@@ -44,4 +67,92 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END FROM User u JOIN u.following f WHERE u.id = :followerId AND f.id = :followingId")
     Boolean isFollowing(@Param("followerId") Long followerId, @Param("followingId") Long followingId);
+    
+    // Follows, written directly against the join table so neither side's collection is loaded
+    
+    @Modifying
+    @Query(value = "INSERT INTO user_follows (follower_id, following_id) SELECT :followerId, :followingId FROM DUAL " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM user_follows WHERE follower_id = :followerId AND following_id = :followingId)",
+           nativeQuery = true)
+    int insertFollow(@Param("followerId") Long followerId, @Param("followingId") Long followingId);
+    
+    @Query(value = "SELECT u.id FROM users u WHERE u.id IN (:userIds) AND NOT EXISTS " +
+                   "(SELECT 1 FROM user_follows f WHERE f.follower_id = :followerId AND f.following_id = u.id)",
+           nativeQuery = true)
+    List<Long> findIdsNotFollowedBy(@Param("followerId") Long followerId, @Param("userIds") Collection<Long> userIds);
+    
+    @Modifying
+    @Query(value = "DELETE FROM user_follows WHERE follower_id = :followerId AND following_id = :followingId",
+           nativeQuery = true)
+    int deleteFollow(@Param("followerId") Long followerId, @Param("followingId") Long followingId);
+    
+    @Query(value = "SELECT following_id FROM user_follows WHERE follower_id = :userId AND following_id IN :userIds",
+           nativeQuery = true)
+    List<Long> findFollowingIdsAmong(@Param("userId") Long userId, @Param("userIds") Collection<Long> userIds);
+    
+    @Query(value = "SELECT follower_id FROM user_follows WHERE following_id = :userId AND follower_id IN :userIds",
+           nativeQuery = true)
+    List<Long> findFollowerIdsAmong(@Param("userId") Long userId, @Param("userIds") Collection<Long> userIds);
+    
+    // Denormalized counters
+    
+    @Modifying
+    @Query("UPDATE User u SET u.followersCount = u.followersCount + :delta WHERE u.id = :userId")
+    int incrementFollowersCount(@Param("userId") Long userId, @Param("delta") long delta);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.followersCount = u.followersCount + :delta WHERE u.id IN :userIds")
+    int incrementFollowersCounts(@Param("userIds") Collection<Long> userIds, @Param("delta") long delta);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.followingCount = u.followingCount + :delta WHERE u.id = :userId")
+    int incrementFollowingCount(@Param("userId") Long userId, @Param("delta") long delta);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.tweetsCount = u.tweetsCount + :delta WHERE u.id = :userId")
+    int incrementTweetsCount(@Param("userId") Long userId, @Param("delta") long delta);
+    
+    @Query("SELECT u.id, COUNT(f) FROM User u JOIN u.following f WHERE u.id IN :userIds GROUP BY u.id")
+    List<Object[]> countFollowingByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId ORDER BY u.id ASC")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT u.id, u.followersCount, u.followingCount, u.tweetsCount FROM User u WHERE u.id IN :userIds")
+    List<Object[]> findCountersByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.followersCount = :followers, u.followingCount = :following, u.tweetsCount = :tweets " +
+           "WHERE u.id = :userId")
+    int updateCounters(@Param("userId") Long userId, @Param("followers") long followers,
+                       @Param("following") long following, @Param("tweets") long tweets);
+    
+    // Token revocation
+    
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :userId")
+    Optional<Integer> findTokenVersion(@Param("userId") Long userId);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :userId")
+    int incrementTokenVersion(@Param("userId") Long userId);
+    
+    // Autocomplete index rebuild
+    
+    @Query("SELECT u.id, u.username, u.displayName, u.followersCount FROM User u WHERE u.id > :afterId ORDER BY u.id ASC")
+    List<Object[]> findAutocompleteEntriesAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Startup warm-up
+    
+    @Query("SELECT u.id FROM User u ORDER BY u.followersCount DESC")
+    List<Long> findMostFollowedIds(Pageable pageable);
+    
+    // Social graph load
+    
+    @Query(value = "SELECT follower_id, following_id FROM user_follows " +
+                   "WHERE follower_id > :afterFollowerId " +
+                   "OR (follower_id = :afterFollowerId AND following_id > :afterFollowingId) " +
+                   "ORDER BY follower_id, following_id",
+           nativeQuery = true)
+    List<Object[]> findFollowEdgesAfter(@Param("afterFollowerId") Long afterFollowerId,
+                                        @Param("afterFollowingId") Long afterFollowingId, Pageable pageable);
 }
\ No newline at end of file
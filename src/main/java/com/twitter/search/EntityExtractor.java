@@ -0,0 +1,84 @@
+package com.twitter.search;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Finds #hashtags and @mentions in tweet text. A marker only starts an entity at the
+ * beginning of the text or after a character that cannot be part of one, so
+ * "bob@example.com" and "a#b" contain neither. Hashtags are lower-cased and must not
+ * be all digits; mentions keep the case they were written in.
+ */
+public final class EntityExtractor {
+    
+    static final int MAX_HASHTAG_LENGTH = 100;
+    static final int MAX_MENTION_LENGTH = 50;
+    
+    private EntityExtractor() {
+    }
+    
+    /**
+     * Returns the distinct hashtags of the text without '#', in order of first appearance.
+     */
+    public static Set<String> hashtags(String text) {
+        Set<String> tags = new LinkedHashSet<>();
+        for (String tag : extract(text, '#', MAX_HASHTAG_LENGTH)) {
+            if (!isAllDigits(tag)) {
+                tags.add(tag.toLowerCase(Locale.ROOT));
+            }
+        }
+        return tags;
+    }
+    
+    /**
+     * Returns the distinct usernames mentioned in the text without '@', in order of first
+     * appearance.
+     */
+    public static Set<String> mentions(String text) {
+        return extract(text, '@', MAX_MENTION_LENGTH);
+    }
+    
+    private static Set<String> extract(String text, char marker, int maxLength) {
+        Set<String> entities = new LinkedHashSet<>();
+        if (text == null) {
+            return entities;
+        }
+        
+        int i = 0;
+        while (i < text.length()) {
+            if (text.charAt(i) != marker || (i > 0 && isEntityBoundaryBlocked(text.charAt(i - 1)))) {
+                i++;
+                continue;
+            }
+            int start = i + 1;
+            int end = start;
+            while (end < text.length() && isEntityChar(text.charAt(end))) {
+                end++;
+            }
+            // Overlong runs are not valid tags or usernames, so skip them entirely
+            if (end > start && end - start <= maxLength) {
+                entities.add(text.substring(start, end));
+            }
+            i = Math.max(end, start);
+        }
+        return entities;
+    }
+    
+    private static boolean isEntityBoundaryBlocked(char previous) {
+        return isEntityChar(previous) || previous == '#' || previous == '@' || previous == '&';
+    }
+    
+    private static boolean isEntityChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+    
+    private static boolean isAllDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.twitter.search;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * Read-only view of a segment file written by {@link SegmentWriter}.
+ *
+ * The whole file is memory-mapped; only the term dictionary is copied into the heap
+ * when the segment is opened, and postings are read straight from the mapping, so
+ * opening a segment costs a dictionary scan rather than a rebuild and the page cache
+ * is shared with any other process reading the same file.
+ */
+final class MappedSegment {
+    
+    private final Path file;
+    private final long sizeInBytes;
+    private final LongBuffer postings;
+    private final String[] terms;
+    private final long[] starts;
+    private final int[] counts;
+    private final long maxTweetId;
+    
+    private MappedSegment(Path file, long sizeInBytes, LongBuffer postings, String[] terms, long[] starts,
+                          int[] counts, long maxTweetId) {
+        this.file = file;
+        this.sizeInBytes = sizeInBytes;
+        this.postings = postings;
+        this.terms = terms;
+        this.starts = starts;
+        this.counts = counts;
+        this.maxTweetId = maxTweetId;
+    }
+    
+    static MappedSegment open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        long size;
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            if (size < SegmentWriter.HEADER_BYTES + SegmentWriter.FOOTER_BYTES || size > SegmentWriter.MAX_SEGMENT_BYTES) {
+                throw new IOException("Invalid segment size " + size + ": " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        
+        int footer = (int) size - SegmentWriter.FOOTER_BYTES;
+        if (buffer.getInt(0) != SegmentWriter.MAGIC || buffer.getInt(footer + 16) != SegmentWriter.MAGIC) {
+            throw new IOException("Not a segment file: " + file);
+        }
+        if (buffer.getInt(4) != SegmentWriter.VERSION) {
+            throw new IOException("Unsupported segment version " + buffer.getInt(4) + ": " + file);
+        }
+        int dictionaryOffset = (int) buffer.getLong(footer);
+        long maxTweetId = buffer.getLong(footer + 8);
+        
+        ByteBuffer postingsBytes = buffer.duplicate();
+        postingsBytes.position(SegmentWriter.HEADER_BYTES).limit(dictionaryOffset);
+        LongBuffer postings = postingsBytes.slice().asLongBuffer();
+        
+        ByteBuffer dictionaryBytes = buffer.duplicate();
+        dictionaryBytes.position(dictionaryOffset).limit(footer);
+        byte[] raw = new byte[dictionaryBytes.remaining()];
+        dictionaryBytes.get(raw);
+        
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        int termCount = in.readInt();
+        String[] terms = new String[termCount];
+        long[] starts = new long[termCount];
+        int[] counts = new int[termCount];
+        for (int i = 0; i < termCount; i++) {
+            terms[i] = in.readUTF();
+            starts[i] = in.readLong();
+            counts[i] = in.readInt();
+        }
+        return new MappedSegment(file, size, postings, terms, starts, counts, maxTweetId);
+    }
+    
+    /**
+     * Returns up to {@code limit} IDs of tweets containing every term, newest first,
+     * restricted to IDs below {@code beforeId} and not rejected by {@code excluded}.
+     */
+    long[] search(Collection<String> terms, long beforeId, int limit, LongPredicate excluded) {
+        List<Postings> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            int index = Arrays.binarySearch(this.terms, term);
+            if (index < 0) {
+                return new long[0];
+            }
+            lists.add(postingsAt(index));
+        }
+        return PostingsIntersection.intersect(lists, beforeId, limit, excluded);
+    }
+    
+    int termCount() {
+        return terms.length;
+    }
+    
+    String termAt(int index) {
+        return terms[index];
+    }
+    
+    Postings postingsAt(int index) {
+        return new MappedPostings(postings, (int) starts[index], counts[index]);
+    }
+    
+    Path getFile() {
+        return file;
+    }
+    
+    long getSizeInBytes() {
+        return sizeInBytes;
+    }
+    
+    long getMaxTweetId() {
+        return maxTweetId;
+    }
+    
+    private static final class MappedPostings implements Postings {
+        private final LongBuffer buffer;
+        private final int start;
+        private final int count;
+        
+        MappedPostings(LongBuffer buffer, int start, int count) {
+            this.buffer = buffer;
+            this.start = start;
+            this.count = count;
+        }
+        
+        @Override
+        public int size() {
+            return count;
+        }
+        
+        @Override
+        public long get(int index) {
+            // Absolute reads do not touch the shared buffer's position
+            return buffer.get(start + index);
+        }
+    }
+}
\ No newline at end of file
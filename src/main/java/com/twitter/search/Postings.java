@@ -0,0 +1,37 @@
+package com.twitter.search;
+
+/**
+ * Read-only view of one term's tweet IDs in ascending order, either in heap or in a
+ * memory-mapped segment.
+ */
+interface Postings {
+    
+    int size();
+    
+    long get(int index);
+    
+    /**
+     * Index of the ID if present, otherwise {@code -(insertionPoint) - 1}, as in
+     * {@link java.util.Arrays#binarySearch(long[], long)}.
+     */
+    default int binarySearch(long tweetId) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = get(mid);
+            if (value < tweetId) {
+                low = mid + 1;
+            } else if (value > tweetId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+    
+    default boolean contains(long tweetId) {
+        return binarySearch(tweetId) >= 0;
+    }
+}
\ No newline at end of file
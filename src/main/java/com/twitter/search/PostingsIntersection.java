@@ -0,0 +1,54 @@
+package com.twitter.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * AND of several postings lists, newest first.
+ */
+final class PostingsIntersection {
+    
+    private PostingsIntersection() {
+    }
+    
+    /**
+     * Returns up to {@code limit} IDs present in every list, highest first, restricted
+     * to IDs below {@code beforeId} and not rejected by {@code excluded}. Drives from
+     * the shortest list and probes the others with binary search.
+     */
+    static long[] intersect(List<? extends Postings> lists, long beforeId, int limit, LongPredicate excluded) {
+        if (lists.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+        
+        Postings driver = lists.get(0);
+        for (Postings list : lists) {
+            if (list.size() < driver.size()) {
+                driver = list;
+            }
+        }
+        
+        int pos = driver.binarySearch(beforeId);
+        int start = (pos >= 0 ? pos : -pos - 1) - 1;
+        
+        long[] matches = new long[Math.min(limit, start + 1)];
+        int found = 0;
+        for (int i = start; i >= 0 && found < matches.length; i--) {
+            long tweetId = driver.get(i);
+            if (!excluded.test(tweetId) && containedInAll(lists, driver, tweetId)) {
+                matches[found++] = tweetId;
+            }
+        }
+        return found == matches.length ? matches : Arrays.copyOf(matches, found);
+    }
+    
+    private static boolean containedInAll(List<? extends Postings> lists, Postings driver, long tweetId) {
+        for (Postings list : lists) {
+            if (list != driver && !list.contains(tweetId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
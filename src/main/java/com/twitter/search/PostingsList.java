@@ -0,0 +1,88 @@
+package com.twitter.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted tweet IDs for one term.
+ *
+ * Writers are serialized; readers take an immutable {@link Snapshot} without locking.
+ * New tweets almost always have the highest ID yet, so the common add is an append
+ * into spare capacity that no published snapshot can see. Anything else copies the
+ * array before publishing.
+ */
+final class PostingsList {
+    
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    
+    Snapshot snapshot() {
+        return snapshot;
+    }
+    
+    synchronized boolean add(long tweetId) {
+        Snapshot current = snapshot;
+        long[] ids = current.ids;
+        int size = current.size;
+        
+        if (size == 0 || tweetId > ids[size - 1]) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(4, size * 2));
+            }
+            ids[size] = tweetId;
+            snapshot = new Snapshot(ids, size + 1);
+            return true;
+        }
+        
+        int pos = Arrays.binarySearch(ids, 0, size, tweetId);
+        if (pos >= 0) {
+            return false;
+        }
+        int insertAt = -pos - 1;
+        long[] copy = new long[Math.max(size + 1, ids.length)];
+        System.arraycopy(ids, 0, copy, 0, insertAt);
+        copy[insertAt] = tweetId;
+        System.arraycopy(ids, insertAt, copy, insertAt + 1, size - insertAt);
+        snapshot = new Snapshot(copy, size + 1);
+        return true;
+    }
+    
+    synchronized boolean remove(long tweetId) {
+        Snapshot current = snapshot;
+        int pos = Arrays.binarySearch(current.ids, 0, current.size, tweetId);
+        if (pos < 0) {
+            return false;
+        }
+        long[] copy = new long[current.ids.length];
+        System.arraycopy(current.ids, 0, copy, 0, pos);
+        System.arraycopy(current.ids, pos + 1, copy, pos, current.size - pos - 1);
+        snapshot = new Snapshot(copy, current.size - 1);
+        return true;
+    }
+    
+    static final class Snapshot implements Postings {
+        
+        static final Snapshot EMPTY = new Snapshot(new long[0], 0);
+        
+        final long[] ids;
+        final int size;
+        
+        Snapshot(long[] ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+        
+        @Override
+        public long get(int index) {
+            return ids[index];
+        }
+        
+        @Override
+        public int binarySearch(long tweetId) {
+            return Arrays.binarySearch(ids, 0, size, tweetId);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,271 @@
+package com.twitter.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Owns the segment files in the index directory and the manifest that says which of
+ * them are live.
+ *
+ * The manifest records the live segments, the highest tweet ID known to be covered by
+ * them (the checkpoint), and tweet IDs deleted since the segments were written. It is
+ * replaced atomically, so after a crash the directory always describes a consistent
+ * set of segments; files not named by it are leftovers and are removed on open.
+ */
+class SegmentStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SegmentStore.class);
+    
+    private static final String MANIFEST = "MANIFEST";
+    private static final int MANIFEST_MAGIC = 0x54574d46;
+    
+    private final Path directory;
+    
+    private long nextGeneration = 1;
+    private long checkpoint;
+    private Set<Long> tombstones = Collections.emptySet();
+    
+    SegmentStore(Path directory) {
+        this.directory = directory;
+    }
+    
+    /**
+     * Opens the segments named by the manifest, or returns {@code null} if there is no
+     * manifest yet.
+     */
+    synchronized List<MappedSegment> open() throws IOException {
+        Files.createDirectories(directory);
+        Path manifest = directory.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return null;
+        }
+        
+        List<String> names = new ArrayList<>();
+        Set<Long> deleted = new HashSet<>();
+        try (InputStream stream = Files.newInputStream(manifest);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if (in.readInt() != MANIFEST_MAGIC) {
+                throw new IOException("Corrupt search index manifest");
+            }
+            nextGeneration = in.readLong();
+            checkpoint = in.readLong();
+            int segmentCount = in.readInt();
+            for (int i = 0; i < segmentCount; i++) {
+                names.add(in.readUTF());
+            }
+            int tombstoneCount = in.readInt();
+            for (int i = 0; i < tombstoneCount; i++) {
+                deleted.add(in.readLong());
+            }
+        }
+        tombstones = deleted;
+        
+        List<MappedSegment> segments = new ArrayList<>(names.size());
+        for (String name : names) {
+            segments.add(MappedSegment.open(directory.resolve(name)));
+        }
+        removeUnreferenced(new HashSet<>(names));
+        return segments;
+    }
+    
+    long getCheckpoint() {
+        return checkpoint;
+    }
+    
+    Set<Long> getTombstones() {
+        return tombstones;
+    }
+    
+    /**
+     * Writes the postings of a sealed tail as a new segment file. The segment is not
+     * live until it is named by a {@link #commit}.
+     */
+    MappedSegment write(Map<String, long[]> sortedPostings) throws IOException {
+        Path file = nextSegmentFile();
+        try (SegmentWriter writer = new SegmentWriter(file)) {
+            for (Map.Entry<String, long[]> entry : sortedPostings.entrySet()) {
+                writer.addTerm(entry.getKey(), entry.getValue(), entry.getValue().length);
+            }
+            writer.finish();
+        }
+        return MappedSegment.open(file);
+    }
+    
+    /**
+     * Writes one segment holding the union of the given segments' postings, minus the
+     * excluded tweet IDs. Terms are merged in order through a heap over the segments'
+     * dictionaries, so only one term's postings are in memory at a time.
+     */
+    MappedSegment merge(List<MappedSegment> segments, LongPredicate excluded) throws IOException {
+        Path file = nextSegmentFile();
+        PriorityQueue<TermCursor> cursors = new PriorityQueue<>();
+        for (MappedSegment segment : segments) {
+            if (segment.termCount() > 0) {
+                cursors.add(new TermCursor(segment));
+            }
+        }
+        
+        try (SegmentWriter writer = new SegmentWriter(file)) {
+            List<Postings> runs = new ArrayList<>();
+            while (!cursors.isEmpty()) {
+                String term = cursors.peek().term();
+                runs.clear();
+                while (!cursors.isEmpty() && cursors.peek().term().equals(term)) {
+                    TermCursor cursor = cursors.poll();
+                    runs.add(cursor.postings());
+                    if (cursor.advance()) {
+                        cursors.add(cursor);
+                    }
+                }
+                long[] merged = union(runs, excluded);
+                writer.addTerm(term, merged, merged.length);
+            }
+            writer.finish();
+        }
+        return MappedSegment.open(file);
+    }
+    
+    /**
+     * Atomically makes the given segments the live set.
+     */
+    synchronized void commit(List<MappedSegment> segments, long checkpoint, Collection<Long> tombstones)
+            throws IOException {
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MANIFEST_MAGIC);
+            out.writeLong(nextGeneration);
+            out.writeLong(checkpoint);
+            out.writeInt(segments.size());
+            for (MappedSegment segment : segments) {
+                out.writeUTF(segment.getFile().getFileName().toString());
+            }
+            List<Long> deleted = new ArrayList<>(tombstones);
+            out.writeInt(deleted.size());
+            for (Long tweetId : deleted) {
+                out.writeLong(tweetId);
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temp, directory.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE);
+        this.checkpoint = checkpoint;
+    }
+    
+    void delete(Collection<MappedSegment> segments) {
+        for (MappedSegment segment : segments) {
+            try {
+                Files.deleteIfExists(segment.getFile());
+            } catch (IOException e) {
+                logger.warn("Could not delete search segment {}", segment.getFile(), e);
+            }
+        }
+    }
+    
+    /**
+     * Removes every file in the index directory, e.g. after the manifest turned out to
+     * be unreadable.
+     */
+    synchronized void reset() throws IOException {
+        Files.createDirectories(directory);
+        removeUnreferenced(Collections.emptySet());
+        nextGeneration = 1;
+        checkpoint = 0;
+        tombstones = Collections.emptySet();
+    }
+    
+    private synchronized Path nextSegmentFile() {
+        return directory.resolve(String.format("segment-%08d.seg", nextGeneration++));
+    }
+    
+    private void removeUnreferenced(Set<String> live) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!name.equals(MANIFEST) && !live.contains(name)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+    
+    private static long[] union(List<Postings> runs, LongPredicate excluded) {
+        int total = 0;
+        for (Postings run : runs) {
+            total += run.size();
+        }
+        
+        long[] merged = new long[total];
+        int[] positions = new int[runs.size()];
+        int size = 0;
+        long last = Long.MIN_VALUE;
+        while (true) {
+            int next = -1;
+            long smallest = Long.MAX_VALUE;
+            for (int r = 0; r < runs.size(); r++) {
+                if (positions[r] < runs.get(r).size() && runs.get(r).get(positions[r]) <= smallest) {
+                    smallest = runs.get(r).get(positions[r]);
+                    next = r;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            positions[next]++;
+            // The same tweet can sit in two segments if it was added live while the initial build read it
+            if (smallest != last && !excluded.test(smallest)) {
+                merged[size++] = smallest;
+            }
+            last = smallest;
+        }
+        return size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+    
+    private static final class TermCursor implements Comparable<TermCursor> {
+        private final MappedSegment segment;
+        private int index;
+        
+        TermCursor(MappedSegment segment) {
+            this.segment = segment;
+        }
+        
+        String term() {
+            return segment.termAt(index);
+        }
+        
+        Postings postings() {
+            return segment.postingsAt(index);
+        }
+        
+        boolean advance() {
+            return ++index < segment.termCount();
+        }
+        
+        @Override
+        public int compareTo(TermCursor other) {
+            return term().compareTo(other.term());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.twitter.search;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes one immutable segment file, term by term in ascending order.
+ *
+ * Layout, all big-endian:
+ * <pre>
+ *   header      magic:int version:int
+ *   postings    ascending tweet IDs as longs, one run per term
+ *   dictionary  termCount:int then per term (term:UTF, start:long, count:int)
+ *   footer      dictionaryOffset:long maxTweetId:long magic:int
+ * </pre>
+ * The file is written under a temporary name, forced to disk and then renamed, so a
+ * segment file either exists complete or not at all.
+ */
+final class SegmentWriter implements Closeable {
+    
+    static final int MAGIC = 0x54575347;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int FOOTER_BYTES = 20;
+    
+    // Segments are mapped with a single MappedByteBuffer
+    static final long MAX_SEGMENT_BYTES = Integer.MAX_VALUE;
+    
+    private final Path target;
+    private final Path temp;
+    private final FileOutputStream file;
+    private final DataOutputStream out;
+    private final List<DictionaryEntry> dictionary = new ArrayList<>();
+    
+    private long postingsWritten;
+    private long maxTweetId;
+    private String lastTerm;
+    private boolean finished;
+    
+    SegmentWriter(Path target) throws IOException {
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.file = new FileOutputStream(temp.toFile());
+        this.out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+    
+    /**
+     * Appends the postings for a term. Terms must arrive in ascending order and IDs in
+     * ascending order within a term; empty runs are skipped.
+     */
+    void addTerm(String term, long[] tweetIds, int count) throws IOException {
+        if (lastTerm != null && term.compareTo(lastTerm) <= 0) {
+            throw new IllegalArgumentException("Terms must be added in ascending order: " + term);
+        }
+        if (count == 0) {
+            return;
+        }
+        if (HEADER_BYTES + (postingsWritten + count) * Long.BYTES > MAX_SEGMENT_BYTES) {
+            throw new IOException("Segment would exceed " + MAX_SEGMENT_BYTES + " bytes");
+        }
+        
+        for (int i = 0; i < count; i++) {
+            out.writeLong(tweetIds[i]);
+        }
+        dictionary.add(new DictionaryEntry(term, postingsWritten, count));
+        postingsWritten += count;
+        maxTweetId = Math.max(maxTweetId, tweetIds[count - 1]);
+        lastTerm = term;
+    }
+    
+    void finish() throws IOException {
+        long dictionaryOffset = HEADER_BYTES + postingsWritten * Long.BYTES;
+        out.writeInt(dictionary.size());
+        for (DictionaryEntry entry : dictionary) {
+            out.writeUTF(entry.term);
+            out.writeLong(entry.start);
+            out.writeInt(entry.count);
+        }
+        out.writeLong(dictionaryOffset);
+        out.writeLong(maxTweetId);
+        out.writeInt(MAGIC);
+        out.flush();
+        file.getChannel().force(true);
+        out.close();
+        
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            out.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    private static class DictionaryEntry {
+        private final String term;
+        private final long start;
+        private final int count;
+        
+        DictionaryEntry(String term, long start, int count) {
+            this.term = term;
+            this.start = start;
+            this.count = count;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.twitter.search;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits tweet text and search queries into index terms: maximal runs of letters,
+ * digits and underscores, lower-cased. Leading '#' and '@' are dropped, so a hashtag
+ * or mention matches the bare word.
+ */
+public final class Tokenizer {
+    
+    static final int MAX_TERM_LENGTH = 64;
+    
+    private Tokenizer() {
+    }
+    
+    /**
+     * Returns the distinct terms of the text in order of first appearance.
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean termChar = i < text.length() && isTermChar(text.charAt(i));
+            if (termChar && start < 0) {
+                start = i;
+            } else if (!termChar && start >= 0) {
+                // Overlong runs are usually URLs or junk and would bloat the dictionary
+                if (i - start <= MAX_TERM_LENGTH) {
+                    terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+    
+    private static boolean isTermChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
\ No newline at end of file
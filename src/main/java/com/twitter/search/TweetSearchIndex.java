@@ -0,0 +1,135 @@
+package com.twitter.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Mutable in-memory inverted index from term to the IDs of tweets containing it.
+ *
+ * Tweet IDs grow with creation time, so ID order doubles as recency order and a
+ * query walks its postings from the highest ID down. Multi-term queries are ANDed by
+ * driving the intersection from the shortest postings list and probing the others
+ * with binary search.
+ *
+ * Used as the tail in front of the on-disk segments: once {@link #seal() sealed} it
+ * refuses further adds, so its contents can be written out as a segment.
+ */
+public class TweetSearchIndex {
+    
+    private static final LongPredicate NONE_EXCLUDED = tweetId -> false;
+    
+    private final ConcurrentMap<String, PostingsList> postings = new ConcurrentHashMap<>();
+    
+    private final ReadWriteLock sealLock = new ReentrantReadWriteLock();
+    private final AtomicInteger documentCount = new AtomicInteger();
+    private final AtomicLong maxTweetId = new AtomicLong();
+    private boolean sealed;
+    
+    /**
+     * Indexes a tweet. Returns false without indexing anything if the index has been
+     * sealed, in which case the caller should add to the current tail instead.
+     */
+    public boolean add(long tweetId, String content) {
+        sealLock.readLock().lock();
+        try {
+            if (sealed) {
+                return false;
+            }
+            for (String term : Tokenizer.tokenize(content)) {
+                postings.computeIfAbsent(term, t -> new PostingsList()).add(tweetId);
+            }
+            documentCount.incrementAndGet();
+            maxTweetId.accumulateAndGet(tweetId, Math::max);
+            return true;
+        } finally {
+            sealLock.readLock().unlock();
+        }
+    }
+    
+    public void remove(long tweetId, String content) {
+        for (String term : Tokenizer.tokenize(content)) {
+            PostingsList list = postings.get(term);
+            if (list != null) {
+                list.remove(tweetId);
+            }
+        }
+    }
+    
+    /**
+     * Blocks until in-flight adds finish, then rejects all further adds.
+     */
+    public void seal() {
+        sealLock.writeLock().lock();
+        try {
+            sealed = true;
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns up to {@code limit} IDs of tweets containing every term, newest first,
+     * restricted to IDs below {@code beforeId} and not rejected by {@code excluded}.
+     */
+    public long[] search(Collection<String> terms, long beforeId, int limit, LongPredicate excluded) {
+        if (terms.isEmpty()) {
+            return new long[0];
+        }
+        
+        List<Postings> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            PostingsList list = postings.get(term);
+            if (list == null || list.snapshot().size() == 0) {
+                return new long[0];
+            }
+            lists.add(list.snapshot());
+        }
+        return PostingsIntersection.intersect(lists, beforeId, limit, excluded);
+    }
+    
+    public long[] search(String query, long beforeId, int limit) {
+        return search(Tokenizer.tokenize(query), beforeId, limit, NONE_EXCLUDED);
+    }
+    
+    /**
+     * Copies the postings out in term order, skipping terms whose lists are empty.
+     */
+    public SortedMap<String, long[]> toSortedPostings() {
+        SortedMap<String, long[]> sorted = new TreeMap<>();
+        for (Map.Entry<String, PostingsList> entry : postings.entrySet()) {
+            PostingsList.Snapshot snapshot = entry.getValue().snapshot();
+            if (snapshot.size() > 0) {
+                sorted.put(entry.getKey(), Arrays.copyOf(snapshot.ids, snapshot.size()));
+            }
+        }
+        return sorted;
+    }
+    
+    public boolean isEmpty() {
+        return documentCount.get() == 0;
+    }
+    
+    public int documentCount() {
+        return documentCount.get();
+    }
+    
+    public long maxTweetId() {
+        return maxTweetId.get();
+    }
+    
+    public int termCount() {
+        return postings.size();
+    }
+}
\ No newline at end of file
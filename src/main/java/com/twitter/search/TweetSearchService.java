@@ -0,0 +1,328 @@
+package com.twitter.search;
+
+import com.twitter.event.TweetCreatedEvent;
+import com.twitter.event.TweetDeletedEvent;
+import com.twitter.repository.TweetRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tweet search over immutable memory-mapped segments plus a small mutable tail.
+ *
+ * New and deleted tweets are applied to the in-heap tail after their transactions
+ * commit; deletes are also recorded as tombstones that mask the segments. A scheduled
+ * pass seals the tail and writes it out as a new segment, and merges segments once
+ * there are more than {@code max-segments} of them, dropping tombstoned IDs.
+ *
+ * On startup the live segments are mapped and only tweets newer than the manifest
+ * checkpoint are read from the database into the tail, so a pod can serve searches
+ * seconds after start. With no index on disk the segments are built from the tweets
+ * table in the background; until then {@link #isReady()} is false and callers fall
+ * back to the database.
+ */
+@Service
+public class TweetSearchService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TweetSearchService.class);
+    
+    @Autowired
+    private TweetRepository tweetRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.search.index-dir:data/search-index}")
+    private String indexDir;
+    
+    @Value("${app.search.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+    
+    @Value("${app.search.segment-size:100000}")
+    private int segmentSize;
+    
+    @Value("${app.search.max-segments:8}")
+    private int maxSegments;
+    
+    private final Set<Long> tombstones = ConcurrentHashMap.newKeySet();
+    
+    private final Object maintenanceLock = new Object();
+    
+    private volatile IndexState state = new IndexState(Collections.emptyList(), new TweetSearchIndex(), null);
+    private volatile boolean ready;
+    private SegmentStore store;
+    private Timer queryTimer;
+    
+    @PostConstruct
+    public void init() {
+        store = new SegmentStore(Paths.get(indexDir));
+        queryTimer = Timer.builder("search.query")
+                .description("Time taken to answer a tweet search from the index")
+                .register(meterRegistry);
+        Gauge.builder("search.index.segments", this, service -> service.state.segments.size())
+                .description("Live on-disk segments in the tweet search index")
+                .register(meterRegistry);
+        Gauge.builder("search.index.tail", this, service -> service.state.tail.documentCount())
+                .description("Tweets indexed in memory and not yet written to a segment")
+                .register(meterRegistry);
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Returns up to {@code limit} IDs of tweets matching every term of the query,
+     * newest first, restricted to IDs below {@code beforeId}.
+     */
+    public List<Long> search(String query, long beforeId, int limit) {
+        Set<String> terms = Tokenizer.tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        return queryTimer.record(() -> {
+            IndexState current = state;
+            List<long[]> runs = new ArrayList<>(current.segments.size() + 2);
+            runs.add(current.tail.search(terms, beforeId, limit, tombstones::contains));
+            if (current.sealed != null) {
+                runs.add(current.sealed.search(terms, beforeId, limit, tombstones::contains));
+            }
+            for (MappedSegment segment : current.segments) {
+                runs.add(segment.search(terms, beforeId, limit, tombstones::contains));
+            }
+            return mergeNewestFirst(runs, limit);
+        });
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void openInBackground() {
+        Thread opener = new Thread(this::open, "search-index-open");
+        opener.setDaemon(true);
+        opener.start();
+    }
+    
+    @TransactionalEventListener
+    public void onTweetCreated(TweetCreatedEvent event) {
+        addToTail(event.getTweetId(), event.getContent());
+    }
+    
+    @TransactionalEventListener
+    public void onTweetDeleted(TweetDeletedEvent event) {
+        tombstones.add(event.getTweetId());
+        IndexState current = state;
+        current.tail.remove(event.getTweetId(), event.getContent());
+        if (current.sealed != null) {
+            current.sealed.remove(event.getTweetId(), event.getContent());
+        }
+    }
+    
+    /**
+     * Writes the tail out as a segment and merges segments when there are too many.
+     */
+    @Scheduled(fixedDelayString = "${app.search.flush-interval-ms:60000}")
+    public void maintain() {
+        // Flushing before the initial build finishes would move the checkpoint past unindexed tweets
+        if (!ready) {
+            return;
+        }
+        synchronized (maintenanceLock) {
+            try {
+                flushTail();
+                if (state.segments.size() > maxSegments) {
+                    mergeSegments();
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.error("Search index maintenance failed, will retry", e);
+            }
+        }
+    }
+    
+    void open() {
+        long started = System.currentTimeMillis();
+        try {
+            List<MappedSegment> segments = null;
+            try {
+                segments = store.open();
+            } catch (IOException e) {
+                logger.warn("Discarding unreadable search index in {}", indexDir, e);
+                store.reset();
+            }
+            
+            if (segments != null) {
+                tombstones.addAll(store.getTombstones());
+                state = new IndexState(segments, state.tail, null);
+                int caughtUp = catchUp(store.getCheckpoint());
+                logger.info("Opened {} search segments and indexed {} newer tweets in {} ms", segments.size(),
+                        caughtUp, System.currentTimeMillis() - started);
+            } else {
+                int indexed = buildFromDatabase();
+                logger.info("Built search index from {} tweets in {} ms", indexed,
+                        System.currentTimeMillis() - started);
+            }
+            ready = true;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to open search index, searches will use the database", e);
+        }
+    }
+    
+    private int catchUp(long checkpoint) {
+        int indexed = 0;
+        Long afterId = checkpoint;
+        while (true) {
+            List<Object[]> rows = tweetRepository.findContentAfter(afterId, PageRequest.of(0, rebuildBatchSize));
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                addToTail(afterId, (String) row[1]);
+            }
+            indexed += rows.size();
+            if (rows.size() < rebuildBatchSize) {
+                return indexed;
+            }
+        }
+    }
+    
+    private int buildFromDatabase() throws IOException {
+        List<MappedSegment> segments = new ArrayList<>();
+        TweetSearchIndex builder = new TweetSearchIndex();
+        int indexed = 0;
+        Long afterId = 0L;
+        
+        while (true) {
+            List<Object[]> rows = tweetRepository.findContentAfter(afterId, PageRequest.of(0, rebuildBatchSize));
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                if (!tombstones.contains(afterId)) {
+                    builder.add(afterId, (String) row[1]);
+                }
+            }
+            indexed += rows.size();
+            
+            boolean done = rows.size() < rebuildBatchSize;
+            if (builder.documentCount() >= segmentSize || (done && !builder.isEmpty())) {
+                segments.add(store.write(builder.toSortedPostings()));
+                // Commit as we go so an interrupted build resumes from the checkpoint
+                store.commit(segments, afterId, tombstones);
+                builder = new TweetSearchIndex();
+            }
+            if (done) {
+                break;
+            }
+        }
+        
+        if (segments.isEmpty()) {
+            store.commit(segments, afterId, tombstones);
+        }
+        state = new IndexState(segments, state.tail, null);
+        return indexed;
+    }
+    
+    private void addToTail(long tweetId, String content) {
+        // A sealed tail rejects the add; by then the state already points at its successor
+        while (!state.tail.add(tweetId, content)) {
+            Thread.yield();
+        }
+    }
+    
+    private void flushTail() throws IOException {
+        IndexState current = state;
+        TweetSearchIndex sealed = current.sealed;
+        if (sealed == null) {
+            if (current.tail.isEmpty()) {
+                return;
+            }
+            sealed = current.tail;
+            state = new IndexState(current.segments, new TweetSearchIndex(), sealed);
+            sealed.seal();
+        }
+        
+        // On failure the sealed tail stays searchable and is retried on the next pass
+        MappedSegment segment = store.write(sealed.toSortedPostings());
+        List<MappedSegment> segments = new ArrayList<>(state.segments);
+        segments.add(segment);
+        store.commit(segments, Math.max(store.getCheckpoint(), sealed.maxTweetId()), tombstones);
+        state = new IndexState(segments, state.tail, null);
+    }
+    
+    private void mergeSegments() throws IOException {
+        List<MappedSegment> inputs = state.segments;
+        long totalBytes = 0;
+        for (MappedSegment segment : inputs) {
+            totalBytes += segment.getSizeInBytes();
+        }
+        if (totalBytes >= SegmentWriter.MAX_SEGMENT_BYTES) {
+            logger.warn("Search segments total {} bytes, too large to merge into one", totalBytes);
+            return;
+        }
+        
+        Set<Long> applied = new HashSet<>(tombstones);
+        MappedSegment merged = store.merge(inputs, applied::contains);
+        
+        Set<Long> remaining = new HashSet<>(tombstones);
+        remaining.removeAll(applied);
+        store.commit(Collections.singletonList(merged), store.getCheckpoint(), remaining);
+        
+        state = new IndexState(Collections.singletonList(merged), state.tail, state.sealed);
+        tombstones.removeAll(applied);
+        store.delete(inputs);
+    }
+    
+    private static List<Long> mergeNewestFirst(List<long[]> runs, int limit) {
+        int[] positions = new int[runs.size()];
+        List<Long> merged = new ArrayList<>();
+        long last = Long.MIN_VALUE;
+        
+        while (merged.size() < limit) {
+            int next = -1;
+            long largest = Long.MIN_VALUE;
+            for (int r = 0; r < runs.size(); r++) {
+                long[] run = runs.get(r);
+                if (positions[r] < run.length && run[positions[r]] >= largest) {
+                    largest = run[positions[r]];
+                    next = r;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            positions[next]++;
+            // Tweets added live during the initial build can be in the tail and a segment at once
+            if (largest != last) {
+                merged.add(largest);
+            }
+            last = largest;
+        }
+        return merged;
+    }
+    
+    private static final class IndexState {
+        private final List<MappedSegment> segments;
+        private final TweetSearchIndex tail;
+        private final TweetSearchIndex sealed;
+        
+        IndexState(List<MappedSegment> segments, TweetSearchIndex tail, TweetSearchIndex sealed) {
+            this.segments = segments;
+            this.tail = tail;
+            this.sealed = sealed;
+        }
+    }
+}
\ No newline at end of file
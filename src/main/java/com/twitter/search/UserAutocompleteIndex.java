@@ -0,0 +1,319 @@
+package com.twitter.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prefix trie over usernames and display names that answers "top users starting
+ * with this prefix" without scanning.
+ *
+ * Every user is indexed under their lowercased username, their display name and each
+ * later word of the display name, so "@ali" and "smith" both find "Alice Smith".
+ * Each node keeps a precomputed array of the best {@code topK} entries in its subtree
+ * ranked by follower count, so a lookup is one walk down the prefix. The trie is cut
+ * off at {@code maxDepth} characters; keys that are longer end at the last node and
+ * longer prefixes are answered by filtering that node's entries.
+ *
+ * Writers are serialised and recompute the ranking along the changed paths only,
+ * merging each node's best terminals with its children's arrays, so an update costs
+ * O(depth x topK) rather than a sort of everything under the node. Bulk builds skip
+ * ranking entirely: {@link #load} appends entries and {@link #rankAll()} sorts each
+ * node's terminals once. Readers never lock and see either the old or the new array
+ * of a node.
+ */
+public class UserAutocompleteIndex {
+    
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong((Entry entry) -> entry.followers).reversed()
+            .thenComparingLong(entry -> entry.userId);
+    
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    
+    private final int topK;
+    private final int maxDepth;
+    private final Node root = new Node();
+    private final Map<Long, List<Entry>> entriesByUser = new HashMap<>();
+    
+    public UserAutocompleteIndex(int topK, int maxDepth) {
+        if (topK <= 0 || maxDepth <= 0) {
+            throw new IllegalArgumentException("topK and maxDepth must be positive");
+        }
+        this.topK = topK;
+        this.maxDepth = maxDepth;
+    }
+    
+    /**
+     * Adds a user or replaces everything previously indexed for them.
+     */
+    public synchronized void put(long userId, String username, String displayName, long followers) {
+        remove(userId);
+        
+        List<Entry> entries = new ArrayList<>();
+        for (String key : keysFor(username, displayName)) {
+            Entry entry = new Entry(userId, key, followers);
+            insert(entry);
+            entries.add(entry);
+        }
+        if (!entries.isEmpty()) {
+            entriesByUser.put(userId, entries);
+        }
+    }
+    
+    /**
+     * Adds a user who is not yet indexed without ranking anything, for bulk builds.
+     * Call {@link #rankAll()} once every user is loaded, before the index is read or
+     * updated with {@link #put}.
+     */
+    public synchronized void load(long userId, String username, String displayName, long followers) {
+        if (entriesByUser.containsKey(userId)) {
+            throw new IllegalArgumentException("User " + userId + " is already indexed");
+        }
+        
+        List<Entry> entries = new ArrayList<>();
+        for (String key : keysFor(username, displayName)) {
+            Entry entry = new Entry(userId, key, followers);
+            Node[] path = pathFor(key, true);
+            Node last = path[path.length - 1];
+            if (last.loaded == null) {
+                last.loaded = new ArrayList<>();
+            }
+            last.loaded.add(entry);
+            entries.add(entry);
+        }
+        if (!entries.isEmpty()) {
+            entriesByUser.put(userId, entries);
+        }
+    }
+    
+    /**
+     * Ranks everything added by {@link #load} in one bottom-up pass over the trie.
+     */
+    public synchronized void rankAll() {
+        rankSubtree(root);
+    }
+    
+    public synchronized void remove(long userId) {
+        List<Entry> entries = entriesByUser.remove(userId);
+        if (entries == null) {
+            return;
+        }
+        for (Entry entry : entries) {
+            delete(entry);
+        }
+    }
+    
+    public synchronized int size() {
+        return entriesByUser.size();
+    }
+    
+    /**
+     * Returns the IDs of up to {@code limit} users with a key starting with the prefix,
+     * most followed first. At most {@code topK} results are ever returned.
+     */
+    public List<Long> complete(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        List<Long> result = new ArrayList<>();
+        if (normalized.isEmpty() || limit <= 0) {
+            return result;
+        }
+        
+        Node node = root;
+        int depth = Math.min(normalized.length(), maxDepth);
+        for (int i = 0; i < depth && node != null; i++) {
+            node = node.children.get(normalized.charAt(i));
+        }
+        if (node == null) {
+            return result;
+        }
+        
+        int max = Math.min(limit, topK);
+        if (normalized.length() <= maxDepth) {
+            Entry[] top = node.top;
+            for (int i = 0; i < top.length && result.size() < max; i++) {
+                result.add(top[i].userId);
+            }
+            return result;
+        }
+        
+        // Past the depth cap all candidates sit at this node; filter on the full prefix
+        List<Entry> matches = new ArrayList<>();
+        for (Entry entry : node.terminals) {
+            if (entry.key.startsWith(normalized)) {
+                matches.add(entry);
+            }
+        }
+        matches.sort(RANKING);
+        Set<Long> seen = new HashSet<>();
+        for (Entry entry : matches) {
+            if (result.size() >= max) {
+                break;
+            }
+            if (seen.add(entry.userId)) {
+                result.add(entry.userId);
+            }
+        }
+        return result;
+    }
+    
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = text.trim().toLowerCase(Locale.ROOT);
+        while (normalized.startsWith("@")) {
+            normalized = normalized.substring(1);
+        }
+        return normalized;
+    }
+    
+    static Set<String> keysFor(String username, String displayName) {
+        Set<String> keys = new LinkedHashSet<>();
+        addKey(keys, username);
+        String name = normalize(displayName);
+        addKey(keys, name);
+        String[] words = name.split("\\s+");
+        for (int i = 1; i < words.length; i++) {
+            addKey(keys, words[i]);
+        }
+        return keys;
+    }
+    
+    private static void addKey(Set<String> keys, String key) {
+        String normalized = normalize(key);
+        if (!normalized.isEmpty()) {
+            keys.add(normalized);
+        }
+    }
+    
+    private void insert(Entry entry) {
+        Node[] path = pathFor(entry.key, true);
+        Node last = path[path.length - 1];
+        Entry[] terminals = Arrays.copyOf(last.terminals, last.terminals.length + 1);
+        terminals[terminals.length - 1] = entry;
+        last.terminals = terminals;
+        
+        List<Entry> candidates = new ArrayList<>(Arrays.asList(last.bestTerminals));
+        candidates.add(entry);
+        last.bestTerminals = best(candidates);
+        rerank(path);
+    }
+    
+    private void delete(Entry entry) {
+        Node[] path = pathFor(entry.key, false);
+        if (path == null) {
+            return;
+        }
+        Node last = path[path.length - 1];
+        List<Entry> terminals = new ArrayList<>(Arrays.asList(last.terminals));
+        terminals.remove(entry);
+        last.terminals = terminals.toArray(NO_ENTRIES);
+        if (Arrays.asList(last.bestTerminals).contains(entry)) {
+            last.bestTerminals = best(terminals);
+        }
+        
+        // Drop nodes that no longer lead anywhere, deepest first
+        for (int i = path.length - 1; i > 0; i--) {
+            Node node = path[i];
+            if (node.terminals.length > 0 || !node.children.isEmpty()) {
+                break;
+            }
+            path[i - 1].children.remove(entry.key.charAt(i - 1));
+        }
+        rerank(path);
+    }
+    
+    private Node[] pathFor(String key, boolean create) {
+        int depth = Math.min(key.length(), maxDepth);
+        Node[] path = new Node[depth + 1];
+        path[0] = root;
+        for (int i = 0; i < depth; i++) {
+            Node child = path[i].children.get(key.charAt(i));
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = new Node();
+                path[i].children.put(key.charAt(i), child);
+            }
+            path[i + 1] = child;
+        }
+        return path;
+    }
+    
+    private void rerank(Node[] path) {
+        for (int i = path.length - 1; i >= 0; i--) {
+            rankNode(path[i]);
+        }
+    }
+    
+    private void rankSubtree(Node node) {
+        if (node.loaded != null) {
+            List<Entry> terminals = new ArrayList<>(Arrays.asList(node.terminals));
+            terminals.addAll(node.loaded);
+            node.terminals = terminals.toArray(NO_ENTRIES);
+            node.bestTerminals = best(terminals);
+            node.loaded = null;
+        }
+        for (Node child : node.children.values()) {
+            rankSubtree(child);
+        }
+        rankNode(node);
+    }
+    
+    private void rankNode(Node node) {
+        List<Entry> candidates = new ArrayList<>(Arrays.asList(node.bestTerminals));
+        for (Node child : node.children.values()) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        node.top = best(candidates);
+    }
+    
+    /**
+     * Returns the best {@code topK} candidates, one per user, sorting the list given.
+     */
+    private Entry[] best(List<Entry> candidates) {
+        candidates.sort(RANKING);
+        List<Entry> top = new ArrayList<>(Math.min(topK, candidates.size()));
+        Set<Long> seen = new HashSet<>();
+        for (Entry candidate : candidates) {
+            if (top.size() >= topK) {
+                break;
+            }
+            if (seen.add(candidate.userId)) {
+                top.add(candidate);
+            }
+        }
+        return top.toArray(NO_ENTRIES);
+    }
+    
+    private static class Node {
+        private final Map<Character, Node> children = new ConcurrentHashMap<>();
+        private volatile Entry[] terminals = NO_ENTRIES;
+        private volatile Entry[] top = NO_ENTRIES;
+        // Best topK of terminals alone; only read and written by writers
+        private Entry[] bestTerminals = NO_ENTRIES;
+        // Entries added by load() and not yet ranked
+        private List<Entry> loaded;
+    }
+    
+    private static class Entry {
+        private final long userId;
+        private final String key;
+        private final long followers;
+        
+        Entry(long userId, String key, long followers) {
+            this.userId = userId;
+            this.key = key;
+            this.followers = followers;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.twitter.search;
+
+import com.twitter.event.UserProfileChangedEvent;
+import com.twitter.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a {@link UserAutocompleteIndex} over all users current.
+ *
+ * Profile changes are applied after their transactions commit. Follower counts move
+ * on every follow, so rather than re-ranking per follow the whole index is rebuilt
+ * from the users table every {@code rebuild-interval-ms} and swapped in; changes that
+ * arrive while a rebuild is running are replayed onto the new index before the swap.
+ * Until the first build finishes {@link #isReady()} is false and callers fall back to
+ * the database.
+ */
+@Service
+public class UserAutocompleteService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UserAutocompleteService.class);
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.autocomplete.top-k:10}")
+    private int topK;
+    
+    @Value("${app.autocomplete.max-prefix-length:12}")
+    private int maxPrefixLength;
+    
+    @Value("${app.autocomplete.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+    
+    private final Object updateLock = new Object();
+    
+    private volatile UserAutocompleteIndex index;
+    private volatile boolean ready;
+    
+    // Non-null while a rebuild is running; guarded by updateLock
+    private List<UserProfileChangedEvent> pendingReplay;
+    
+    @PostConstruct
+    public void init() {
+        index = new UserAutocompleteIndex(topK, maxPrefixLength);
+        Gauge.builder("autocomplete.index.users", this, service -> service.index.size())
+                .description("Users in the autocomplete index")
+                .register(meterRegistry);
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Returns the IDs of up to {@code limit} users whose username, display name or a
+     * word of it starts with the prefix, most followed first.
+     */
+    public List<Long> complete(String prefix, int limit) {
+        return index.complete(prefix, limit);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        Thread builder = new Thread(this::rebuild, "autocomplete-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+    
+    @TransactionalEventListener
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        synchronized (updateLock) {
+            apply(index, event);
+            if (pendingReplay != null) {
+                pendingReplay.add(event);
+            }
+        }
+    }
+    
+    /**
+     * Starts a periodic rebuild on its own thread, like the initial build, so a long
+     * build does not hold one of the shared scheduler threads.
+     */
+    @Scheduled(fixedDelayString = "${app.autocomplete.rebuild-interval-ms:600000}",
+               initialDelayString = "${app.autocomplete.rebuild-interval-ms:600000}")
+    public void refresh() {
+        if (ready) {
+            buildInBackground();
+        }
+    }
+    
+    /**
+     * Builds a fresh index from the users table and swaps it in.
+     */
+    public void rebuild() {
+        synchronized (updateLock) {
+            if (pendingReplay != null) {
+                return;
+            }
+            pendingReplay = new ArrayList<>();
+        }
+        
+        try {
+            long start = System.currentTimeMillis();
+            UserAutocompleteIndex fresh = new UserAutocompleteIndex(topK, maxPrefixLength);
+            long afterId = 0L;
+            while (true) {
+                List<Object[]> rows = userRepository.findAutocompleteEntriesAfter(afterId,
+                        PageRequest.of(0, rebuildBatchSize));
+                for (Object[] row : rows) {
+                    Long followers = (Long) row[3];
+                    fresh.load((Long) row[0], (String) row[1], (String) row[2], followers != null ? followers : 0L);
+                }
+                if (rows.size() < rebuildBatchSize) {
+                    break;
+                }
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+            fresh.rankAll();
+            
+            synchronized (updateLock) {
+                for (UserProfileChangedEvent event : pendingReplay) {
+                    apply(fresh, event);
+                }
+                index = fresh;
+                ready = true;
+            }
+            logger.info("Autocomplete index built with {} users in {} ms", fresh.size(),
+                    System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            logger.error("Failed to build autocomplete index", e);
+        } finally {
+            synchronized (updateLock) {
+                pendingReplay = null;
+            }
+        }
+    }
+    
+    private static void apply(UserAutocompleteIndex target, UserProfileChangedEvent event) {
+        target.put(event.getUserId(), event.getUsername(), event.getDisplayName(), event.getFollowersCount());
+    }
+}
\ No newline at end of file
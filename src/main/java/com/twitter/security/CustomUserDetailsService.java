@@ -3,18 +3,26 @@ package com.twitter.security;
 import com.twitter.model.User;
 import com.twitter.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
+import java.util.Set;
+
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
     
     @Autowired
     UserRepository userRepository;
     
+    // Usernames granted ROLE_ADMIN, which the operator actuator endpoints require
+    @Value("${app.security.admin-usernames:}")
+    private Set<String> adminUsernames = Collections.emptySet();
+    
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
@@ -23,7 +31,7 @@ public class CustomUserDetailsService implements UserDetailsService {
                     new UsernameNotFoundException("User not found with username or email : " + usernameOrEmail)
                 );
         
-        return UserPrincipal.create(user);
+        return UserPrincipal.create(user, adminUsernames.contains(user.getUsername()));
     }
     
     @Transactional
@@ -33,6 +41,6 @@ public class CustomUserDetailsService implements UserDetailsService {
                     new UsernameNotFoundException("User not found with id : " + id)
                 );
         
-        return UserPrincipal.create(user);
+        return UserPrincipal.create(user, adminUsernames.contains(user.getUsername()));
     }
 }
\ No newline at end of file
@@ -1,62 +1,184 @@
 package com.twitter.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Issues and verifies JWTs.
+ *
+ * Tokens carry the user ID as subject plus the username, roles and token version as
+ * claims, so a request can be authenticated from the token alone. Verified tokens
+ * are kept in a small bounded cache so hot tokens skip the HS512 signature check;
+ * revocation is still checked on every call through {@link TokenRevocationRegistry}.
+ */
 @Component
 public class JwtTokenProvider {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
     
+    private static final String CLAIM_USERNAME = "username";
+    private static final String CLAIM_ROLES = "roles";
+    private static final String CLAIM_VERSION = "ver";
+    
     @Value("${app.jwt.secret}")
     private String jwtSecret;
     
     @Value("${app.jwt.expiration}")
     private int jwtExpirationInMs;
     
+    @Value("${app.jwt.cache-size:10000}")
+    private long cacheSize;
+    
+    @Value("${app.jwt.cache-ttl-ms:300000}")
+    private long cacheTtlMs;
+    
+    @Autowired
+    private TokenRevocationRegistry revocationRegistry;
+    
+    private Cache<String, VerifiedToken> verifiedTokens;
+    
+    @PostConstruct
+    public void init() {
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtlMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+    
     public String generateToken(Authentication authentication) {
-        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+        return generateToken((UserPrincipal) authentication.getPrincipal());
+    }
+    
+    public String generateToken(UserPrincipal userPrincipal) {
+        List<String> roles = new ArrayList<>();
+        for (GrantedAuthority authority : userPrincipal.getAuthorities()) {
+            roles.add(authority.getAuthority());
+        }
         
-        Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationInMs);
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
         
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(Long.toString(userPrincipal.getId()))
-                .setIssuedAt(new Date())
+                .claim(CLAIM_USERNAME, userPrincipal.getUsername())
+                .claim(CLAIM_ROLES, String.join(",", roles))
+                .claim(CLAIM_VERSION, revocationRegistry.currentVersion(userPrincipal.getId()))
+                .setIssuedAt(now)
                 .setExpiration(expiryDate)
                 .signWith(SignatureAlgorithm.HS512, jwtSecret)
                 .compact();
     }
     
-    public String generateTokenFromUserId(Long userId) {
-        Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationInMs);
-        
-        return Jwts.builder()
-                .setSubject(Long.toString(userId))
-                .setIssuedAt(new Date())
-                .setExpiration(expiryDate)
-                .signWith(SignatureAlgorithm.HS512, jwtSecret)
-                .compact();
+    /**
+     * Returns the principal encoded in the token, or {@code null} if the token is
+     * invalid, expired or revoked. The signature is verified at most once per cache
+     * lifetime of a token.
+     */
+    public UserPrincipal getPrincipalFromToken(String token) {
+        VerifiedToken verified = verify(token);
+        return verified != null ? verified.principal : null;
     }
     
     public Long getUserIdFromJWT(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody();
-        
-        return Long.parseLong(claims.getSubject());
+        VerifiedToken verified = verify(token);
+        if (verified == null) {
+            throw new JwtException("Invalid JWT token");
+        }
+        return verified.principal.getId();
     }
     
     public boolean validateToken(String authToken) {
+        return verify(authToken) != null;
+    }
+    
+    /**
+     * Revokes a single token until it expires, or every token issued to its user so
+     * far when {@code allSessions} is set.
+     */
+    public boolean revokeToken(String token, boolean allSessions) {
+        VerifiedToken verified = verify(token);
+        if (verified == null) {
+            return false;
+        }
+        if (allSessions) {
+            revocationRegistry.revokeAll(verified.principal.getId());
+        } else {
+            revocationRegistry.revoke(verified.tokenId, verified.expiresAtMillis);
+        }
+        verifiedTokens.invalidate(token);
+        return true;
+    }
+    
+    private VerifiedToken verify(String token) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+        
+        VerifiedToken verified = verifiedTokens.getIfPresent(token);
+        if (verified == null) {
+            verified = parse(token);
+            if (verified == null) {
+                return null;
+            }
+            verifiedTokens.put(token, verified);
+        }
+        
+        // A cached entry must not outlive the token it was built from
+        if (verified.expiresAtMillis <= System.currentTimeMillis()) {
+            verifiedTokens.invalidate(token);
+            return null;
+        }
+        if (revocationRegistry.isRevoked(verified.principal.getId(), verified.version, verified.tokenId)) {
+            return null;
+        }
+        return verified;
+    }
+    
+    private VerifiedToken parse(String token) {
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-            return true;
+            Claims claims = Jwts.parser()
+                    .setSigningKey(jwtSecret)
+                    .parseClaimsJws(token)
+                    .getBody();
+            
+            String username = claims.get(CLAIM_USERNAME, String.class);
+            if (username == null || claims.getExpiration() == null) {
+                logger.error("JWT token is missing required claims");
+                return null;
+            }
+            
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            String roles = claims.get(CLAIM_ROLES, String.class);
+            if (StringUtils.hasText(roles)) {
+                for (String role : roles.split(",")) {
+                    authorities.add(new SimpleGrantedAuthority(role));
+                }
+            }
+            
+            Integer version = claims.get(CLAIM_VERSION, Integer.class);
+            UserPrincipal principal = new UserPrincipal(
+                Long.parseLong(claims.getSubject()), username, null, null, authorities);
+            
+            return new VerifiedToken(principal, claims.getId(), version != null ? version : 0,
+                    claims.getExpiration().getTime());
         } catch (SignatureException ex) {
             logger.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
@@ -67,7 +189,23 @@ public class JwtTokenProvider {
             logger.error("Unsupported JWT token");
         } catch (IllegalArgumentException ex) {
             logger.error("JWT claims string is empty.");
+        } catch (RequiredTypeException ex) {
+            logger.error("JWT token has malformed claims");
+        }
+        return null;
+    }
+    
+    private static class VerifiedToken {
+        private final UserPrincipal principal;
+        private final String tokenId;
+        private final int version;
+        private final long expiresAtMillis;
+        
+        VerifiedToken(UserPrincipal principal, String tokenId, int version, long expiresAtMillis) {
+            this.principal = principal;
+            this.tokenId = tokenId;
+            this.version = version;
+            this.expiresAtMillis = expiresAtMillis;
         }
-        return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.twitter.security;
+
+/**
+ * Thrown when the password hashing executor is saturated and cannot accept more work.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+    
+    public PasswordHashingRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
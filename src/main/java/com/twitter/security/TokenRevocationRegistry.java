@@ -0,0 +1,98 @@
+package com.twitter.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.twitter.model.RevokedToken;
+import com.twitter.repository.RevokedTokenRepository;
+import com.twitter.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revocation state for issued JWTs, checked on every authenticated request.
+ *
+ * Each user has a token version, stored in {@code users.token_version}, that is
+ * embedded in every token issued to them; revoking all of a user's sessions bumps
+ * the version so older tokens stop being accepted. Single tokens are revoked by ID
+ * in {@code revoked_tokens} until they would have expired anyway. Both live in the
+ * database, so they survive restarts and apply on every instance.
+ *
+ * Lookups go through small bounded caches. A revocation is visible immediately on
+ * the instance that made it and within {@code revocation-cache-ttl-ms} elsewhere.
+ */
+@Component
+public class TokenRevocationRegistry {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.jwt.revocation-cache-size:100000}")
+    private long cacheSize;
+    
+    @Value("${app.jwt.revocation-cache-ttl-ms:10000}")
+    private long cacheTtlMs;
+    
+    private TransactionTemplate transactionTemplate;
+    private LoadingCache<Long, Integer> tokenVersions;
+    private LoadingCache<String, Boolean> deniedTokens;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        tokenVersions = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtlMs, TimeUnit.MILLISECONDS)
+                .build(userId -> userRepository.findTokenVersion(userId).orElse(0));
+        deniedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtlMs, TimeUnit.MILLISECONDS)
+                .build(tokenId -> revokedTokenRepository.existsById(tokenId));
+    }
+    
+    public int currentVersion(Long userId) {
+        return tokenVersions.get(userId);
+    }
+    
+    public void revokeAll(Long userId) {
+        transactionTemplate.execute(status -> userRepository.incrementTokenVersion(userId));
+        // Replaces any value a concurrent load read before the update committed
+        tokenVersions.put(userId, userRepository.findTokenVersion(userId).orElse(0));
+    }
+    
+    public void revoke(String tokenId, long expiresAtMillis) {
+        if (expiresAtMillis > System.currentTimeMillis()) {
+            LocalDateTime expiresAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMillis), ZoneOffset.UTC);
+            revokedTokenRepository.save(new RevokedToken(tokenId, expiresAt));
+            deniedTokens.put(tokenId, true);
+        }
+    }
+    
+    public boolean isRevoked(Long userId, int version, String tokenId) {
+        if (version < currentVersion(userId)) {
+            return true;
+        }
+        return tokenId != null && deniedTokens.get(tokenId);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.jwt.denylist-purge-interval-ms:60000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        transactionTemplate.execute(status -> revokedTokenRepository.deleteExpired(now));
+    }
+}
\ No newline at end of file
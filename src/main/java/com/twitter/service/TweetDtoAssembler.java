@@ -0,0 +1,258 @@
+package com.twitter.service;
+
+import com.twitter.cache.EntityCache;
+import com.twitter.cache.TweetSnapshot;
+import com.twitter.counter.TweetCounterBuffer;
+import com.twitter.dto.FeedCursor;
+import com.twitter.dto.FeedSlice;
+import com.twitter.dto.TweetDto;
+import com.twitter.dto.UserDto;
+import com.twitter.model.Tweet;
+import com.twitter.model.User;
+import com.twitter.repository.TweetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds {@link TweetDto}s for a whole page at once.
+ *
+ * Each tweet on the page is reduced to a {@link TweetSnapshot}; nested original and
+ * parent tweets and all authors are then resolved through {@link EntityCache}, which
+ * loads any misses with one query per nesting level. Viewer state is resolved with
+ * one query each. Engagement counts come from the denormalized columns on
+ * {@link Tweet} plus any deltas still buffered in {@link TweetCounterBuffer}.
+ */
+@Component
+public class TweetDtoAssembler {
+    
+    @Autowired
+    private TweetRepository tweetRepository;
+    
+    @Autowired
+    private TweetCounterBuffer tweetCounterBuffer;
+    
+    @Autowired
+    private EntityCache entityCache;
+    
+    public TweetDto toDto(Tweet tweet, Long currentUserId) {
+        return toDtos(Collections.singletonList(tweet), currentUserId).get(0);
+    }
+    
+    /**
+     * Builds the DTO for a tweet saved in the current transaction without reading it
+     * back. A new tweet has no engagement and its author has neither liked nor
+     * retweeted it, and the author is the loaded entity, so only the tweet it
+     * replies to or retweets is assembled, as seen by the author.
+     */
+    public TweetDto toCreatedDto(Tweet tweet) {
+        User author = tweet.getAuthor();
+        
+        TweetDto tweetDto = baseDto(entityCache.cacheTweet(tweet));
+        tweetDto.setLikesCount(0L);
+        tweetDto.setRetweetsCount(0L);
+        tweetDto.setRepliesCount(0L);
+        tweetDto.setIsLiked(false);
+        tweetDto.setIsRetweeted(false);
+        tweetDto.setAuthor(new UserDto(author, author.getFollowersCount(), author.getFollowingCount(),
+                author.getTweetsCount()));
+        
+        // The counter delta for the new tweet is only buffered once the transaction
+        // commits, so it is added here
+        if (tweet.getOriginalTweet() != null) {
+            TweetDto original = toDto(tweet.getOriginalTweet(), author.getId());
+            original.setRetweetsCount(original.getRetweetsCount() + 1);
+            tweetDto.setOriginalTweet(original);
+        }
+        if (tweet.getParentTweet() != null) {
+            TweetDto parent = toDto(tweet.getParentTweet(), author.getId());
+            parent.setRepliesCount(parent.getRepliesCount() + 1);
+            tweetDto.setParentTweet(parent);
+        }
+        return tweetDto;
+    }
+    
+    public TweetDto toDto(Long tweetId, Long currentUserId) {
+        TweetSnapshot snapshot = entityCache.getTweet(tweetId);
+        if (snapshot == null) {
+            throw new RuntimeException("Tweet not found");
+        }
+        return assemble(Collections.singletonList(snapshot), currentUserId).get(0);
+    }
+    
+    public Page<TweetDto> toDtoPage(Page<Tweet> tweets, Long currentUserId) {
+        List<TweetDto> content = toDtos(tweets.getContent(), currentUserId);
+        return new PageImpl<>(content, tweets.getPageable(), tweets.getTotalElements());
+    }
+    
+    public FeedSlice<TweetDto> toFeedSlice(Slice<Tweet> tweets, Long currentUserId) {
+        List<Tweet> content = tweets.getContent();
+        List<TweetDto> dtos = toDtos(content, currentUserId);
+        
+        String nextCursor = null;
+        if (tweets.hasNext() && !content.isEmpty()) {
+            Tweet last = content.get(content.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new FeedSlice<>(dtos, nextCursor);
+    }
+    
+    public List<TweetDto> toDtos(List<Tweet> tweets, Long currentUserId) {
+        List<TweetSnapshot> snapshots = new ArrayList<>(tweets.size());
+        for (Tweet tweet : tweets) {
+            snapshots.add(entityCache.cacheTweet(tweet));
+        }
+        return assemble(snapshots, currentUserId);
+    }
+    
+    /**
+     * Builds DTOs for the given tweet IDs in order, reading through the cache.
+     * Tweets that no longer exist are silently dropped.
+     */
+    public List<TweetDto> toDtosByIds(List<Long> tweetIds, Long currentUserId) {
+        Map<Long, TweetSnapshot> found = entityCache.getTweets(tweetIds);
+        
+        List<TweetSnapshot> snapshots = new ArrayList<>(tweetIds.size());
+        for (Long tweetId : tweetIds) {
+            TweetSnapshot snapshot = found.get(tweetId);
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+        return assemble(snapshots, currentUserId);
+    }
+    
+    private List<TweetDto> assemble(List<TweetSnapshot> snapshots, Long currentUserId) {
+        if (snapshots.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        Map<Long, TweetSnapshot> tweetsById = resolveReferencedTweets(snapshots);
+        
+        Set<Long> authorIds = new HashSet<>();
+        for (TweetSnapshot snapshot : tweetsById.values()) {
+            if (snapshot.getAuthorId() != null) {
+                authorIds.add(snapshot.getAuthorId());
+            }
+        }
+        Map<Long, UserDto> authors = entityCache.getUsers(authorIds);
+        
+        Set<Long> likedIds = Collections.emptySet();
+        Set<Long> retweetedIds = Collections.emptySet();
+        
+        if (currentUserId != null) {
+            Set<Long> tweetIds = tweetsById.keySet();
+            likedIds = new HashSet<>(tweetRepository.findLikedTweetIdsByUser(tweetIds, currentUserId));
+            retweetedIds = new HashSet<>(tweetRepository.findRetweetedTweetIdsByUser(tweetIds, currentUserId));
+        }
+        
+        EnrichmentContext context = new EnrichmentContext(tweetsById, authors, likedIds, retweetedIds);
+        
+        List<TweetDto> dtos = new ArrayList<>(snapshots.size());
+        for (TweetSnapshot snapshot : snapshots) {
+            dtos.add(assemble(snapshot, context));
+        }
+        return dtos;
+    }
+    
+    private TweetDto assemble(TweetSnapshot snapshot, EnrichmentContext context) {
+        Long tweetId = snapshot.getId();
+        
+        TweetDto tweetDto = baseDto(snapshot);
+        tweetDto.setLikesCount(snapshot.getLikesCount() + tweetCounterBuffer.pendingLikes(tweetId));
+        tweetDto.setRetweetsCount(snapshot.getRetweetsCount() + tweetCounterBuffer.pendingRetweets(tweetId));
+        tweetDto.setRepliesCount(snapshot.getRepliesCount() + tweetCounterBuffer.pendingReplies(tweetId));
+        tweetDto.setIsLiked(context.likedIds.contains(tweetId));
+        tweetDto.setIsRetweeted(context.retweetedIds.contains(tweetId));
+        
+        // Set author info
+        UserDto author = context.authors.get(snapshot.getAuthorId());
+        if (author != null) {
+            tweetDto.setAuthor(new UserDto(author));
+        }
+        
+        // Set original tweet info for retweets
+        TweetSnapshot originalTweet = context.tweetsById.get(snapshot.getOriginalTweetId());
+        if (originalTweet != null) {
+            tweetDto.setOriginalTweet(assemble(originalTweet, context));
+        }
+        
+        // Set parent tweet info for replies
+        TweetSnapshot parentTweet = context.tweetsById.get(snapshot.getParentTweetId());
+        if (parentTweet != null) {
+            tweetDto.setParentTweet(assemble(parentTweet, context));
+        }
+        
+        return tweetDto;
+    }
+    
+    private TweetDto baseDto(TweetSnapshot snapshot) {
+        TweetDto tweetDto = new TweetDto();
+        tweetDto.setId(snapshot.getId());
+        tweetDto.setContent(snapshot.getContent());
+        tweetDto.setCreatedAt(snapshot.getCreatedAt());
+        tweetDto.setUpdatedAt(snapshot.getUpdatedAt());
+        tweetDto.setType(snapshot.getType());
+        tweetDto.setImageUrl(snapshot.getImageUrl());
+        return tweetDto;
+    }
+    
+    private Map<Long, TweetSnapshot> resolveReferencedTweets(List<TweetSnapshot> snapshots) {
+        Map<Long, TweetSnapshot> tweetsById = new HashMap<>();
+        for (TweetSnapshot snapshot : snapshots) {
+            tweetsById.put(snapshot.getId(), snapshot);
+        }
+        
+        Set<Long> requested = new HashSet<>(tweetsById.keySet());
+        Set<Long> pending = collectReferences(snapshots, requested);
+        
+        while (!pending.isEmpty()) {
+            requested.addAll(pending);
+            Map<Long, TweetSnapshot> loaded = entityCache.getTweets(pending);
+            tweetsById.putAll(loaded);
+            pending = collectReferences(loaded.values(), requested);
+        }
+        return tweetsById;
+    }
+    
+    private Set<Long> collectReferences(Iterable<TweetSnapshot> snapshots, Set<Long> requested) {
+        Set<Long> references = new LinkedHashSet<>();
+        for (TweetSnapshot snapshot : snapshots) {
+            Long originalTweetId = snapshot.getOriginalTweetId();
+            if (originalTweetId != null && !requested.contains(originalTweetId)) {
+                references.add(originalTweetId);
+            }
+            Long parentTweetId = snapshot.getParentTweetId();
+            if (parentTweetId != null && !requested.contains(parentTweetId)) {
+                references.add(parentTweetId);
+            }
+        }
+        return references;
+    }
+    
+    private static class EnrichmentContext {
+        private final Map<Long, TweetSnapshot> tweetsById;
+        private final Map<Long, UserDto> authors;
+        private final Set<Long> likedIds;
+        private final Set<Long> retweetedIds;
+        
+        EnrichmentContext(Map<Long, TweetSnapshot> tweetsById, Map<Long, UserDto> authors,
+                          Set<Long> likedIds, Set<Long> retweetedIds) {
+            this.tweetsById = tweetsById;
+            this.authors = authors;
+            this.likedIds = likedIds;
+            this.retweetedIds = retweetedIds;
+        }
+    }
+}
\ No newline at end of file
@@ -1,20 +1,46 @@
 package com.twitter.service;
 
+import com.twitter.cache.EntityCache;
+import com.twitter.counter.TweetCounterBuffer;
+import com.twitter.dto.BulkTweetResult;
+import com.twitter.dto.FeedCursor;
+import com.twitter.dto.FeedSlice;
+import com.twitter.dto.TrendingTopic;
 import com.twitter.dto.TweetDto;
-import com.twitter.dto.UserDto;
+import com.twitter.dto.TweetRequest;
+import com.twitter.event.TweetCreatedEvent;
+import com.twitter.event.TweetDeletedEvent;
+import com.twitter.event.TweetLikedEvent;
 import com.twitter.model.Tweet;
 import com.twitter.model.User;
 import com.twitter.repository.TweetRepository;
 import com.twitter.repository.UserRepository;
+import com.twitter.search.EntityExtractor;
+import com.twitter.search.TweetSearchService;
+import com.twitter.timeline.HomeTimelineService;
+import com.twitter.trends.TrendsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -26,17 +52,49 @@ public class TweetService {
     @Autowired
     private UserRepository userRepository;
     
-    public Tweet createTweet(Long userId, String content, String imageUrl) {
+    @Autowired
+    private TweetDtoAssembler tweetDtoAssembler;
+    
+    @Autowired
+    private HomeTimelineService homeTimelineService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private TweetCounterBuffer tweetCounterBuffer;
+    
+    @Autowired
+    private EntityCache entityCache;
+    
+    @Autowired
+    private TweetSearchService tweetSearchService;
+    
+    @Autowired
+    private TrendsService trendsService;
+    
+    @Autowired
+    private Validator validator;
+    
+    /**
+     * Creates a tweet and returns its DTO, built from the saved entity rather than
+     * read back; the same holds for replies and retweets.
+     */
+    public TweetDto createTweet(Long userId, String content, String imageUrl) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         Tweet tweet = new Tweet(content, user);
         tweet.setImageUrl(imageUrl);
+        extractEntities(tweet);
         
-        return tweetRepository.save(tweet);
+        Tweet savedTweet = tweetRepository.save(tweet);
+        countNewTweet(user);
+        eventPublisher.publishEvent(new TweetCreatedEvent(savedTweet));
+        return tweetDtoAssembler.toCreatedDto(savedTweet);
     }
     
-    public Tweet createReply(Long userId, Long parentTweetId, String content) {
+    public TweetDto createReply(Long userId, Long parentTweetId, String content) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
@@ -45,11 +103,16 @@ public class TweetService {
         
         Tweet reply = new Tweet(content, user, null, Tweet.TweetType.REPLY);
         reply.setParentTweet(parentTweet);
+        extractEntities(reply);
         
-        return tweetRepository.save(reply);
+        Tweet savedReply = tweetRepository.save(reply);
+        tweetCounterBuffer.addReplies(parentTweetId, 1);
+        countNewTweet(user);
+        eventPublisher.publishEvent(new TweetCreatedEvent(savedReply));
+        return tweetDtoAssembler.toCreatedDto(savedReply);
     }
     
-    public Tweet createRetweet(Long userId, Long originalTweetId, String content) {
+    public TweetDto createRetweet(Long userId, Long originalTweetId, String content) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
@@ -63,8 +126,82 @@ public class TweetService {
         }
         
         Tweet retweet = new Tweet(content != null ? content : "", user, originalTweet, Tweet.TweetType.RETWEET);
+        extractEntities(retweet);
+        
+        Tweet savedRetweet = tweetRepository.save(retweet);
+        tweetCounterBuffer.addRetweets(originalTweetId, 1);
+        countNewTweet(user);
+        eventPublisher.publishEvent(new TweetCreatedEvent(savedRetweet));
+        return tweetDtoAssembler.toCreatedDto(savedRetweet);
+    }
+    
+    /**
+     * Creates many tweets, replies and retweets for one author. Each item is checked
+     * up front and a failing item is reported by index instead of aborting the
+     * request; the valid ones are saved together and written as batched INSERTs
+     * (see hibernate.jdbc.batch_size). Returns IDs only, one result per item in
+     * request order.
+     */
+    public List<BulkTweetResult> createTweets(Long userId, List<TweetRequest> requests) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        Set<Long> referencedIds = new HashSet<>();
+        Set<Long> retweetTargets = new HashSet<>();
+        for (TweetRequest request : requests) {
+            if (request == null) {
+                continue;
+            }
+            if (request.getParentTweetId() != null) {
+                referencedIds.add(request.getParentTweetId());
+            }
+            if (request.getOriginalTweetId() != null) {
+                referencedIds.add(request.getOriginalTweetId());
+                retweetTargets.add(request.getOriginalTweetId());
+            }
+        }
+        Set<Long> existingIds = referencedIds.isEmpty() ? Collections.emptySet()
+                : new HashSet<>(tweetRepository.findExistingIds(referencedIds));
+        Set<Long> retweeted = retweetTargets.isEmpty() ? new HashSet<>()
+                : new HashSet<>(tweetRepository.findRetweetedTweetIdsByUser(retweetTargets, userId));
+        
+        List<BulkTweetResult> results = new ArrayList<>(requests.size());
+        List<Tweet> tweets = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TweetRequest request = requests.get(i);
+            String error = validateBulkItem(request, existingIds, retweeted);
+            if (error != null) {
+                results.add(BulkTweetResult.failed(i, error));
+                continue;
+            }
+            results.add(null);
+            tweets.add(toTweet(request, user));
+            indexes.add(i);
+        }
+        if (tweets.isEmpty()) {
+            return results;
+        }
         
-        return tweetRepository.save(retweet);
+        extractEntities(tweets);
+        List<Tweet> saved = tweetRepository.saveAll(tweets);
+        
+        for (int i = 0; i < saved.size(); i++) {
+            Tweet tweet = saved.get(i);
+            results.set(indexes.get(i), BulkTweetResult.created(indexes.get(i), tweet.getId()));
+            if (tweet.getParentTweet() != null) {
+                tweetCounterBuffer.addReplies(tweet.getParentTweet().getId(), 1);
+            }
+            if (tweet.getOriginalTweet() != null) {
+                tweetCounterBuffer.addRetweets(tweet.getOriginalTweet().getId(), 1);
+            }
+        }
+        userRepository.incrementTweetsCount(userId, saved.size());
+        entityCache.evictUser(userId);
+        for (Tweet tweet : saved) {
+            eventPublisher.publishEvent(new TweetCreatedEvent(tweet));
+        }
+        return results;
     }
     
     public void deleteTweet(Long tweetId, Long userId) {
@@ -75,44 +212,50 @@ public class TweetService {
             throw new RuntimeException("You can only delete your own tweets");
         }
         
+        if (tweet.getOriginalTweet() != null) {
+            tweetCounterBuffer.addRetweets(tweet.getOriginalTweet().getId(), -1);
+        }
+        if (tweet.getParentTweet() != null) {
+            tweetCounterBuffer.addReplies(tweet.getParentTweet().getId(), -1);
+        }
+        
         tweetRepository.delete(tweet);
+        userRepository.incrementTweetsCount(userId, -1);
+        entityCache.evictTweet(tweetId);
+        entityCache.evictUser(userId);
+        eventPublisher.publishEvent(new TweetDeletedEvent(tweetId, userId, tweet.getContent()));
     }
     
-    public void likeTweet(Long tweetId, Long userId) {
-        Tweet tweet = tweetRepository.findById(tweetId)
-                .orElseThrow(() -> new RuntimeException("Tweet not found"));
-        
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        if (user.hasLiked(tweet)) {
-            throw new RuntimeException("Already liked this tweet");
+    /**
+     * Likes a tweet. Idempotent: returns false if the user had already liked it.
+     */
+    public boolean likeTweet(Long tweetId, Long userId) {
+        if (!tweetRepository.existsById(tweetId)) {
+            throw new RuntimeException("Tweet not found");
         }
         
-        user.likeTweet(tweet);
-        userRepository.save(user);
+        boolean liked = tweetRepository.insertLike(userId, tweetId) > 0;
+        if (liked) {
+            tweetCounterBuffer.addLikes(tweetId, 1);
+            eventPublisher.publishEvent(new TweetLikedEvent(tweetId, userId));
+        }
+        return liked;
     }
     
-    public void unlikeTweet(Long tweetId, Long userId) {
-        Tweet tweet = tweetRepository.findById(tweetId)
-                .orElseThrow(() -> new RuntimeException("Tweet not found"));
-        
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        if (!user.hasLiked(tweet)) {
-            throw new RuntimeException("Haven't liked this tweet");
+    /**
+     * Removes a like. Idempotent: returns false if the user had not liked the tweet.
+     */
+    public boolean unlikeTweet(Long tweetId, Long userId) {
+        boolean unliked = tweetRepository.deleteLike(userId, tweetId) > 0;
+        if (unliked) {
+            tweetCounterBuffer.addLikes(tweetId, -1);
         }
-        
-        user.unlikeTweet(tweet);
-        userRepository.save(user);
+        return unliked;
     }
     
+    @Transactional(readOnly = true)
     public TweetDto getTweetById(Long tweetId, Long currentUserId) {
-        Tweet tweet = tweetRepository.findById(tweetId)
-                .orElseThrow(() -> new RuntimeException("Tweet not found"));
-        
-        return convertToDto(tweet, currentUserId);
+        return tweetDtoAssembler.toDto(tweetId, currentUserId);
     }
     
     public Page<TweetDto> getUserTweets(Long userId, Pageable pageable, Long currentUserId) {
@@ -120,72 +263,300 @@ public class TweetService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         Page<Tweet> tweets = tweetRepository.findByAuthorOrderByCreatedAtDesc(user, pageable);
-        return tweets.map(tweet -> convertToDto(tweet, currentUserId));
+        return tweetDtoAssembler.toDtoPage(tweets, currentUserId);
     }
     
     public Page<TweetDto> getTimelineTweets(Long userId, Pageable pageable) {
-        Page<Tweet> tweets = tweetRepository.findTimelineTweets(userId, pageable);
-        return tweets.map(tweet -> convertToDto(tweet, userId));
+        return homeTimelineService.getTimeline(userId, pageable);
     }
     
+    /**
+     * The most engaged tweets of the trends window, from the precomputed trends snapshot.
+     * Until anything has been engaged with, falls back to the last 24 hours by recency.
+     */
+    @Transactional(readOnly = true)
     public Page<TweetDto> getTrendingTweets(Pageable pageable, Long currentUserId) {
-        LocalDateTime since = LocalDateTime.now().minusHours(24);
-        Page<Tweet> tweets = tweetRepository.findTrendingTweets(since, pageable);
-        return tweets.map(tweet -> convertToDto(tweet, currentUserId));
+        List<Long> trending = trendsService.getTrendingTweetIds();
+        if (trending.isEmpty()) {
+            LocalDateTime since = LocalDateTime.now().minusHours(24);
+            Page<Tweet> tweets = tweetRepository.findTrendingTweets(since, pageable);
+            return tweetDtoAssembler.toDtoPage(tweets, currentUserId);
+        }
+        
+        int from = (int) Math.min(pageable.getOffset(), trending.size());
+        int to = Math.min(from + pageable.getPageSize(), trending.size());
+        List<TweetDto> content = tweetDtoAssembler.toDtosByIds(trending.subList(from, to), currentUserId);
+        return new PageImpl<>(content, pageable, trending.size());
+    }
+    
+    public List<TrendingTopic> getTrendingHashtags(int limit) {
+        return trendsService.getTrendingHashtags(limit);
     }
     
+    /**
+     * Matches tweets containing every word of the query, newest first. Served from the
+     * search index once it is built; until then falls back to a substring scan.
+     *
+     * The index is asked for one match past the page only, so the total it reports is
+     * exact on the last page and otherwise just large enough to show there is another
+     * page. Clients that walk deep into results should use the cursor variant.
+     */
+    @Transactional(readOnly = true)
     public Page<TweetDto> searchTweets(String query, Pageable pageable, Long currentUserId) {
-        Page<Tweet> tweets = tweetRepository.searchTweets(query, pageable);
-        return tweets.map(tweet -> convertToDto(tweet, currentUserId));
+        if (!tweetSearchService.isReady()) {
+            Page<Tweet> tweets = tweetRepository.searchTweets(query, pageable);
+            return tweetDtoAssembler.toDtoPage(tweets, currentUserId);
+        }
+        
+        int limit = (int) Math.min(pageable.getOffset() + pageable.getPageSize() + 1, Integer.MAX_VALUE);
+        List<Long> matches = tweetSearchService.search(query, Long.MAX_VALUE, limit);
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        
+        List<TweetDto> content = tweetDtoAssembler.toDtosByIds(matches.subList(from, to), currentUserId);
+        return new PageImpl<>(content, pageable, matches.size());
     }
     
     public Page<TweetDto> getReplies(Long tweetId, Pageable pageable, Long currentUserId) {
         Page<Tweet> replies = tweetRepository.findRepliesByTweetId(tweetId, pageable);
-        return replies.map(tweet -> convertToDto(tweet, currentUserId));
+        return tweetDtoAssembler.toDtoPage(replies, currentUserId);
     }
     
     public Page<TweetDto> getRetweets(Long tweetId, Pageable pageable, Long currentUserId) {
         Page<Tweet> retweets = tweetRepository.findRetweetsByTweetId(tweetId, pageable);
-        return retweets.map(tweet -> convertToDto(tweet, currentUserId));
+        return tweetDtoAssembler.toDtoPage(retweets, currentUserId);
     }
     
     public Page<TweetDto> getLikedTweets(Long userId, Pageable pageable, Long currentUserId) {
         Page<Tweet> likedTweets = tweetRepository.findLikedTweetsByUserId(userId, pageable);
-        return likedTweets.map(tweet -> convertToDto(tweet, currentUserId));
+        return tweetDtoAssembler.toDtoPage(likedTweets, currentUserId);
     }
     
-    private TweetDto convertToDto(Tweet tweet, Long currentUserId) {
-        Long likesCount = tweetRepository.countLikesByTweetId(tweet.getId());
-        Long retweetsCount = tweetRepository.countRetweetsByTweetId(tweet.getId());
-        Long repliesCount = tweetRepository.countRepliesByTweetId(tweet.getId());
+    public FeedSlice<TweetDto> getUserTweetsBefore(Long userId, FeedCursor before, int size, Long currentUserId) {
+        Slice<Tweet> tweets = tweetRepository.findByAuthorIdBefore(userId, before.getCreatedAt(), before.getId(),
+                PageRequest.of(0, size));
+        return tweetDtoAssembler.toFeedSlice(tweets, currentUserId);
+    }
+    
+    public FeedSlice<TweetDto> getTimelineBefore(Long userId, FeedCursor before, int size) {
+        return homeTimelineService.getTimelineBefore(userId, before, size);
+    }
+    
+    /**
+     * Cursor over the trends snapshot in rank order. The cursor names the last tweet
+     * seen and its rank. If a refresh has since dropped that tweet, the feed resumes at
+     * the same rank of the new snapshot, so a refresh can repeat or skip a few tweets but
+     * never ends the feed early. Cursors from the recency fallback, which carry no rank,
+     * keep paging by recency.
+     */
+    @Transactional(readOnly = true)
+    public FeedSlice<TweetDto> getTrendingTweetsBefore(FeedCursor before, int size, Long currentUserId) {
+        List<Long> trending = trendsService.getTrendingTweetIds();
+        boolean latest = before.getId().equals(FeedCursor.LATEST.getId());
+        int position = latest ? -1 : trending.indexOf(before.getId());
+        if (trending.isEmpty() || (!latest && position < 0 && before.getRank() == null)) {
+            LocalDateTime since = LocalDateTime.now().minusHours(24);
+            Slice<Tweet> tweets = tweetRepository.findTrendingTweetsBefore(since, before.getCreatedAt(), before.getId(),
+                    PageRequest.of(0, size));
+            return tweetDtoAssembler.toFeedSlice(tweets, currentUserId);
+        }
+        requirePositiveSize(size);
         
-        Boolean isLiked = false;
-        Boolean isRetweeted = false;
+        int from = 0;
+        if (!latest) {
+            from = (position >= 0 ? position : Math.min(before.getRank(), trending.size() - 1)) + 1;
+        }
+        int to = Math.min(from + size, trending.size());
+        List<TweetDto> content = tweetDtoAssembler.toDtosByIds(trending.subList(from, to), currentUserId);
         
-        if (currentUserId != null) {
-            isLiked = tweetRepository.isLikedByUser(tweet.getId(), currentUserId);
-            isRetweeted = tweetRepository.isRetweetedByUser(tweet.getId(), currentUserId);
+        String nextCursor = null;
+        if (to < trending.size()) {
+            TweetDto last = content.isEmpty() ? null : content.get(content.size() - 1);
+            nextCursor = new FeedCursor(last != null ? last.getCreatedAt() : before.getCreatedAt(),
+                    trending.get(to - 1), to - 1).encode();
+        }
+        return new FeedSlice<>(content, nextCursor);
+    }
+    
+    @Transactional(readOnly = true)
+    public FeedSlice<TweetDto> searchTweetsBefore(String query, FeedCursor before, int size, Long currentUserId) {
+        if (!tweetSearchService.isReady()) {
+            Slice<Tweet> tweets = tweetRepository.searchTweetsBefore(query, before.getCreatedAt(), before.getId(),
+                    PageRequest.of(0, size));
+            return tweetDtoAssembler.toFeedSlice(tweets, currentUserId);
         }
+        requirePositiveSize(size);
         
-        TweetDto tweetDto = new TweetDto(tweet, likesCount, retweetsCount, repliesCount, isLiked, isRetweeted);
+        // Index order is ID order, so only the ID half of the cursor is needed
+        List<Long> matches = tweetSearchService.search(query, before.getId(), size + 1);
+        return toIdOrderedSlice(matches, before, size, currentUserId);
+    }
+    
+    /**
+     * Tweets carrying the hashtag, newest first. The tag may be given with or without '#'.
+     */
+    @Transactional(readOnly = true)
+    public FeedSlice<TweetDto> getHashtagTweetsBefore(String tag, FeedCursor before, int size, Long currentUserId) {
+        requirePositiveSize(size);
+        String normalized = tag.startsWith("#") ? tag.substring(1) : tag;
+        List<Long> tweetIds = tweetRepository.findIdsByHashtagBefore(normalized.toLowerCase(Locale.ROOT),
+                before.getId(), PageRequest.of(0, size + 1));
+        return toIdOrderedSlice(tweetIds, before, size, currentUserId);
+    }
+    
+    /**
+     * Tweets that @-mention the user, newest first.
+     */
+    @Transactional(readOnly = true)
+    public FeedSlice<TweetDto> getMentionsBefore(Long userId, FeedCursor before, int size) {
+        requirePositiveSize(size);
+        List<Long> tweetIds = tweetRepository.findIdsMentioningBefore(userId, before.getId(),
+                PageRequest.of(0, size + 1));
+        return toIdOrderedSlice(tweetIds, before, size, userId);
+    }
+    
+    public FeedSlice<TweetDto> getRepliesAfter(Long tweetId, FeedCursor after, int size, Long currentUserId) {
+        Slice<Tweet> replies = tweetRepository.findRepliesAfter(tweetId, after.getCreatedAt(), after.getId(),
+                PageRequest.of(0, size));
+        return tweetDtoAssembler.toFeedSlice(replies, currentUserId);
+    }
+    
+    public FeedSlice<TweetDto> getRetweetsBefore(Long tweetId, FeedCursor before, int size, Long currentUserId) {
+        Slice<Tweet> retweets = tweetRepository.findRetweetsBefore(tweetId, before.getCreatedAt(), before.getId(),
+                PageRequest.of(0, size));
+        return tweetDtoAssembler.toFeedSlice(retweets, currentUserId);
+    }
+    
+    public FeedSlice<TweetDto> getLikedTweetsBefore(Long userId, FeedCursor before, int size, Long currentUserId) {
+        Slice<Tweet> likedTweets = tweetRepository.findLikedTweetsBefore(userId, before.getCreatedAt(), before.getId(),
+                PageRequest.of(0, size));
+        return tweetDtoAssembler.toFeedSlice(likedTweets, currentUserId);
+    }
+    
+    private void countNewTweet(User author) {
+        userRepository.incrementTweetsCount(author.getId(), 1);
+        // Keeps the loaded author in step for the returned DTO; the column is not
+        // updatable, so this is never flushed
+        author.setTweetsCount(author.getTweetsCount() + 1);
+        entityCache.evictUser(author.getId());
+    }
+    
+    private void extractEntities(Tweet tweet) {
+        tweet.setHashtags(EntityExtractor.hashtags(tweet.getContent()));
         
-        // Set author info
-        if (tweet.getAuthor() != null) {
-            tweetDto.setAuthor(new UserDto(tweet.getAuthor()));
+        Set<String> usernames = EntityExtractor.mentions(tweet.getContent());
+        if (!usernames.isEmpty()) {
+            // Unknown usernames are dropped; only mentions of existing users are indexed
+            tweet.setMentionedUserIds(new HashSet<>(userRepository.findIdsByUsernameIn(usernames)));
+        }
+    }
+    
+    /**
+     * Extracts entities for a batch of tweets, resolving every mentioned username
+     * with one query.
+     */
+    private void extractEntities(List<Tweet> tweets) {
+        // Tweets without IDs all hash alike, so key them by identity
+        Map<Tweet, Set<String>> mentionsByTweet = new IdentityHashMap<>();
+        Set<String> usernames = new HashSet<>();
+        for (Tweet tweet : tweets) {
+            tweet.setHashtags(EntityExtractor.hashtags(tweet.getContent()));
+            Set<String> mentions = EntityExtractor.mentions(tweet.getContent());
+            if (!mentions.isEmpty()) {
+                mentionsByTweet.put(tweet, mentions);
+                usernames.addAll(mentions);
+            }
+        }
+        if (usernames.isEmpty()) {
+            return;
         }
         
-        // Set original tweet info for retweets
-        if (tweet.getOriginalTweet() != null) {
-            TweetDto originalTweetDto = convertToDto(tweet.getOriginalTweet(), currentUserId);
-            tweetDto.setOriginalTweet(originalTweetDto);
+        Map<String, Long> idsByUsername = new HashMap<>();
+        for (Object[] row : userRepository.findUsernameIdPairs(usernames)) {
+            idsByUsername.put((String) row[0], (Long) row[1]);
+        }
+        for (Map.Entry<Tweet, Set<String>> entry : mentionsByTweet.entrySet()) {
+            Set<Long> mentionedIds = new HashSet<>();
+            for (String username : entry.getValue()) {
+                Long id = idsByUsername.get(username);
+                if (id != null) {
+                    mentionedIds.add(id);
+                }
+            }
+            entry.getKey().setMentionedUserIds(mentionedIds);
+        }
+    }
+    
+    /**
+     * Returns why a bulk item cannot be created, or null if it can. A retweet claims
+     * its target in {@code retweeted} so a second retweet of it in the batch fails.
+     */
+    private String validateBulkItem(TweetRequest request, Set<Long> existingIds, Set<Long> retweeted) {
+        if (request == null) {
+            return "Tweet must not be null";
+        }
+        Set<ConstraintViolation<TweetRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<TweetRequest> violation = violations.iterator().next();
+            return violation.getPropertyPath() + " " + violation.getMessage();
         }
         
-        // Set parent tweet info for replies
-        if (tweet.getParentTweet() != null) {
-            TweetDto parentTweetDto = convertToDto(tweet.getParentTweet(), currentUserId);
-            tweetDto.setParentTweet(parentTweetDto);
+        Long parentId = request.getParentTweetId();
+        Long originalId = request.getOriginalTweetId();
+        if (parentId != null && originalId != null) {
+            return "A tweet cannot be both a reply and a retweet";
+        }
+        if (parentId != null && !existingIds.contains(parentId)) {
+            return "Parent tweet not found";
+        }
+        if (originalId != null) {
+            if (!existingIds.contains(originalId)) {
+                return "Original tweet not found";
+            }
+            if (!retweeted.add(originalId)) {
+                return "Already retweeted this tweet";
+            }
+        }
+        return null;
+    }
+    
+    private Tweet toTweet(TweetRequest request, User author) {
+        Tweet tweet;
+        if (request.getParentTweetId() != null) {
+            tweet = new Tweet(request.getContent(), author, null, Tweet.TweetType.REPLY);
+            tweet.setParentTweet(tweetRepository.getReferenceById(request.getParentTweetId()));
+        } else if (request.getOriginalTweetId() != null) {
+            tweet = new Tweet(request.getContent(), author,
+                tweetRepository.getReferenceById(request.getOriginalTweetId()), Tweet.TweetType.RETWEET);
+        } else {
+            tweet = new Tweet(request.getContent(), author);
         }
+        tweet.setImageUrl(request.getImageUrl());
+        return tweet;
+    }
+    
+    private void requirePositiveSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+    }
+    
+    /**
+     * Builds a feed slice from up to {@code size + 1} tweet IDs in descending ID order;
+     * the extra ID only signals that another page exists.
+     */
+    private FeedSlice<TweetDto> toIdOrderedSlice(List<Long> tweetIds, FeedCursor before, int size,
+                                                 Long currentUserId) {
+        boolean hasNext = tweetIds.size() > size;
+        List<TweetDto> content = tweetDtoAssembler.toDtosByIds(
+            hasNext ? tweetIds.subList(0, size) : tweetIds, currentUserId);
         
-        return tweetDto;
+        String nextCursor = null;
+        if (hasNext) {
+            Long lastId = tweetIds.get(size - 1);
+            TweetDto last = content.isEmpty() ? null : content.get(content.size() - 1);
+            nextCursor = new FeedCursor(last != null ? last.getCreatedAt() : before.getCreatedAt(), lastId).encode();
+        }
+        return new FeedSlice<>(content, nextCursor);
     }
 }
\ No newline at end of file
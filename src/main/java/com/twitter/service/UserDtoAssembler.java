@@ -0,0 +1,143 @@
+package com.twitter.service;
+
+import com.twitter.cache.EntityCache;
+import com.twitter.dto.UserDto;
+import com.twitter.graph.SocialGraphService;
+import com.twitter.model.User;
+import com.twitter.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds {@link UserDto}s for a whole page at once.
+ *
+ * Counts come from the denormalized columns on {@link User}, so no count queries
+ * are issued. Users requested by ID are resolved through {@link EntityCache}, which
+ * loads any misses with one query. Whether the viewer follows the users on a page is
+ * answered by one intersection against the viewer's followees, served by the social
+ * graph once it is loaded and by one IN query before.
+ */
+@Component
+public class UserDtoAssembler {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private EntityCache entityCache;
+    
+    @Autowired
+    private SocialGraphService socialGraph;
+    
+    public UserDto toDto(Long userId, Long viewerId) {
+        UserDto user = entityCache.getUser(userId);
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
+        
+        if (viewerId != null && !viewerId.equals(userId)) {
+            user.setIsFollowing(socialGraph.isReady()
+                    ? socialGraph.isFollowing(viewerId, userId)
+                    : userRepository.isFollowing(viewerId, userId));
+        }
+        return user;
+    }
+    
+    /**
+     * DTOs for the given IDs in the same order. IDs of users that do not exist are skipped.
+     */
+    public List<UserDto> toDtos(List<Long> userIds, Long viewerId) {
+        Map<Long, UserDto> users = entityCache.getUsers(userIds);
+        List<UserDto> dtos = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            UserDto user = users.get(userId);
+            if (user != null) {
+                dtos.add(user);
+            }
+        }
+        applyViewer(dtos, viewerId);
+        return dtos;
+    }
+    
+    public Page<UserDto> toDtoPage(Page<User> users, Long viewerId) {
+        List<UserDto> dtos = new ArrayList<>(users.getNumberOfElements());
+        for (User user : users.getContent()) {
+            dtos.add(new UserDto(user, user.getFollowersCount(), user.getFollowingCount(), user.getTweetsCount()));
+        }
+        applyViewer(dtos, viewerId);
+        return new PageImpl<>(dtos, users.getPageable(), users.getTotalElements());
+    }
+    
+    /**
+     * The subset of {@code userIds} that the viewer follows.
+     */
+    public Set<Long> followingAmong(Long viewerId, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        if (socialGraph.isReady()) {
+            return toSet(socialGraph.getFollowingAmong(viewerId, sorted(userIds)));
+        }
+        return new HashSet<>(userRepository.findFollowingIdsAmong(viewerId, userIds));
+    }
+    
+    /**
+     * The subset of {@code userIds} that follow the viewer.
+     */
+    public Set<Long> followersAmong(Long viewerId, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        if (socialGraph.isReady()) {
+            return toSet(socialGraph.getFollowersAmong(viewerId, sorted(userIds)));
+        }
+        return new HashSet<>(userRepository.findFollowerIdsAmong(viewerId, userIds));
+    }
+    
+    private void applyViewer(List<UserDto> dtos, Long viewerId) {
+        if (viewerId == null || dtos.isEmpty()) {
+            return;
+        }
+        
+        Set<Long> userIds = new HashSet<>();
+        for (UserDto dto : dtos) {
+            userIds.add(dto.getId());
+        }
+        userIds.remove(viewerId);
+        
+        Set<Long> following = followingAmong(viewerId, userIds);
+        for (UserDto dto : dtos) {
+            if (!viewerId.equals(dto.getId())) {
+                dto.setIsFollowing(following.contains(dto.getId()));
+            }
+        }
+    }
+    
+    private static long[] sorted(Collection<Long> userIds) {
+        long[] ids = new long[userIds.size()];
+        int i = 0;
+        for (Long userId : userIds) {
+            ids[i++] = userId;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+    
+    private static Set<Long> toSet(long[] ids) {
+        Set<Long> set = new HashSet<>(ids.length * 2);
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+}
\ No newline at end of file
@@ -1,30 +1,63 @@
 package com.twitter.service;
 
+import com.twitter.cache.EntityCache;
+import com.twitter.dto.RelationshipDto;
 import com.twitter.dto.UserDto;
+import com.twitter.event.FollowChangedEvent;
+import com.twitter.event.UserProfileChangedEvent;
+import com.twitter.graph.FollowRecommendationService;
+import com.twitter.graph.SocialGraphService;
 import com.twitter.model.User;
-import com.twitter.repository.TweetRepository;
 import com.twitter.repository.UserRepository;
+import com.twitter.search.UserAutocompleteIndex;
+import com.twitter.search.UserAutocompleteService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
 public class UserService {
     
+    static final int MAX_RELATIONSHIP_IDS = 100;
+    
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
-    private TweetRepository tweetRepository;
+    private PasswordEncoder passwordEncoder;
     
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private EntityCache entityCache;
+    
+    @Autowired
+    private UserAutocompleteService autocompleteService;
+    
+    @Autowired
+    private SocialGraphService socialGraph;
+    
+    @Autowired
+    private FollowRecommendationService recommendationService;
+    
+    @Autowired
+    private UserDtoAssembler userDtoAssembler;
     
     public User createUser(String username, String email, String password, String displayName) {
         if (userRepository.existsByUsername(username)) {
@@ -38,7 +71,9 @@ public class UserService {
         User user = new User(username, email, passwordEncoder.encode(password));
         user.setDisplayName(displayName != null ? displayName : username);
         
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        publishProfileChanged(savedUser);
+        return savedUser;
     }
     
     public Optional<User> findById(Long id) {
@@ -54,19 +89,7 @@ public class UserService {
     }
     
     public UserDto getUserProfile(Long userId, Long currentUserId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        Long followersCount = userRepository.countFollowersByUserId(userId);
-        Long followingCount = userRepository.countFollowingByUserId(userId);
-        Long tweetsCount = tweetRepository.countTweetsByUserId(userId);
-        
-        Boolean isFollowing = null;
-        if (currentUserId != null && !currentUserId.equals(userId)) {
-            isFollowing = userRepository.isFollowing(currentUserId, userId);
-        }
-        
-        return new UserDto(user, followersCount, followingCount, tweetsCount, isFollowing);
+        return userDtoAssembler.toDto(userId, currentUserId);
     }
     
     public User updateProfile(Long userId, String displayName, String bio, String profileImageUrl) {
@@ -83,68 +106,178 @@ public class UserService {
             user.setProfileImageUrl(profileImageUrl);
         }
         
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        entityCache.evictUser(userId);
+        publishProfileChanged(savedUser);
+        return savedUser;
     }
     
-    public void followUser(Long followerId, Long followingId) {
+    /**
+     * Follows a user. Idempotent: returns false if the follow already existed.
+     */
+    public boolean followUser(Long followerId, Long followingId) {
         if (followerId.equals(followingId)) {
             throw new RuntimeException("You cannot follow yourself");
         }
+        if (!userRepository.existsById(followingId)) {
+            throw new RuntimeException("User to follow not found");
+        }
         
-        User follower = userRepository.findById(followerId)
-                .orElseThrow(() -> new RuntimeException("Follower not found"));
-        User following = userRepository.findById(followingId)
-                .orElseThrow(() -> new RuntimeException("User to follow not found"));
+        boolean followed = userRepository.insertFollow(followerId, followingId) > 0;
+        if (followed) {
+            userRepository.incrementFollowingCount(followerId, 1);
+            userRepository.incrementFollowersCount(followingId, 1);
+            entityCache.evictUser(followerId);
+            entityCache.evictUser(followingId);
+            eventPublisher.publishEvent(new FollowChangedEvent(followerId, followingId, true));
+        }
+        return followed;
+    }
+    
+    /**
+     * Follows several users in one transaction, e.g. from onboarding suggestions.
+     * Unknown users, the follower themself and existing follows are skipped.
+     *
+     * @return the IDs that were newly followed, in request order
+     */
+    public List<Long> followUsers(Long followerId, Collection<Long> followingIds) {
+        Set<Long> candidates = new LinkedHashSet<>(followingIds);
+        candidates.remove(followerId);
+        if (candidates.isEmpty()) {
+            return new ArrayList<>();
+        }
         
-        if (follower.isFollowing(following)) {
-            throw new RuntimeException("Already following this user");
+        // One SELECT skips unknown users and existing follows. Each remaining follow is
+        // inserted on its own, as followUser does, so a follow a concurrent request added
+        // first is not counted, announced or returned; one UPDATE per side then bumps
+        // the counters
+        Set<Long> toFollow = new HashSet<>(userRepository.findIdsNotFollowedBy(followerId, candidates));
+        List<Long> followed = new ArrayList<>();
+        for (Long followingId : candidates) {
+            if (toFollow.contains(followingId) && userRepository.insertFollow(followerId, followingId) > 0) {
+                followed.add(followingId);
+            }
         }
         
-        follower.follow(following);
-        userRepository.save(follower);
+        if (!followed.isEmpty()) {
+            userRepository.incrementFollowersCounts(followed, 1);
+            userRepository.incrementFollowingCount(followerId, followed.size());
+            entityCache.evictUser(followerId);
+            entityCache.evictUsers(followed);
+            for (Long followingId : followed) {
+                eventPublisher.publishEvent(new FollowChangedEvent(followerId, followingId, true));
+            }
+        }
+        return followed;
     }
     
-    public void unfollowUser(Long followerId, Long followingId) {
-        User follower = userRepository.findById(followerId)
-                .orElseThrow(() -> new RuntimeException("Follower not found"));
-        User following = userRepository.findById(followingId)
-                .orElseThrow(() -> new RuntimeException("User to unfollow not found"));
-        
-        if (!follower.isFollowing(following)) {
-            throw new RuntimeException("Not following this user");
+    /**
+     * Unfollows a user. Idempotent: returns false if there was no follow to remove.
+     */
+    public boolean unfollowUser(Long followerId, Long followingId) {
+        boolean unfollowed = userRepository.deleteFollow(followerId, followingId) > 0;
+        if (unfollowed) {
+            userRepository.incrementFollowingCount(followerId, -1);
+            userRepository.incrementFollowersCount(followingId, -1);
+            entityCache.evictUser(followerId);
+            entityCache.evictUser(followingId);
+            eventPublisher.publishEvent(new FollowChangedEvent(followerId, followingId, false));
+        }
+        return unfollowed;
+    }
+    
+    /**
+     * The viewer's relationship to each of the given users, in request order with
+     * duplicates dropped. Answered by intersecting the ID list with the viewer's
+     * followees and followers, from the social graph once it is loaded and with two
+     * IN queries before.
+     */
+    @Transactional(readOnly = true)
+    public List<RelationshipDto> getRelationships(Long viewerId, Collection<Long> userIds) {
+        Set<Long> requested = new LinkedHashSet<>(userIds);
+        if (requested.isEmpty() || requested.size() > MAX_RELATIONSHIP_IDS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_RELATIONSHIP_IDS + " user IDs are required");
         }
         
-        follower.unfollow(following);
-        userRepository.save(follower);
+        Set<Long> following = userDtoAssembler.followingAmong(viewerId, requested);
+        Set<Long> followedBy = userDtoAssembler.followersAmong(viewerId, requested);
+        
+        List<RelationshipDto> relationships = new ArrayList<>(requested.size());
+        for (Long userId : requested) {
+            relationships.add(new RelationshipDto(userId, following.contains(userId), followedBy.contains(userId)));
+        }
+        return relationships;
     }
     
+    /**
+     * Followers ordered by user ID while the social graph is loaded; unordered before.
+     */
     public Page<UserDto> getFollowers(Long userId, Pageable pageable) {
-        Page<User> followers = userRepository.findFollowersByUserId(userId, pageable);
-        return followers.map(user -> {
-            Long followersCount = userRepository.countFollowersByUserId(user.getId());
-            Long followingCount = userRepository.countFollowingByUserId(user.getId());
-            Long tweetsCount = tweetRepository.countTweetsByUserId(user.getId());
-            return new UserDto(user, followersCount, followingCount, tweetsCount);
-        });
+        if (socialGraph.isReady()) {
+            long[] ids = socialGraph.getFollowerIds(userId, (int) pageable.getOffset(), pageable.getPageSize());
+            List<UserDto> followers = userDtoAssembler.toDtos(toList(ids), null);
+            return new PageImpl<>(followers, pageable, socialGraph.getFollowersCount(userId));
+        }
+        return userDtoAssembler.toDtoPage(userRepository.findFollowersByUserId(userId, pageable), null);
     }
     
+    /**
+     * Followed users ordered by user ID while the social graph is loaded; unordered before.
+     */
     public Page<UserDto> getFollowing(Long userId, Pageable pageable) {
-        Page<User> following = userRepository.findFollowingByUserId(userId, pageable);
-        return following.map(user -> {
-            Long followersCount = userRepository.countFollowersByUserId(user.getId());
-            Long followingCount = userRepository.countFollowingByUserId(user.getId());
-            Long tweetsCount = tweetRepository.countTweetsByUserId(user.getId());
-            return new UserDto(user, followersCount, followingCount, tweetsCount);
-        });
+        if (socialGraph.isReady()) {
+            long[] ids = socialGraph.getFollowingIds(userId, (int) pageable.getOffset(), pageable.getPageSize());
+            List<UserDto> following = userDtoAssembler.toDtos(toList(ids), null);
+            return new PageImpl<>(following, pageable, socialGraph.getFollowingCount(userId));
+        }
+        return userDtoAssembler.toDtoPage(userRepository.findFollowingByUserId(userId, pageable), null);
     }
     
     public Page<UserDto> searchUsers(String query, Pageable pageable) {
-        Page<User> users = userRepository.searchUsers(query, pageable);
-        return users.map(user -> {
-            Long followersCount = userRepository.countFollowersByUserId(user.getId());
-            Long followingCount = userRepository.countFollowingByUserId(user.getId());
-            Long tweetsCount = tweetRepository.countTweetsByUserId(user.getId());
-            return new UserDto(user, followersCount, followingCount, tweetsCount);
-        });
+        return userDtoAssembler.toDtoPage(userRepository.searchUsers(query, pageable), null);
+    }
+    
+    /**
+     * Users whose username or display name starts with the prefix, most followed first.
+     * Served from the autocomplete index once it is built, from a prefix LIKE query before.
+     */
+    @Transactional(readOnly = true)
+    public List<UserDto> autocomplete(String prefix, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must not be less than one");
+        }
+        if (!autocompleteService.isReady()) {
+            String normalized = UserAutocompleteIndex.normalize(prefix);
+            if (normalized.isEmpty()) {
+                return new ArrayList<>();
+            }
+            String pattern = normalized.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            return userDtoAssembler.toDtos(userRepository.findIdsByNamePrefix(pattern, PageRequest.of(0, limit)), null);
+        }
+        
+        return userDtoAssembler.toDtos(autocompleteService.complete(prefix, limit), null);
+    }
+    
+    /**
+     * Friends-of-friends the user does not follow yet, best first. Empty until the
+     * social graph has loaded.
+     */
+    @Transactional(readOnly = true)
+    public List<UserDto> getRecommendations(Long userId, int limit) {
+        return userDtoAssembler.toDtos(recommendationService.recommend(userId, limit), null);
+    }
+    
+    private static List<Long> toList(long[] ids) {
+        List<Long> list = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+    
+    private void publishProfileChanged(User user) {
+        Long followers = user.getFollowersCount();
+        eventPublisher.publishEvent(new UserProfileChangedEvent(user.getId(), user.getUsername(),
+                user.getDisplayName(), followers != null ? followers : 0L));
     }
 }
\ No newline at end of file
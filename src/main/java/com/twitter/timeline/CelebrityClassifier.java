@@ -0,0 +1,95 @@
+package com.twitter.timeline;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.twitter.graph.SocialGraphService;
+import com.twitter.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifies authors as "celebrities" by follower count. Tweets from celebrities are
+ * not fanned out on write; readers pull them in at read time instead.
+ * Counts come from the in-memory social graph once it is loaded; until then the
+ * denormalized followers_count column is read and cached for a short TTL.
+ */
+@Component
+public class CelebrityClassifier {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private SocialGraphService socialGraph;
+    
+    @Value("${app.timeline.celebrity-follower-threshold:10000}")
+    private long followerThreshold;
+    
+    @Value("${app.timeline.follower-count-cache-seconds:60}")
+    private long cacheSeconds;
+    
+    @Value("${app.timeline.follower-count-cache-size:100000}")
+    private long cacheSize;
+    
+    private Cache<Long, Long> followerCounts;
+    
+    @PostConstruct
+    public void init() {
+        followerCounts = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+    
+    public boolean isCelebrity(Long userId) {
+        return filterCelebrities(Collections.singletonList(userId)).contains(userId);
+    }
+    
+    public Set<Long> filterCelebrities(Collection<Long> userIds) {
+        Set<Long> celebrities = new HashSet<>();
+        if (socialGraph.isReady()) {
+            for (Long userId : userIds) {
+                if (socialGraph.getFollowersCount(userId) >= followerThreshold) {
+                    celebrities.add(userId);
+                }
+            }
+            return celebrities;
+        }
+        
+        List<Long> missing = new ArrayList<>();
+        for (Long userId : userIds) {
+            Long count = followerCounts.getIfPresent(userId);
+            if (count == null) {
+                missing.add(userId);
+            } else if (count >= followerThreshold) {
+                celebrities.add(userId);
+            }
+        }
+        
+        if (!missing.isEmpty()) {
+            for (Object[] row : userRepository.findCountersByUserIds(missing)) {
+                Long userId = (Long) row[0];
+                long count = ((Number) row[1]).longValue();
+                followerCounts.put(userId, count);
+                if (count >= followerThreshold) {
+                    celebrities.add(userId);
+                }
+            }
+        }
+        return celebrities;
+    }
+    
+    public void evict(Long userId) {
+        followerCounts.invalidate(userId);
+    }
+}
\ No newline at end of file
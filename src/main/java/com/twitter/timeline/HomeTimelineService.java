@@ -0,0 +1,334 @@
+package com.twitter.timeline;
+
+import com.twitter.dto.FeedCursor;
+import com.twitter.dto.FeedSlice;
+import com.twitter.dto.TweetDto;
+import com.twitter.event.FollowChangedEvent;
+import com.twitter.event.TweetCreatedEvent;
+import com.twitter.event.TweetDeletedEvent;
+import com.twitter.graph.SocialGraphService;
+import com.twitter.repository.TweetRepository;
+import com.twitter.repository.UserRepository;
+import com.twitter.service.TweetDtoAssembler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hybrid push/pull home timelines.
+ *
+ * New tweets are pushed into the materialized timelines of the author and the
+ * author's followers once the creating transaction commits, so a timeline read
+ * is a slice of tweet IDs plus one batched hydrate. Fan-out runs on a small
+ * bounded pool rather than the request thread; when its queue is full the
+ * caller runs the push itself, which slows writers down instead of dropping
+ * it. Tweets from celebrity authors skip the fan-out and are k-way merged in
+ * from per-author outboxes when a follower reads their timeline.
+ */
+@Service
+public class HomeTimelineService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(HomeTimelineService.class);
+    
+    @Autowired
+    private HomeTimelineStore timelineStore;
+    
+    @Autowired
+    private TweetRepository tweetRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TweetDtoAssembler tweetDtoAssembler;
+    
+    @Autowired
+    private CelebrityClassifier celebrityClassifier;
+    
+    @Autowired
+    private SocialGraphService socialGraph;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.timeline.fanout-threads:2}")
+    private int fanoutThreads;
+    
+    @Value("${app.timeline.fanout-queue-capacity:10000}")
+    private int fanoutQueueCapacity;
+    
+    private ThreadPoolExecutor fanoutExecutor;
+    
+    private Counter plainReads;
+    private Counter mergedReads;
+    private Counter skippedFanouts;
+    
+    @PostConstruct
+    public void initMetrics() {
+        plainReads = Counter.builder("timeline.reads")
+                .description("Home timeline reads")
+                .tag("merged", "false")
+                .register(meterRegistry);
+        mergedReads = Counter.builder("timeline.reads")
+                .description("Home timeline reads")
+                .tag("merged", "true")
+                .register(meterRegistry);
+        skippedFanouts = Counter.builder("timeline.fanout.skipped")
+                .description("Tweets from celebrity authors that were not fanned out")
+                .register(meterRegistry);
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        fanoutExecutor = new ThreadPoolExecutor(fanoutThreads, fanoutThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fanoutQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "timeline-fanout-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        meterRegistry.gauge("timeline.fanout.queued", fanoutExecutor, executor -> executor.getQueue().size());
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        fanoutExecutor.shutdown();
+        fanoutExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<TweetDto> getTimeline(Long userId, Pageable pageable) {
+        TimelineBuffer home = getOrBuild(userId);
+        int offset = (int) pageable.getOffset();
+        int limit = pageable.getPageSize();
+        
+        List<TimelineBuffer> outboxes = getCelebrityOutboxes(userId);
+        List<TimelineEntry> entries;
+        long total = home.size();
+        
+        if (outboxes.isEmpty()) {
+            entries = home.slice(offset, limit);
+            plainReads.increment();
+        } else {
+            List<List<TimelineEntry>> runs = new ArrayList<>(outboxes.size() + 1);
+            runs.add(home.slice(0, offset + limit));
+            for (TimelineBuffer outbox : outboxes) {
+                runs.add(outbox.slice(0, offset + limit));
+                total += countNotIn(home, outbox);
+            }
+            entries = TimelineMerger.merge(runs, offset, limit);
+            mergedReads.increment();
+        }
+        
+        List<TweetDto> content = tweetDtoAssembler.toDtosByIds(toTweetIds(entries), userId);
+        return new PageImpl<>(content, pageable, total);
+    }
+    
+    @Transactional(readOnly = true)
+    public FeedSlice<TweetDto> getTimelineBefore(Long userId, FeedCursor before, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        
+        TimelineBuffer home = getOrBuild(userId);
+        long createdAt = TimelineEntry.toEpochMillis(before.getCreatedAt());
+        long tweetId = before.getId();
+        
+        // Fetch one extra entry to learn whether there is a next page
+        List<TimelineBuffer> outboxes = getCelebrityOutboxes(userId);
+        List<TimelineEntry> entries;
+        
+        if (outboxes.isEmpty()) {
+            entries = home.sliceBefore(createdAt, tweetId, size + 1);
+            plainReads.increment();
+        } else {
+            List<List<TimelineEntry>> runs = new ArrayList<>(outboxes.size() + 1);
+            runs.add(home.sliceBefore(createdAt, tweetId, size + 1));
+            for (TimelineBuffer outbox : outboxes) {
+                runs.add(outbox.sliceBefore(createdAt, tweetId, size + 1));
+            }
+            entries = TimelineMerger.merge(runs, 0, size + 1);
+            mergedReads.increment();
+        }
+        
+        String nextCursor = null;
+        if (entries.size() > size) {
+            entries = entries.subList(0, size);
+            TimelineEntry last = entries.get(size - 1);
+            nextCursor = new FeedCursor(TimelineEntry.toLocalDateTime(last.getCreatedAt()), last.getTweetId()).encode();
+        }
+        
+        List<TweetDto> content = tweetDtoAssembler.toDtosByIds(toTweetIds(entries), userId);
+        return new FeedSlice<>(content, nextCursor);
+    }
+    
+    public int rebuildTimeline(Long userId) {
+        timelineStore.invalidate(userId);
+        TimelineBuffer buffer = build(userId);
+        logger.info("Rebuilt home timeline for user {} with {} entries", userId, buffer.size());
+        return buffer.size();
+    }
+    
+    public int getTimelineSize(Long userId) {
+        TimelineBuffer buffer = timelineStore.get(userId);
+        return buffer != null ? buffer.size() : 0;
+    }
+    
+    @TransactionalEventListener
+    public void onTweetCreated(TweetCreatedEvent event) {
+        fanout(() -> pushTweet(event));
+    }
+    
+    @TransactionalEventListener
+    public void onTweetDeleted(TweetDeletedEvent event) {
+        fanout(() -> removeTweet(event));
+    }
+    
+    private void pushTweet(TweetCreatedEvent event) {
+        Long authorId = event.getAuthorId();
+        long createdAt = TimelineEntry.toEpochMillis(event.getCreatedAt());
+        
+        if (celebrityClassifier.isCelebrity(authorId)) {
+            timelineStore.pushToOutbox(authorId, event.getTweetId(), createdAt);
+            timelineStore.push(Collections.singletonList(authorId), event.getTweetId(), createdAt);
+            skippedFanouts.increment();
+            return;
+        }
+        
+        List<Long> recipients = new ArrayList<>(followerIds(authorId));
+        recipients.add(authorId);
+        
+        timelineStore.push(recipients, event.getTweetId(), createdAt);
+    }
+    
+    private void removeTweet(TweetDeletedEvent event) {
+        Long authorId = event.getAuthorId();
+        timelineStore.removeFromOutbox(authorId, event.getTweetId());
+        
+        if (celebrityClassifier.isCelebrity(authorId)) {
+            timelineStore.remove(Collections.singletonList(authorId), event.getTweetId());
+            return;
+        }
+        
+        List<Long> recipients = new ArrayList<>(followerIds(authorId));
+        recipients.add(authorId);
+        
+        timelineStore.remove(recipients, event.getTweetId());
+    }
+    
+    @TransactionalEventListener
+    public void onFollowChanged(FollowChangedEvent event) {
+        // Cheaper to rebuild lazily on the next read than to splice the followee's history in
+        timelineStore.invalidate(event.getFollowerId());
+        celebrityClassifier.evict(event.getFollowingId());
+    }
+    
+    private void fanout(Runnable task) {
+        // The tweet is already committed; a failed push must not fail the request
+        fanoutExecutor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Timeline fan-out failed", e);
+            }
+        });
+    }
+    
+    private List<Long> followerIds(Long authorId) {
+        return socialGraph.isReady()
+                ? socialGraph.getAllFollowerIds(authorId)
+                : userRepository.findFollowerIdsByUserId(authorId);
+    }
+    
+    private static int countNotIn(TimelineBuffer home, TimelineBuffer outbox) {
+        // A tweet is in both if its author crossed the celebrity threshold after fan-out
+        int count = 0;
+        for (TimelineEntry entry : outbox.slice(0, outbox.size())) {
+            if (!home.contains(entry.getTweetId(), entry.getCreatedAt())) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private List<Long> toTweetIds(List<TimelineEntry> entries) {
+        List<Long> tweetIds = new ArrayList<>(entries.size());
+        for (TimelineEntry entry : entries) {
+            tweetIds.add(entry.getTweetId());
+        }
+        return tweetIds;
+    }
+    
+    private TimelineBuffer getOrBuild(Long userId) {
+        TimelineBuffer buffer = timelineStore.get(userId);
+        return buffer != null ? buffer : build(userId);
+    }
+    
+    private TimelineBuffer build(Long userId) {
+        TimelineBuffer buffer = timelineStore.beginBuild(userId);
+        loadTimeline(userId, buffer);
+        timelineStore.completeBuild(userId, buffer);
+        return buffer;
+    }
+    
+    private List<TimelineBuffer> getCelebrityOutboxes(Long userId) {
+        List<Long> followingIds = socialGraph.isReady()
+                ? socialGraph.getAllFollowingIds(userId)
+                : userRepository.findFollowingIdsByUserId(userId);
+        if (followingIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        Set<Long> celebrityIds = celebrityClassifier.filterCelebrities(followingIds);
+        List<TimelineBuffer> outboxes = new ArrayList<>(celebrityIds.size());
+        for (Long celebrityId : celebrityIds) {
+            TimelineBuffer outbox = timelineStore.getOutbox(celebrityId);
+            if (outbox == null) {
+                outbox = timelineStore.beginOutboxBuild(celebrityId);
+                loadOutbox(celebrityId, outbox);
+                timelineStore.completeOutboxBuild(celebrityId, outbox);
+            }
+            outboxes.add(outbox);
+        }
+        return outboxes;
+    }
+    
+    private void loadOutbox(Long authorId, TimelineBuffer buffer) {
+        List<Object[]> rows = tweetRepository.findRecentEntriesByAuthorId(authorId,
+                PageRequest.of(0, timelineStore.getCapacity()));
+        
+        for (Object[] row : rows) {
+            buffer.add((Long) row[0], TimelineEntry.toEpochMillis((LocalDateTime) row[1]));
+        }
+    }
+    
+    private void loadTimeline(Long userId, TimelineBuffer buffer) {
+        List<Object[]> rows = tweetRepository.findTimelineEntries(userId,
+                PageRequest.of(0, timelineStore.getCapacity()));
+        
+        for (Object[] row : rows) {
+            buffer.add((Long) row[0], TimelineEntry.toEpochMillis((LocalDateTime) row[1]));
+        }
+    }
+}
\ No newline at end of file
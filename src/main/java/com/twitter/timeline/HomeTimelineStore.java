@@ -0,0 +1,174 @@
+package com.twitter.timeline;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory materialized home timelines, one {@link TimelineBuffer} per user.
+ * Only timelines that have been read (and therefore built) are kept up to date
+ * by fan-out; missing timelines are rebuilt from the follow graph on demand, so
+ * the least recently read ones are evicted once the store is full or idle.
+ *
+ * Celebrity authors are not fanned out; their recent tweets are kept once in an
+ * outbox per author and merged into readers' timelines at read time.
+ */
+@Component
+public class HomeTimelineStore {
+    
+    @Value("${app.timeline.capacity:800}")
+    private int capacity;
+    
+    @Value("${app.timeline.max-timelines:100000}")
+    private long maxTimelines;
+    
+    @Value("${app.timeline.max-outboxes:10000}")
+    private long maxOutboxes;
+    
+    @Value("${app.timeline.expire-after-access-minutes:60}")
+    private long expireAfterAccessMinutes;
+    
+    private ConcurrentMap<Long, TimelineBuffer> timelines;
+    
+    private ConcurrentMap<Long, TimelineBuffer> outboxes;
+    
+    // Buffers being loaded from the database; fan-out lands in them too, so nothing
+    // pushed between the query and the install is lost
+    private final ConcurrentMap<Long, TimelineBuffer> buildingTimelines = new ConcurrentHashMap<>();
+    
+    private final ConcurrentMap<Long, TimelineBuffer> buildingOutboxes = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        timelines = boundedMap(maxTimelines);
+        outboxes = boundedMap(maxOutboxes);
+    }
+    
+    public TimelineBuffer get(Long userId) {
+        return timelines.get(userId);
+    }
+    
+    public TimelineBuffer newBuffer() {
+        return new TimelineBuffer(capacity);
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * Registers the buffer a timeline is being loaded into. Concurrent builds of the
+     * same timeline share one buffer; adds are idempotent.
+     */
+    public TimelineBuffer beginBuild(Long userId) {
+        return buildingTimelines.computeIfAbsent(userId, id -> newBuffer());
+    }
+    
+    /**
+     * Installs a loaded timeline, unless it was invalidated while it loaded.
+     */
+    public boolean completeBuild(Long userId, TimelineBuffer buffer) {
+        return install(timelines, buildingTimelines, userId, buffer);
+    }
+    
+    public void invalidate(Long userId) {
+        buildingTimelines.remove(userId);
+        timelines.remove(userId);
+    }
+    
+    public void push(Collection<Long> userIds, long tweetId, long createdAt) {
+        for (Long userId : userIds) {
+            add(timelines, buildingTimelines, userId, tweetId, createdAt);
+        }
+    }
+    
+    public void remove(Collection<Long> userIds, long tweetId) {
+        for (Long userId : userIds) {
+            remove(timelines, buildingTimelines, userId, tweetId);
+        }
+    }
+    
+    public TimelineBuffer getOutbox(Long authorId) {
+        return outboxes.get(authorId);
+    }
+    
+    public TimelineBuffer beginOutboxBuild(Long authorId) {
+        return buildingOutboxes.computeIfAbsent(authorId, id -> newBuffer());
+    }
+    
+    public boolean completeOutboxBuild(Long authorId, TimelineBuffer buffer) {
+        return install(outboxes, buildingOutboxes, authorId, buffer);
+    }
+    
+    public void pushToOutbox(Long authorId, long tweetId, long createdAt) {
+        add(outboxes, buildingOutboxes, authorId, tweetId, createdAt);
+    }
+    
+    public void removeFromOutbox(Long authorId, long tweetId) {
+        remove(outboxes, buildingOutboxes, authorId, tweetId);
+    }
+    
+    public int size() {
+        return timelines.size();
+    }
+    
+    public int outboxCount() {
+        return outboxes.size();
+    }
+    
+    private ConcurrentMap<Long, TimelineBuffer> boundedMap(long maximumSize) {
+        Cache<Long, TimelineBuffer> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES)
+                .build();
+        return cache.asMap();
+    }
+    
+    private static boolean install(ConcurrentMap<Long, TimelineBuffer> installed,
+                                   ConcurrentMap<Long, TimelineBuffer> building,
+                                   Long key, TimelineBuffer buffer) {
+        if (building.get(key) != buffer) {
+            return false;
+        }
+        // Install before deregistering, so a concurrent push always finds the buffer
+        installed.put(key, buffer);
+        if (!building.remove(key, buffer)) {
+            installed.remove(key, buffer);
+            return false;
+        }
+        return true;
+    }
+    
+    private static void add(ConcurrentMap<Long, TimelineBuffer> installed,
+                            ConcurrentMap<Long, TimelineBuffer> building,
+                            Long key, long tweetId, long createdAt) {
+        TimelineBuffer buffer = installed.get(key);
+        if (buffer != null) {
+            buffer.add(tweetId, createdAt);
+        }
+        TimelineBuffer pending = building.get(key);
+        if (pending != null && pending != buffer) {
+            pending.add(tweetId, createdAt);
+        }
+    }
+    
+    private static void remove(ConcurrentMap<Long, TimelineBuffer> installed,
+                               ConcurrentMap<Long, TimelineBuffer> building,
+                               Long key, long tweetId) {
+        TimelineBuffer buffer = installed.get(key);
+        if (buffer != null) {
+            buffer.remove(tweetId);
+        }
+        TimelineBuffer pending = building.get(key);
+        if (pending != null && pending != buffer) {
+            pending.remove(tweetId);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package com.twitter.timeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded list of tweet IDs for one user's home timeline, kept newest first.
+ * Entries are stored in parallel primitive arrays; once the buffer is full the
+ * oldest entries fall off the end.
+ */
+public class TimelineBuffer {
+    
+    private final int capacity;
+    private final long[] tweetIds;
+    private final long[] createdAts;
+    private int size;
+    
+    public TimelineBuffer(int capacity) {
+        this.capacity = capacity;
+        this.tweetIds = new long[capacity];
+        this.createdAts = new long[capacity];
+    }
+    
+    public synchronized void add(long tweetId, long createdAt) {
+        int index = search(tweetId, createdAt);
+        if (index >= 0) {
+            return;
+        }
+        
+        int insertAt = -index - 1;
+        if (insertAt >= capacity) {
+            return;
+        }
+        
+        int toShift = Math.min(size, capacity - 1) - insertAt;
+        if (toShift > 0) {
+            System.arraycopy(tweetIds, insertAt, tweetIds, insertAt + 1, toShift);
+            System.arraycopy(createdAts, insertAt, createdAts, insertAt + 1, toShift);
+        }
+        tweetIds[insertAt] = tweetId;
+        createdAts[insertAt] = createdAt;
+        size = Math.min(size + 1, capacity);
+    }
+    
+    public synchronized boolean remove(long tweetId) {
+        for (int i = 0; i < size; i++) {
+            if (tweetIds[i] == tweetId) {
+                int toShift = size - i - 1;
+                if (toShift > 0) {
+                    System.arraycopy(tweetIds, i + 1, tweetIds, i, toShift);
+                    System.arraycopy(createdAts, i + 1, createdAts, i, toShift);
+                }
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    public synchronized boolean contains(long tweetId, long createdAt) {
+        return search(tweetId, createdAt) >= 0;
+    }
+    
+    public synchronized List<TimelineEntry> slice(int offset, int limit) {
+        List<TimelineEntry> entries = new ArrayList<>();
+        for (int i = offset; i < size && entries.size() < limit; i++) {
+            entries.add(new TimelineEntry(tweetIds[i], createdAts[i]));
+        }
+        return entries;
+    }
+    
+    public synchronized List<TimelineEntry> sliceBefore(long createdAt, long tweetId, int limit) {
+        int index = search(tweetId, createdAt);
+        int start = index >= 0 ? index + 1 : -index - 1;
+        return slice(start, limit);
+    }
+    
+    private int search(long tweetId, long createdAt) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = TimelineEntry.compare(createdAts[mid], tweetIds[mid], createdAt, tweetId);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
\ No newline at end of file
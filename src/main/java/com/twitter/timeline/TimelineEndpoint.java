@@ -0,0 +1,46 @@
+package com.twitter.timeline;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Operator endpoint for materialized home timelines:
+ * GET /actuator/timelines/{userId} reports the cached size,
+ * POST /actuator/timelines/{userId} rebuilds it from the follow graph.
+ * Both require ROLE_ADMIN, granted through app.security.admin-usernames.
+ */
+@Component
+@Endpoint(id = "timelines")
+public class TimelineEndpoint {
+    
+    @Autowired
+    private HomeTimelineService homeTimelineService;
+    
+    @Autowired
+    private HomeTimelineStore timelineStore;
+    
+    @ReadOperation
+    public Map<String, Object> timeline(@Selector Long userId) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("userId", String.valueOf(userId));
+        result.put("entries", homeTimelineService.getTimelineSize(userId));
+        result.put("materializedTimelines", timelineStore.size());
+        result.put("celebrityOutboxes", timelineStore.outboxCount());
+        return result;
+    }
+    
+    @WriteOperation
+    public Map<String, Object> rebuild(@Selector Long userId) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("userId", String.valueOf(userId));
+        result.put("entries", homeTimelineService.rebuildTimeline(userId));
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.twitter.timeline;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * A tweet reference in a home timeline, ordered newest first by creation time and then by ID.
+ */
+public class TimelineEntry implements Comparable<TimelineEntry> {
+    
+    private final long tweetId;
+    private final long createdAt;
+    
+    public TimelineEntry(long tweetId, long createdAt) {
+        this.tweetId = tweetId;
+        this.createdAt = createdAt;
+    }
+    
+    public TimelineEntry(long tweetId, LocalDateTime createdAt) {
+        this(tweetId, toEpochMillis(createdAt));
+    }
+    
+    public static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    
+    public static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+    
+    public long getTweetId() {
+        return tweetId;
+    }
+    
+    public long getCreatedAt() {
+        return createdAt;
+    }
+    
+    @Override
+    public int compareTo(TimelineEntry other) {
+        return compare(createdAt, tweetId, other.createdAt, other.tweetId);
+    }
+    
+    static int compare(long createdAt, long tweetId, long otherCreatedAt, long otherTweetId) {
+        if (createdAt != otherCreatedAt) {
+            return createdAt > otherCreatedAt ? -1 : 1;
+        }
+        return Long.compare(otherTweetId, tweetId);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.twitter.timeline;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * K-way merge of newest-first timeline runs (the reader's materialized timeline
+ * plus the recent tweets of each followed celebrity).
+ */
+public final class TimelineMerger {
+    
+    private TimelineMerger() {
+    }
+    
+    public static List<TimelineEntry> merge(List<List<TimelineEntry>> runs, int offset, int limit) {
+        PriorityQueue<RunCursor> heads = new PriorityQueue<>();
+        for (List<TimelineEntry> run : runs) {
+            if (!run.isEmpty()) {
+                heads.add(new RunCursor(run));
+            }
+        }
+        
+        List<TimelineEntry> merged = new ArrayList<>(limit);
+        Set<Long> seen = new HashSet<>();
+        int skipped = 0;
+        
+        while (!heads.isEmpty() && merged.size() < limit) {
+            RunCursor cursor = heads.poll();
+            TimelineEntry entry = cursor.current();
+            
+            // A tweet may be in both runs if its author crossed the celebrity threshold
+            if (seen.add(entry.getTweetId())) {
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    merged.add(entry);
+                }
+            }
+            
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+    
+    private static class RunCursor implements Comparable<RunCursor> {
+        private final List<TimelineEntry> run;
+        private int position;
+        
+        RunCursor(List<TimelineEntry> run) {
+            this.run = run;
+        }
+        
+        TimelineEntry current() {
+            return run.get(position);
+        }
+        
+        boolean advance() {
+            return ++position < run.size();
+        }
+        
+        @Override
+        public int compareTo(RunCursor other) {
+            return current().compareTo(other.current());
+        }
+    }
+}
\ No newline at end of file
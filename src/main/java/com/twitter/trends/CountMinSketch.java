@@ -0,0 +1,77 @@
+package com.twitter.trends;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size frequency sketch. Each of {@code depth} rows maps a key hash to one of
+ * {@code width} counters; the estimate is the smallest of the key's counters, which
+ * never undercounts and overcounts by at most about {@code 2N / width} with high
+ * probability, where N is the total count added.
+ *
+ * Not thread-safe; callers synchronise.
+ */
+public class CountMinSketch {
+    
+    private final int width;
+    private final int depth;
+    private final long[][] counters;
+    
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || Integer.bitCount(width) != 1 || depth <= 0) {
+            throw new IllegalArgumentException("width must be a positive power of two and depth positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new long[depth][width];
+    }
+    
+    public void add(long hash, long count) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counters[row][index(h1, h2, row)] += count;
+        }
+    }
+    
+    public long estimate(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[row][index(h1, h2, row)]);
+        }
+        return min;
+    }
+    
+    public void clear() {
+        for (long[] row : counters) {
+            Arrays.fill(row, 0L);
+        }
+    }
+    
+    // Row hashes derived from one 64-bit hash as h1 + row * h2 (Kirsch-Mitzenmacher)
+    private int index(int h1, int h2, int row) {
+        return (h1 + row * h2) & (width - 1);
+    }
+    
+    /**
+     * Spreads a key's bits over all 64 so nearby IDs land in unrelated counters.
+     */
+    public static long hash(long key) {
+        long z = key + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        // h2 must be odd so every row probes a different counter
+        return z | (1L << 32);
+    }
+    
+    public static long hash(String key) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return hash(h);
+    }
+}
\ No newline at end of file
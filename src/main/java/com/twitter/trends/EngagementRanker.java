@@ -0,0 +1,139 @@
+package com.twitter.trends;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Ranks tweets by engagement that loses half its weight every {@code halfLifeMillis}.
+ *
+ * Scores use forward decay: an event at time t adds {@code weight * 2^((t - landmark) / halfLife)},
+ * so every score decays by the same factor and an event only touches its own tweet's
+ * score; nothing is recomputed as time passes. {@link #decay} moves the landmark to
+ * the present, which keeps the exponents small, and drops tweets whose score has
+ * faded below a floor.
+ *
+ * At most {@code capacity} tweets are tracked. When full, a new tweet replaces the
+ * lowest one and inherits its score (Space-Saving), so a tweet that keeps getting
+ * engagement climbs in even if it was evicted earlier, and no tracked score is ever
+ * understated.
+ *
+ * All methods are synchronized.
+ */
+public class EngagementRanker {
+    
+    private static final Comparator<Candidate> BY_SCORE = Comparator
+            .comparingDouble((Candidate candidate) -> candidate.score)
+            .thenComparingLong(candidate -> candidate.sequence);
+    
+    private final int capacity;
+    private final double halfLifeMillis;
+    
+    private final Map<Long, Candidate> candidates = new HashMap<>();
+    private final TreeSet<Candidate> byScore = new TreeSet<>(BY_SCORE);
+    
+    private long landmarkMillis;
+    private long nextSequence;
+    
+    public EngagementRanker(int capacity, long halfLifeMillis, long nowMillis) {
+        if (capacity <= 0 || halfLifeMillis <= 0) {
+            throw new IllegalArgumentException("capacity and halfLifeMillis must be positive");
+        }
+        this.capacity = capacity;
+        this.halfLifeMillis = halfLifeMillis;
+        this.landmarkMillis = nowMillis;
+    }
+    
+    public synchronized void record(long tweetId, double weight, long atMillis) {
+        double contribution = weight * Math.pow(2, (atMillis - landmarkMillis) / halfLifeMillis);
+        
+        Candidate candidate = candidates.get(tweetId);
+        if (candidate != null) {
+            byScore.remove(candidate);
+            candidate.score += contribution;
+            byScore.add(candidate);
+            return;
+        }
+        
+        double inherited = 0;
+        if (candidates.size() >= capacity) {
+            Candidate lowest = byScore.pollFirst();
+            candidates.remove(lowest.tweetId);
+            inherited = lowest.score;
+        }
+        candidate = new Candidate(tweetId, inherited + contribution, nextSequence++);
+        candidates.put(tweetId, candidate);
+        byScore.add(candidate);
+    }
+    
+    public synchronized void remove(long tweetId) {
+        Candidate candidate = candidates.remove(tweetId);
+        if (candidate != null) {
+            byScore.remove(candidate);
+        }
+    }
+    
+    /**
+     * Rebases every score to {@code nowMillis} and drops tweets scoring below {@code minScore}.
+     */
+    public synchronized void decay(long nowMillis, double minScore) {
+        double factor = Math.pow(2, -(nowMillis - landmarkMillis) / halfLifeMillis);
+        landmarkMillis = nowMillis;
+        
+        // Scaling can round neighbours into ties, so rebuild the order rather than mutate in place
+        byScore.clear();
+        Iterator<Candidate> it = candidates.values().iterator();
+        while (it.hasNext()) {
+            Candidate candidate = it.next();
+            candidate.score *= factor;
+            if (candidate.score < minScore) {
+                it.remove();
+            } else {
+                byScore.add(candidate);
+            }
+        }
+    }
+    
+    /**
+     * Returns the tweet's score as of {@code nowMillis}, or 0 if it is not tracked.
+     */
+    public synchronized double score(long tweetId, long nowMillis) {
+        Candidate candidate = candidates.get(tweetId);
+        if (candidate == null) {
+            return 0;
+        }
+        return candidate.score * Math.pow(2, -(nowMillis - landmarkMillis) / halfLifeMillis);
+    }
+    
+    /**
+     * Returns up to {@code limit} tweet IDs, highest score first.
+     */
+    public synchronized List<Long> top(int limit) {
+        List<Long> top = new ArrayList<>(Math.min(limit, byScore.size()));
+        Iterator<Candidate> it = byScore.descendingIterator();
+        while (it.hasNext() && top.size() < limit) {
+            top.add(it.next().tweetId);
+        }
+        return top;
+    }
+    
+    public synchronized int size() {
+        return candidates.size();
+    }
+    
+    private static class Candidate {
+        private final long tweetId;
+        private final long sequence;
+        private double score;
+        
+        Candidate(long tweetId, double score, long sequence) {
+            this.tweetId = tweetId;
+            this.score = score;
+            this.sequence = sequence;
+        }
+    }
+}
\ No newline at end of file
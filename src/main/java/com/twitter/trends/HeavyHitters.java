@@ -0,0 +1,170 @@
+package com.twitter.trends;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.ToLongFunction;
+
+/**
+ * Approximate top-k of a stream over a sliding window with exponential decay, in
+ * memory that does not grow with the stream.
+ *
+ * Counts go into a ring of {@link CountMinSketch} buckets; {@link #rotate()} advances
+ * to the next bucket and clears it, so the window is {@code buckets} rotations long.
+ * A key's score is the sum of its bucket estimates weighted by {@code decay^age}, so
+ * recent activity dominates. Alongside the sketches at most {@code capacity} candidate
+ * keys are tracked in score order; a new key displaces the lowest candidate only when
+ * it scores higher.
+ *
+ * All methods are synchronized.
+ */
+public class HeavyHitters<K> {
+    
+    private static final Comparator<Candidate<?>> BY_SCORE = Comparator
+            .comparingDouble((Candidate<?> candidate) -> candidate.score)
+            .thenComparingLong(candidate -> candidate.sequence);
+    
+    private final CountMinSketch[] buckets;
+    private final double[] weights;
+    private final int capacity;
+    private final ToLongFunction<K> hasher;
+    
+    private final Map<K, Candidate<K>> candidates = new HashMap<>();
+    private final TreeSet<Candidate<K>> byScore = new TreeSet<>(BY_SCORE);
+    
+    private int current;
+    private long nextSequence;
+    
+    public HeavyHitters(int buckets, int width, int depth, double decay, int capacity, ToLongFunction<K> hasher) {
+        if (buckets <= 0 || capacity <= 0 || decay <= 0 || decay > 1) {
+            throw new IllegalArgumentException("buckets and capacity must be positive and decay in (0, 1]");
+        }
+        this.buckets = new CountMinSketch[buckets];
+        this.weights = new double[buckets];
+        for (int i = 0; i < buckets; i++) {
+            this.buckets[i] = new CountMinSketch(width, depth);
+            this.weights[i] = Math.pow(decay, i);
+        }
+        this.capacity = capacity;
+        this.hasher = hasher;
+    }
+    
+    public synchronized void add(K key, long count) {
+        long hash = hasher.applyAsLong(key);
+        buckets[current].add(hash, count);
+        double score = score(hash);
+        
+        Candidate<K> candidate = candidates.get(key);
+        if (candidate != null) {
+            byScore.remove(candidate);
+            candidate.score = score;
+            byScore.add(candidate);
+            return;
+        }
+        
+        if (candidates.size() >= capacity) {
+            Candidate<K> lowest = byScore.first();
+            if (score <= lowest.score) {
+                return;
+            }
+            byScore.pollFirst();
+            candidates.remove(lowest.key);
+        }
+        candidate = new Candidate<>(key, hash, score, nextSequence++);
+        candidates.put(key, candidate);
+        byScore.add(candidate);
+    }
+    
+    /**
+     * Stops tracking a key until it is added again. Its counts stay in the sketches.
+     */
+    public synchronized void remove(K key) {
+        Candidate<K> candidate = candidates.remove(key);
+        if (candidate != null) {
+            byScore.remove(candidate);
+        }
+    }
+    
+    /**
+     * Advances the window by one bucket and re-scores the candidates, dropping the ones
+     * whose counts have all aged out.
+     */
+    public synchronized void rotate() {
+        current = (current + 1) % buckets.length;
+        buckets[current].clear();
+        
+        byScore.clear();
+        Iterator<Candidate<K>> it = candidates.values().iterator();
+        while (it.hasNext()) {
+            Candidate<K> candidate = it.next();
+            candidate.score = score(candidate.hash);
+            if (candidate.score <= 0) {
+                it.remove();
+            } else {
+                byScore.add(candidate);
+            }
+        }
+    }
+    
+    /**
+     * Returns up to {@code limit} keys, highest score first.
+     */
+    public synchronized List<Scored<K>> top(int limit) {
+        List<Scored<K>> top = new ArrayList<>(Math.min(limit, byScore.size()));
+        Iterator<Candidate<K>> it = byScore.descendingIterator();
+        while (it.hasNext() && top.size() < limit) {
+            Candidate<K> candidate = it.next();
+            top.add(new Scored<>(candidate.key, candidate.score));
+        }
+        return top;
+    }
+    
+    public synchronized int candidateCount() {
+        return candidates.size();
+    }
+    
+    private double score(long hash) {
+        double total = 0;
+        for (int age = 0; age < buckets.length; age++) {
+            int bucket = (current - age + buckets.length) % buckets.length;
+            total += weights[age] * buckets[bucket].estimate(hash);
+        }
+        return total;
+    }
+    
+    public static class Scored<K> {
+        private final K key;
+        private final double score;
+        
+        Scored(K key, double score) {
+            this.key = key;
+            this.score = score;
+        }
+        
+        public K getKey() {
+            return key;
+        }
+        
+        public double getScore() {
+            return score;
+        }
+    }
+    
+    private static class Candidate<K> {
+        private final K key;
+        private final long hash;
+        private final long sequence;
+        private double score;
+        
+        Candidate(K key, long hash, double score, long sequence) {
+            this.key = key;
+            this.hash = hash;
+            this.score = score;
+            this.sequence = sequence;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,172 @@
+package com.twitter.trends;
+
+import com.twitter.dto.TrendingTopic;
+import com.twitter.event.TweetCreatedEvent;
+import com.twitter.event.TweetDeletedEvent;
+import com.twitter.event.TweetLikedEvent;
+import com.twitter.search.EntityExtractor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming trends: hashtags by how often they are used and tweets by how much
+ * engagement they get.
+ *
+ * Hashtags are counted into a {@link HeavyHitters} over a decaying sliding window.
+ * Likes, retweets and replies are weighted by type and fed to an
+ * {@link EngagementRanker}, which keeps a decayed engagement score per tweet up to
+ * date as each event arrives. Both are updated after the event's transaction commits
+ * and hold a fixed number of entries regardless of traffic. Every
+ * {@code refresh-interval-ms} the top entries are copied into an immutable snapshot,
+ * so reads never touch the trackers or the database.
+ *
+ * Unlikes are not subtracted; the decay ages them out.
+ */
+@Service
+public class TrendsService {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.trends.buckets:12}")
+    private int buckets;
+    
+    @Value("${app.trends.bucket-ms:300000}")
+    private long bucketMs;
+    
+    @Value("${app.trends.decay:0.8}")
+    private double decay;
+    
+    @Value("${app.trends.sketch-width:4096}")
+    private int sketchWidth;
+    
+    @Value("${app.trends.sketch-depth:4}")
+    private int sketchDepth;
+    
+    @Value("${app.trends.candidates:1000}")
+    private int candidates;
+    
+    @Value("${app.trends.snapshot-size:100}")
+    private int snapshotSize;
+    
+    @Value("${app.trends.engagement.like-weight:1.0}")
+    private double likeWeight;
+    
+    @Value("${app.trends.engagement.reply-weight:2.0}")
+    private double replyWeight;
+    
+    @Value("${app.trends.engagement.retweet-weight:3.0}")
+    private double retweetWeight;
+    
+    @Value("${app.trends.engagement.half-life-ms:3600000}")
+    private long halfLifeMs;
+    
+    @Value("${app.trends.engagement.min-score:0.1}")
+    private double minScore;
+    
+    private HeavyHitters<String> hashtags;
+    private EngagementRanker tweets;
+    private Timer refreshTimer;
+    
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyList(), Collections.emptyList());
+    private long windowStartMillis;
+    
+    @PostConstruct
+    public void init() {
+        hashtags = new HeavyHitters<>(buckets, sketchWidth, sketchDepth, decay, candidates, CountMinSketch::hash);
+        windowStartMillis = System.currentTimeMillis();
+        tweets = new EngagementRanker(candidates, halfLifeMs, windowStartMillis);
+        refreshTimer = Timer.builder("trends.refresh")
+                .description("Time taken to advance the trends window and rebuild the snapshot")
+                .register(meterRegistry);
+        Gauge.builder("trends.candidates", this, service -> service.tweets.size())
+                .description("Tweets tracked as trending candidates")
+                .tag("kind", "tweet")
+                .register(meterRegistry);
+        Gauge.builder("trends.candidates", this, service -> service.hashtags.candidateCount())
+                .description("Hashtags tracked as trending candidates")
+                .tag("kind", "hashtag")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * IDs of the most engaged tweets as of the last refresh, highest first.
+     */
+    public List<Long> getTrendingTweetIds() {
+        return snapshot.tweetIds;
+    }
+    
+    public List<TrendingTopic> getTrendingHashtags(int limit) {
+        List<TrendingTopic> topics = snapshot.hashtags;
+        return topics.size() > limit ? topics.subList(0, Math.max(limit, 0)) : topics;
+    }
+    
+    @TransactionalEventListener
+    public void onTweetCreated(TweetCreatedEvent event) {
+        for (String tag : EntityExtractor.hashtags(event.getContent())) {
+            hashtags.add(tag, 1);
+        }
+        long now = System.currentTimeMillis();
+        if (event.getOriginalTweetId() != null) {
+            tweets.record(event.getOriginalTweetId(), retweetWeight, now);
+        }
+        if (event.getParentTweetId() != null) {
+            tweets.record(event.getParentTweetId(), replyWeight, now);
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onTweetLiked(TweetLikedEvent event) {
+        tweets.record(event.getTweetId(), likeWeight, System.currentTimeMillis());
+    }
+    
+    @TransactionalEventListener
+    public void onTweetDeleted(TweetDeletedEvent event) {
+        tweets.remove(event.getTweetId());
+    }
+    
+    @Scheduled(fixedDelayString = "${app.trends.refresh-interval-ms:5000}")
+    public void refresh() {
+        refreshTimer.record(() -> refresh(System.currentTimeMillis()));
+    }
+    
+    void refresh(long nowMillis) {
+        long elapsedBuckets = (nowMillis - windowStartMillis) / bucketMs;
+        if (elapsedBuckets > 0) {
+            // After a long pause every bucket is stale; rotating once per bucket clears them all
+            for (long i = 0; i < Math.min(elapsedBuckets, buckets); i++) {
+                hashtags.rotate();
+            }
+            windowStartMillis += elapsedBuckets * bucketMs;
+        }
+        tweets.decay(nowMillis, minScore);
+        
+        List<Long> tweetIds = tweets.top(snapshotSize);
+        List<TrendingTopic> topics = new ArrayList<>(snapshotSize);
+        for (HeavyHitters.Scored<String> scored : hashtags.top(snapshotSize)) {
+            topics.add(new TrendingTopic(scored.getKey(), scored.getScore()));
+        }
+        snapshot = new Snapshot(Collections.unmodifiableList(tweetIds), Collections.unmodifiableList(topics));
+    }
+    
+    private static class Snapshot {
+        private final List<Long> tweetIds;
+        private final List<TrendingTopic> hashtags;
+        
+        Snapshot(List<Long> tweetIds, List<TrendingTopic> hashtags) {
+            this.tweetIds = tweetIds;
+            this.hashtags = hashtags;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+-- Schema of the persistent profile; must match the JPA mappings, which Hibernate
+-- validates at startup. IDs are Snowflake IDs assigned by the application.
+
+CREATE TABLE users (
+    id                BIGINT       NOT NULL,
+    username          VARCHAR(50),
+    email             VARCHAR(50),
+    password          VARCHAR(100),
+    display_name      VARCHAR(100),
+    bio               VARCHAR(160),
+    profile_image_url VARCHAR(255),
+    created_at        TIMESTAMP,
+    updated_at        TIMESTAMP,
+    followers_count   BIGINT       NOT NULL,
+    following_count   BIGINT       NOT NULL,
+    tweets_count      BIGINT       NOT NULL,
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE tweets (
+    id                BIGINT       NOT NULL,
+    content           VARCHAR(280),
+    author_id         BIGINT       NOT NULL,
+    created_at        TIMESTAMP,
+    updated_at        TIMESTAMP,
+    original_tweet_id BIGINT,
+    parent_tweet_id   BIGINT,
+    type              VARCHAR(255),
+    image_url         VARCHAR(255),
+    likes_count       BIGINT       NOT NULL,
+    retweets_count    BIGINT       NOT NULL,
+    replies_count     BIGINT       NOT NULL,
+    CONSTRAINT pk_tweets PRIMARY KEY (id),
+    CONSTRAINT fk_tweets_author FOREIGN KEY (author_id) REFERENCES users (id),
+    CONSTRAINT fk_tweets_original FOREIGN KEY (original_tweet_id) REFERENCES tweets (id),
+    CONSTRAINT fk_tweets_parent FOREIGN KEY (parent_tweet_id) REFERENCES tweets (id)
+);
+
+CREATE INDEX idx_tweets_author_created ON tweets (author_id, created_at, id);
+CREATE INDEX idx_tweets_created ON tweets (created_at, id);
+CREATE INDEX idx_tweets_original ON tweets (original_tweet_id);
+CREATE INDEX idx_tweets_parent ON tweets (parent_tweet_id);
+
+CREATE TABLE tweet_hashtags (
+    tweet_id BIGINT       NOT NULL,
+    tag      VARCHAR(100) NOT NULL,
+    CONSTRAINT pk_tweet_hashtags PRIMARY KEY (tweet_id, tag),
+    CONSTRAINT fk_tweet_hashtags_tweet FOREIGN KEY (tweet_id) REFERENCES tweets (id)
+);
+
+CREATE INDEX idx_tweet_hashtags_tag ON tweet_hashtags (tag, tweet_id);
+
+CREATE TABLE tweet_mentions (
+    tweet_id BIGINT NOT NULL,
+    user_id  BIGINT NOT NULL,
+    CONSTRAINT pk_tweet_mentions PRIMARY KEY (tweet_id, user_id),
+    CONSTRAINT fk_tweet_mentions_tweet FOREIGN KEY (tweet_id) REFERENCES tweets (id)
+);
+
+CREATE INDEX idx_tweet_mentions_user ON tweet_mentions (user_id, tweet_id);
+
+CREATE TABLE user_follows (
+    follower_id  BIGINT NOT NULL,
+    following_id BIGINT NOT NULL,
+    CONSTRAINT pk_user_follows PRIMARY KEY (follower_id, following_id),
+    CONSTRAINT fk_user_follows_follower FOREIGN KEY (follower_id) REFERENCES users (id),
+    CONSTRAINT fk_user_follows_following FOREIGN KEY (following_id) REFERENCES users (id)
+);
+
+CREATE INDEX idx_user_follows_following ON user_follows (following_id, follower_id);
+
+CREATE TABLE user_likes (
+    user_id  BIGINT NOT NULL,
+    tweet_id BIGINT NOT NULL,
+    CONSTRAINT pk_user_likes PRIMARY KEY (user_id, tweet_id),
+    CONSTRAINT fk_user_likes_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_likes_tweet FOREIGN KEY (tweet_id) REFERENCES tweets (id)
+);
+
+CREATE INDEX idx_user_likes_tweet ON user_likes (tweet_id, user_id);
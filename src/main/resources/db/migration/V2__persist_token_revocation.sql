@@ -0,0 +1,10 @@
+-- Token revocation survives restarts and is shared by every instance
+ALTER TABLE users ADD COLUMN token_version INTEGER DEFAULT 0 NOT NULL;
+
+CREATE TABLE revoked_tokens (
+    token_id   VARCHAR(64) NOT NULL,
+    expires_at TIMESTAMP   NOT NULL,
+    CONSTRAINT pk_revoked_tokens PRIMARY KEY (token_id)
+);
+
+CREATE INDEX idx_revoked_tokens_expires ON revoked_tokens (expires_at);
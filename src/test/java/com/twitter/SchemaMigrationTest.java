@@ -0,0 +1,66 @@
+package com.twitter;
+
+import com.twitter.cache.EntityCache;
+import com.twitter.cache.StartupWarmup;
+import com.twitter.model.Tweet;
+import com.twitter.model.User;
+import com.twitter.repository.TweetRepository;
+import com.twitter.repository.UserRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boots with the persistent profile's schema handling: Flyway builds the schema and
+ * Hibernate validates the mappings against it, so the context only loads if the
+ * migrations match the entities.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:migrationdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.flyway.enabled=true",
+    "spring.jpa.hibernate.ddl-auto=validate"
+})
+@ActiveProfiles("test")
+class SchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TweetRepository tweetRepository;
+
+    @Autowired
+    private StartupWarmup startupWarmup;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    void migrationsMatchTheMappings() {
+        assertNotNull(flyway.info().current());
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    void warmupCachesTheNewestTweetsAndTheirAuthors() {
+        // Given
+        User author = userRepository.save(new User("warm", "warm@example.com", "password123"));
+        Tweet tweet = tweetRepository.save(new Tweet("Hot off the press #warm", author));
+
+        // When
+        startupWarmup.run(new DefaultApplicationArguments());
+
+        // Then
+        assertNotNull(cacheManager.getCache(EntityCache.TWEETS).get(tweet.getId()));
+        assertNotNull(cacheManager.getCache(EntityCache.USERS).get(author.getId()));
+    }
+}
@@ -0,0 +1,106 @@
+package com.twitter.cache;
+
+import com.twitter.model.Tweet;
+import com.twitter.model.User;
+import com.twitter.repository.TweetRepository;
+import com.twitter.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EntityCacheTest {
+
+    @Mock
+    private TweetRepository tweetRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private EntityCache entityCache;
+    private ConcurrentMapCacheManager cacheManager;
+    private Tweet tweet;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(EntityCache.TWEETS, EntityCache.USERS);
+        entityCache = new EntityCache();
+        ReflectionTestUtils.setField(entityCache, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(entityCache, "tweetRepository", tweetRepository);
+        ReflectionTestUtils.setField(entityCache, "userRepository", userRepository);
+        entityCache.init();
+
+        User author = new User("author", "author@example.com", "password123");
+        author.setId(1L);
+        tweet = new Tweet("Before the edit", author);
+        tweet.setId(10L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getTweet_PutAfterConcurrentEvict_IsDropped() {
+        // Given a reader loads the tweet inside a transaction
+        when(tweetRepository.findById(10L)).thenReturn(Optional.of(tweet));
+        TransactionSynchronizationManager.initSynchronization();
+        entityCache.getTweet(10L);
+
+        // When a writer evicts before the reader's deferred put runs
+        Thread writer = new Thread(() -> entityCache.evictTweet(10L));
+        writer.start();
+        joinQuietly(writer);
+        commit();
+
+        // Then the stale snapshot is not cached
+        assertNull(cacheManager.getCache(EntityCache.TWEETS).get(10L));
+    }
+
+    @Test
+    void getTweet_WithoutConcurrentEvict_IsCachedOnCommit() {
+        // Given
+        when(tweetRepository.findById(10L)).thenReturn(Optional.of(tweet));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        entityCache.getTweet(10L);
+        assertNull(cacheManager.getCache(EntityCache.TWEETS).get(10L));
+        commit();
+
+        // Then
+        assertNotNull(cacheManager.getCache(EntityCache.TWEETS).get(10L));
+        assertEquals("Before the edit", entityCache.getTweet(10L).getContent());
+        verify(tweetRepository, times(1)).findById(10L);
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static void joinQuietly(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,23 +4,30 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.twitter.dto.AuthRequest;
 import com.twitter.dto.UserDto;
 import com.twitter.model.User;
+import com.twitter.security.CustomUserDetailsService;
+import com.twitter.security.JwtAuthenticationEntryPoint;
 import com.twitter.security.JwtTokenProvider;
+import com.twitter.security.PasswordHashingRejectedException;
+import com.twitter.security.UserPrincipal;
+import com.twitter.service.UserDtoAssembler;
 import com.twitter.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.util.Optional;
-
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -29,6 +36,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @WebMvcTest(AuthController.class)
 @ActiveProfiles("test")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JwtAuthenticationEntryPoint.class, SimpleMeterRegistry.class})
+@MockBean(JpaMetamodelMappingContext.class)
 class AuthControllerTest {
 
     @Autowired
@@ -46,6 +55,12 @@ class AuthControllerTest {
     @MockBean
     private JwtTokenProvider tokenProvider;
 
+    @MockBean
+    private CustomUserDetailsService customUserDetailsService;
+
+    @MockBean
+    private UserDtoAssembler userDtoAssembler;
+
     private AuthRequest signUpRequest;
     private AuthRequest signInRequest;
     private User testUser;
@@ -61,6 +76,8 @@ class AuthControllerTest {
 
         signInRequest = new AuthRequest();
         signInRequest.setUsername("testuser");
+        // AuthRequest validates the email on sign-in as well
+        signInRequest.setEmail("test@example.com");
         signInRequest.setPassword("password123");
 
         testUser = new User();
@@ -83,7 +100,7 @@ class AuthControllerTest {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
         when(tokenProvider.generateToken(authentication)).thenReturn(jwt);
-        when(userService.getUserProfile(testUser.getId(), null)).thenReturn(testUserDto);
+        when(userDtoAssembler.toDto(testUser.getId(), null)).thenReturn(testUserDto);
 
         // When & Then
         mockMvc.perform(post("/api/auth/signup")
@@ -126,21 +143,21 @@ class AuthControllerTest {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
         when(tokenProvider.generateToken(authentication)).thenReturn(jwt);
-        when(userService.findByUsernameOrEmail("testuser")).thenReturn(Optional.of(testUser));
-        when(userService.getUserProfile(testUser.getId(), null)).thenReturn(testUserDto);
+        when(authentication.getPrincipal()).thenReturn(UserPrincipal.create(testUser));
+        when(userDtoAssembler.toDto(testUser.getId(), null)).thenReturn(testUserDto);
 
         // When & Then
         mockMvc.perform(post("/api/auth/signin")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(signInRequest)))
-                .andExpected(status().isOk())
+                .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accessToken").value(jwt))
                 .andExpect(jsonPath("$.tokenType").value("Bearer"))
                 .andExpect(jsonPath("$.user.username").value("testuser"));
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(tokenProvider).generateToken(authentication);
-        verify(userService).findByUsernameOrEmail("testuser");
+        verify(userService, never()).findByUsernameOrEmail(anyString());
     }
 
     @Test
@@ -157,7 +174,24 @@ class AuthControllerTest {
                 .andExpect(content().string("Error: Invalid username or password!"));
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(tokenProvider, never()).generateToken(any());
+        verify(tokenProvider, never()).generateToken(any(Authentication.class));
+    }
+
+    @Test
+    void signIn_HashingSaturated_ReturnsServiceUnavailable() throws Exception {
+        // Given
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new InternalAuthenticationServiceException("saturated",
+                        new PasswordHashingRejectedException("saturated", null)));
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/signin")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(signInRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+
+        verify(tokenProvider, never()).generateToken(any(Authentication.class));
     }
 
     @Test
@@ -167,10 +201,12 @@ class AuthControllerTest {
         String newJwt = "new-jwt-token";
         Long userId = 1L;
 
-        when(tokenProvider.validateToken(oldJwt)).thenReturn(true);
-        when(tokenProvider.getUserIdFromJWT(oldJwt)).thenReturn(userId);
-        when(tokenProvider.generateTokenFromUserId(userId)).thenReturn(newJwt);
-        when(userService.getUserProfile(userId, null)).thenReturn(testUserDto);
+        UserPrincipal principal = UserPrincipal.create(testUser);
+
+        when(tokenProvider.getPrincipalFromToken(oldJwt)).thenReturn(principal);
+        when(customUserDetailsService.loadUserById(userId)).thenReturn(principal);
+        when(tokenProvider.generateToken(principal)).thenReturn(newJwt);
+        when(userDtoAssembler.toDto(userId, null)).thenReturn(testUserDto);
 
         // When & Then
         mockMvc.perform(post("/api/auth/refresh")
@@ -180,9 +216,32 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.tokenType").value("Bearer"))
                 .andExpect(jsonPath("$.user.username").value("testuser"));
 
-        verify(tokenProvider).validateToken(oldJwt);
-        verify(tokenProvider).getUserIdFromJWT(oldJwt);
-        verify(tokenProvider).generateTokenFromUserId(userId);
+        // The JWT filter reads the bearer token too
+        verify(tokenProvider, atLeastOnce()).getPrincipalFromToken(oldJwt);
+        verify(tokenProvider).generateToken(principal);
+    }
+
+    @Test
+    void refreshToken_TakesAuthoritiesFromTheUserNotTheToken() throws Exception {
+        // Given
+        String oldJwt = "old-jwt-token";
+        Long userId = 1L;
+
+        UserPrincipal fromToken = UserPrincipal.create(testUser, true); // issued while an admin
+        UserPrincipal current = UserPrincipal.create(testUser, false); // since removed from admin-usernames
+
+        when(tokenProvider.getPrincipalFromToken(oldJwt)).thenReturn(fromToken);
+        when(customUserDetailsService.loadUserById(userId)).thenReturn(current);
+        when(tokenProvider.generateToken(any(UserPrincipal.class))).thenReturn("new-jwt-token");
+        when(userDtoAssembler.toDto(userId, null)).thenReturn(testUserDto);
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/refresh")
+                .header("Authorization", "Bearer " + oldJwt))
+                .andExpect(status().isOk());
+
+        verify(tokenProvider).generateToken(argThat((UserPrincipal principal) -> principal.getAuthorities().stream()
+                .noneMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"))));
     }
 
     @Test
@@ -190,7 +249,7 @@ class AuthControllerTest {
         // Given
         String invalidJwt = "invalid-jwt-token";
 
-        when(tokenProvider.validateToken(invalidJwt)).thenReturn(false);
+        when(tokenProvider.getPrincipalFromToken(invalidJwt)).thenReturn(null);
 
         // When & Then
         mockMvc.perform(post("/api/auth/refresh")
@@ -198,7 +257,23 @@ class AuthControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string("Error: Invalid token!"));
 
-        verify(tokenProvider).validateToken(invalidJwt);
-        verify(tokenProvider, never()).getUserIdFromJWT(anyString());
+        verify(tokenProvider, atLeastOnce()).getPrincipalFromToken(invalidJwt);
+        verify(tokenProvider, never()).generateToken(any(UserPrincipal.class));
+    }
+
+    @Test
+    void signOut_RevokesToken() throws Exception {
+        // Given
+        String jwt = "test-jwt-token";
+
+        when(tokenProvider.revokeToken(jwt, false)).thenReturn(true);
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/signout")
+                .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Signed out successfully"));
+
+        verify(tokenProvider).revokeToken(jwt, false);
     }
 }
\ No newline at end of file
@@ -1,19 +1,27 @@
 package com.twitter.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter.dto.BulkTweetRequest;
+import com.twitter.dto.FeedCursor;
+import com.twitter.dto.FeedSlice;
 import com.twitter.dto.TweetDto;
 import com.twitter.dto.TweetRequest;
 import com.twitter.model.Tweet;
 import com.twitter.model.User;
+import com.twitter.security.CustomUserDetailsService;
+import com.twitter.security.JwtAuthenticationEntryPoint;
 import com.twitter.security.JwtTokenProvider;
 import com.twitter.security.UserPrincipal;
 import com.twitter.service.TweetService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -24,6 +32,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -34,6 +43,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @WebMvcTest(TweetController.class)
 @ActiveProfiles("test")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JwtAuthenticationEntryPoint.class, SimpleMeterRegistry.class})
+@MockBean(JpaMetamodelMappingContext.class)
 class TweetControllerTest {
 
     @Autowired
@@ -48,6 +59,9 @@ class TweetControllerTest {
     @MockBean
     private JwtTokenProvider tokenProvider;
 
+    @MockBean
+    private CustomUserDetailsService customUserDetailsService;
+
     private UserPrincipal userPrincipal;
     private Tweet testTweet;
     private TweetDto testTweetDto;
@@ -78,9 +92,7 @@ class TweetControllerTest {
     @WithMockUser
     void createTweet_Success() throws Exception {
         // Given
-        when(tweetService.createTweet(anyLong(), anyString(), anyString()))
-                .thenReturn(testTweet);
-        when(tweetService.getTweetById(testTweet.getId(), userPrincipal.getId()))
+        when(tweetService.createTweet(userPrincipal.getId(), tweetRequest.getContent(), null))
                 .thenReturn(testTweetDto);
 
         // When & Then
@@ -89,14 +101,31 @@ class TweetControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(tweetRequest)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value(testTweetDto.getId()))
+                .andExpect(jsonPath("$.id").value(String.valueOf(testTweetDto.getId())))
                 .andExpect(jsonPath("$.content").value(testTweetDto.getContent()))
                 .andExpect(jsonPath("$.likesCount").value(5))
                 .andExpect(jsonPath("$.retweetsCount").value(3))
                 .andExpect(jsonPath("$.repliesCount").value(2));
 
         verify(tweetService).createTweet(userPrincipal.getId(), tweetRequest.getContent(), null);
-        verify(tweetService).getTweetById(testTweet.getId(), userPrincipal.getId());
+        verify(tweetService, never()).getTweetById(anyLong(), anyLong());
+    }
+
+    @Test
+    @WithMockUser
+    void createTweets_RejectsRequestsOverTheBulkLimit() throws Exception {
+        // Given
+        BulkTweetRequest request = new BulkTweetRequest(
+                Collections.nCopies(BulkTweetRequest.MAX_TWEETS + 1, tweetRequest));
+
+        // When & Then
+        mockMvc.perform(post("/api/tweets/bulk")
+                .with(user(userPrincipal))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(tweetService, never()).createTweets(anyLong(), anyList());
     }
 
     @Test
@@ -128,8 +157,6 @@ class TweetControllerTest {
         TweetDto replyDto = new TweetDto(reply, 0L, 0L, 0L, false, false);
 
         when(tweetService.createReply(userPrincipal.getId(), tweetId, tweetRequest.getContent()))
-                .thenReturn(reply);
-        when(tweetService.getTweetById(reply.getId(), userPrincipal.getId()))
                 .thenReturn(replyDto);
 
         // When & Then
@@ -138,7 +165,7 @@ class TweetControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(tweetRequest)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value(replyDto.getId()))
+                .andExpect(jsonPath("$.id").value(String.valueOf(replyDto.getId())))
                 .andExpect(jsonPath("$.content").value(replyDto.getContent()));
 
         verify(tweetService).createReply(userPrincipal.getId(), tweetId, tweetRequest.getContent());
@@ -156,8 +183,6 @@ class TweetControllerTest {
         TweetDto retweetDto = new TweetDto(retweet, 0L, 0L, 0L, false, false);
 
         when(tweetService.createRetweet(userPrincipal.getId(), tweetId, tweetRequest.getContent()))
-                .thenReturn(retweet);
-        when(tweetService.getTweetById(retweet.getId(), userPrincipal.getId()))
                 .thenReturn(retweetDto);
 
         // When & Then
@@ -166,7 +191,7 @@ class TweetControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(tweetRequest)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value(retweetDto.getId()));
+                .andExpect(jsonPath("$.id").value(String.valueOf(retweetDto.getId())));
 
         verify(tweetService).createRetweet(userPrincipal.getId(), tweetId, tweetRequest.getContent());
     }
@@ -192,7 +217,7 @@ class TweetControllerTest {
     void likeTweet_Success() throws Exception {
         // Given
         Long tweetId = 1L;
-        doNothing().when(tweetService).likeTweet(tweetId, userPrincipal.getId());
+        when(tweetService.likeTweet(tweetId, userPrincipal.getId())).thenReturn(true);
 
         // When & Then
         mockMvc.perform(post("/api/tweets/{tweetId}/like", tweetId)
@@ -208,7 +233,7 @@ class TweetControllerTest {
     void unlikeTweet_Success() throws Exception {
         // Given
         Long tweetId = 1L;
-        doNothing().when(tweetService).unlikeTweet(tweetId, userPrincipal.getId());
+        when(tweetService.unlikeTweet(tweetId, userPrincipal.getId())).thenReturn(true);
 
         // When & Then
         mockMvc.perform(delete("/api/tweets/{tweetId}/like", tweetId)
@@ -228,7 +253,7 @@ class TweetControllerTest {
         // When & Then
         mockMvc.perform(get("/api/tweets/{tweetId}", tweetId))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value(testTweetDto.getId()))
+                .andExpect(jsonPath("$.id").value(String.valueOf(testTweetDto.getId())))
                 .andExpect(jsonPath("$.content").value(testTweetDto.getContent()));
 
         verify(tweetService).getTweetById(tweetId, null);
@@ -249,7 +274,7 @@ class TweetControllerTest {
                 .param("size", "20"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray())
-                .andExpect(jsonPath("$.content[0].id").value(testTweetDto.getId()));
+                .andExpect(jsonPath("$.content[0].id").value(String.valueOf(testTweetDto.getId())));
 
         verify(tweetService).getReplies(eq(tweetId), any(PageRequest.class), isNull());
     }
@@ -270,7 +295,7 @@ class TweetControllerTest {
                 .param("size", "20"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray())
-                .andExpect(jsonPath("$.content[0].id").value(testTweetDto.getId()));
+                .andExpect(jsonPath("$.content[0].id").value(String.valueOf(testTweetDto.getId())));
 
         verify(tweetService).getTimelineTweets(eq(userPrincipal.getId()), any(PageRequest.class));
     }
@@ -289,7 +314,7 @@ class TweetControllerTest {
                 .param("size", "20"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray())
-                .andExpect(jsonPath("$.content[0].id").value(testTweetDto.getId()));
+                .andExpect(jsonPath("$.content[0].id").value(String.valueOf(testTweetDto.getId())));
 
         verify(tweetService).getTrendingTweets(any(PageRequest.class), isNull());
     }
@@ -310,7 +335,7 @@ class TweetControllerTest {
                 .param("size", "20"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray())
-                .andExpect(jsonPath("$.content[0].id").value(testTweetDto.getId()));
+                .andExpect(jsonPath("$.content[0].id").value(String.valueOf(testTweetDto.getId())));
 
         verify(tweetService).searchTweets(eq(query), any(PageRequest.class), isNull());
     }
@@ -330,7 +355,7 @@ class TweetControllerTest {
                 .param("size", "20"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray())
-                .andExpect(jsonPath("$.content[0].id").value(testTweetDto.getId()));
+                .andExpect(jsonPath("$.content[0].id").value(String.valueOf(testTweetDto.getId())));
 
         verify(tweetService).getUserTweets(eq(userId), any(PageRequest.class), isNull());
     }
@@ -350,8 +375,34 @@ class TweetControllerTest {
                 .param("size", "20"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray())
-                .andExpected(jsonPath("$.content[0].id").value(testTweetDto.getId()));
+                .andExpect(jsonPath("$.content[0].id").value(String.valueOf(testTweetDto.getId())));
 
         verify(tweetService).getLikedTweets(eq(userId), any(PageRequest.class), isNull());
     }
+
+    @Test
+    void getHashtagTweets_Success() throws Exception {
+        // Given
+        FeedSlice<TweetDto> slice = new FeedSlice<>(Arrays.asList(testTweetDto), null);
+
+        when(tweetService.getHashtagTweetsBefore(eq("spring"), eq(FeedCursor.LATEST), eq(20), isNull()))
+                .thenReturn(slice);
+
+        // When & Then
+        mockMvc.perform(get("/api/tweets/hashtag/{tag}", "spring"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(String.valueOf(testTweetDto.getId())))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void getMentions_InvalidCursor() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/tweets/mentions")
+                .with(user(userPrincipal))
+                .param("before", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        verify(tweetService, never()).getMentionsBefore(anyLong(), any(FeedCursor.class), anyInt());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.twitter.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter.dto.FollowBatchRequest;
+import com.twitter.model.User;
+import com.twitter.security.CustomUserDetailsService;
+import com.twitter.security.JwtAuthenticationEntryPoint;
+import com.twitter.security.JwtTokenProvider;
+import com.twitter.security.UserPrincipal;
+import com.twitter.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(UserController.class)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JwtAuthenticationEntryPoint.class, SimpleMeterRegistry.class})
+@MockBean(JpaMetamodelMappingContext.class)
+class UserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private JwtTokenProvider tokenProvider;
+
+    @MockBean
+    private CustomUserDetailsService customUserDetailsService;
+
+    private UserPrincipal userPrincipal;
+
+    @BeforeEach
+    void setUp() {
+        User testUser = new User();
+        testUser.setId(1L);
+        testUser.setUsername("testuser");
+        testUser.setEmail("test@example.com");
+
+        userPrincipal = UserPrincipal.create(testUser);
+    }
+
+    @Test
+    @WithMockUser
+    void followUsers_ReturnsFollowedIdsAsStrings() throws Exception {
+        // Given
+        long snowflakeId = 9007199254740993L; // 2^53 + 1, not representable as a JavaScript number
+        FollowBatchRequest request = new FollowBatchRequest(Arrays.asList(snowflakeId, 2L));
+        when(userService.followUsers(userPrincipal.getId(), request.getUserIds()))
+                .thenReturn(Collections.singletonList(snowflakeId));
+
+        // When & Then
+        mockMvc.perform(post("/api/users/follow/batch")
+                .with(user(userPrincipal))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.followed[0]").value("9007199254740993"));
+
+        verify(userService).followUsers(userPrincipal.getId(), request.getUserIds());
+    }
+}
@@ -0,0 +1,115 @@
+package com.twitter.counter;
+
+import com.twitter.cache.EntityCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TweetCounterBufferTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityCache entityCache;
+
+    private TweetCounterBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new TweetCounterBuffer();
+        ReflectionTestUtils.setField(buffer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(buffer, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(buffer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(buffer, "entityCache", entityCache);
+        ReflectionTestUtils.setField(buffer, "maxPending", 2);
+        buffer.init();
+    }
+
+    @Test
+    void add_AccumulatesPendingDeltas() {
+        // When
+        buffer.addLikes(1L, 1);
+        buffer.addLikes(1L, 1);
+        buffer.addLikes(1L, -1);
+        buffer.addRetweets(1L, 1);
+
+        // Then
+        assertEquals(1L, buffer.pendingLikes(1L));
+        assertEquals(1L, buffer.pendingRetweets(1L));
+        assertEquals(0L, buffer.pendingReplies(1L));
+        assertTrue(buffer.hasPending(1L));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_WritesAggregatedDeltasAndClearsThem() {
+        // Given
+        for (int i = 0; i < 100; i++) {
+            buffer.addLikes(1L, 1);
+        }
+        buffer.addReplies(2L, 3);
+
+        // When
+        buffer.flush();
+
+        // Then
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), args.capture());
+        assertEquals(2, args.getValue().size());
+        assertEquals(0L, buffer.pendingLikes(1L));
+        assertEquals(0L, buffer.pendingReplies(2L));
+        assertFalse(buffer.hasPending(1L));
+        verify(entityCache).evictTweets(anyList());
+
+        // Idle entries are evicted on the next pass
+        buffer.flush();
+        assertEquals(0, buffer.pendingCount());
+    }
+
+    @Test
+    void flush_KeepsDeltasWhenWriteFails() {
+        // Given
+        buffer.addLikes(1L, 5);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("db down"));
+
+        // When
+        buffer.flush();
+
+        // Then
+        assertEquals(5L, buffer.pendingLikes(1L));
+    }
+
+    @Test
+    void add_WritesThroughWhenBufferIsFull() {
+        // Given
+        buffer.addLikes(1L, 1);
+        buffer.addLikes(2L, 1);
+
+        // When
+        buffer.addLikes(3L, 1);
+
+        // Then
+        assertEquals(0L, buffer.pendingLikes(3L));
+        assertEquals(2, buffer.pendingCount());
+        verify(jdbcTemplate).update(anyString(), eq(1L), eq(0L), eq(0L), eq(3L));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.twitter.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedCursorTest {
+
+    @Test
+    void encodeDecode_RoundTripsWithNanos() {
+        // Given
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456789), 42L);
+
+        // When
+        FeedCursor decoded = FeedCursor.decode(cursor.encode());
+
+        // Then
+        assertEquals(cursor.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(42L, decoded.getId());
+        assertNull(decoded.getRank());
+    }
+
+    @Test
+    void encodeDecode_RoundTripsRank() {
+        // Given
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2024, 5, 1, 12, 30), 42L, 7);
+
+        // When
+        FeedCursor decoded = FeedCursor.decode(cursor.encode());
+
+        // Then
+        assertEquals(42L, decoded.getId());
+        assertEquals(7, decoded.getRank());
+    }
+
+    @Test
+    void decode_RejectsGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode("not-a-cursor"));
+    }
+}
\ No newline at end of file
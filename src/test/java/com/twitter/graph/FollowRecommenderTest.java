@@ -0,0 +1,104 @@
+package com.twitter.graph;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FollowRecommenderTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void candidates_RankedByMutualFolloweesExcludingSelfAndFollowed() {
+        // Given
+        SocialGraph graph = new SocialGraph();
+        graph.follow(1L, 2L);
+        graph.follow(1L, 3L);
+        graph.follow(1L, 4L);
+        graph.follow(2L, 10L);
+        graph.follow(3L, 10L);
+        graph.follow(4L, 10L);
+        graph.follow(2L, 11L);
+        graph.follow(3L, 11L);
+        graph.follow(4L, 12L);
+        graph.follow(2L, 3L);
+        graph.follow(2L, 1L);
+        FollowRecommender recommender = new FollowRecommender(pool, 100, 100, 1);
+
+        // When
+        List<FollowRecommender.Candidate> candidates = recommender.candidates(graph, 1L, 10);
+
+        // Then
+        assertEquals(Arrays.asList(10L, 11L, 12L), userIds(candidates));
+        assertEquals(3, candidates.get(0).getMutuals());
+        assertEquals(2, candidates.get(1).getMutuals());
+        assertEquals(1, candidates.get(2).getMutuals());
+    }
+
+    @Test
+    void candidates_SplitTraversalMatchesSingleTask() {
+        // Given
+        SocialGraph graph = new SocialGraph();
+        for (long followee = 2; followee <= 100; followee++) {
+            graph.follow(1L, followee);
+            for (long candidate = 1000; candidate < 1000 + followee % 17; candidate++) {
+                graph.follow(followee, candidate);
+            }
+        }
+
+        // When
+        List<FollowRecommender.Candidate> split = new FollowRecommender(pool, 1000, 1000, 4).candidates(graph, 1L, 5);
+        List<FollowRecommender.Candidate> single = new FollowRecommender(pool, 1000, 1000, 1000).candidates(graph, 1L, 5);
+
+        // Then
+        assertEquals(userIds(single), userIds(split));
+        assertEquals(Arrays.asList(1000L, 1001L, 1002L, 1003L, 1004L), userIds(split));
+    }
+
+    @Test
+    void candidates_CapsFanoutToNewestFollowees() {
+        // Given
+        SocialGraph graph = new SocialGraph();
+        graph.follow(1L, 2L);
+        for (long candidate = 10; candidate < 20; candidate++) {
+            graph.follow(2L, candidate);
+        }
+        FollowRecommender recommender = new FollowRecommender(pool, 10, 3, 16);
+
+        // When
+        List<FollowRecommender.Candidate> candidates = recommender.candidates(graph, 1L, 10);
+
+        // Then
+        assertEquals(Arrays.asList(19L, 18L, 17L), userIds(candidates));
+    }
+
+    @Test
+    void candidates_EmptyWhenUserFollowsNobody() {
+        // Given
+        SocialGraph graph = new SocialGraph();
+        graph.follow(2L, 3L);
+        FollowRecommender recommender = new FollowRecommender(pool, 10, 10, 16);
+
+        // When & Then
+        assertTrue(recommender.candidates(graph, 1L, 10).isEmpty());
+    }
+
+    private static List<Long> userIds(List<FollowRecommender.Candidate> candidates) {
+        List<Long> ids = new ArrayList<>();
+        for (FollowRecommender.Candidate candidate : candidates) {
+            ids.add(candidate.getUserId());
+        }
+        return ids;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+package com.twitter.graph;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SocialGraphTest {
+
+    @Test
+    void follow_KeepsBothDirectionsSortedAndIgnoresDuplicates() {
+        // Given
+        SocialGraph graph = new SocialGraph();
+
+        // When
+        assertTrue(graph.follow(1L, 30L));
+        assertTrue(graph.follow(1L, 10L));
+        assertTrue(graph.follow(1L, 20L));
+        assertTrue(graph.follow(2L, 10L));
+        assertFalse(graph.follow(1L, 10L));
+
+        // Then
+        assertTrue(graph.isFollowing(1L, 10L));
+        assertFalse(graph.isFollowing(10L, 1L));
+        assertArrayEquals(new long[] {10L, 20L, 30L}, graph.following(1L, 0, 10));
+        assertArrayEquals(new long[] {1L, 2L}, graph.followers(10L, 0, 10));
+        assertEquals(3, graph.followingCount(1L));
+        assertEquals(2, graph.followersCount(10L));
+        assertEquals(4L, graph.edgeCount());
+    }
+
+    @Test
+    void unfollow_RemovesEdgeFromBothDirections() {
+        // Given
+        SocialGraph graph = new SocialGraph();
+        graph.follow(1L, 2L);
+        graph.follow(3L, 2L);
+
+        // When
+        assertTrue(graph.unfollow(1L, 2L));
+        assertFalse(graph.unfollow(1L, 2L));
+        assertFalse(graph.unfollow(9L, 2L));
+
+        // Then
+        assertFalse(graph.isFollowing(1L, 2L));
+        assertArrayEquals(new long[] {3L}, graph.followers(2L, 0, 10));
+        assertEquals(0, graph.followingCount(1L));
+        assertEquals(1L, graph.edgeCount());
+    }
+
+    @Test
+    void followers_PagesByOffsetInIdOrder() {
+        // Given
+        SocialGraph graph = new SocialGraph();
+        for (long follower = 50; follower >= 1; follower--) {
+            graph.follow(follower, 100L);
+        }
+
+        // When & Then
+        assertArrayEquals(new long[] {1L, 2L, 3L}, graph.followers(100L, 0, 3));
+        assertArrayEquals(new long[] {49L, 50L}, graph.followers(100L, 48, 10));
+        assertEquals(0, graph.followers(100L, 50, 10).length);
+        assertEquals(0, graph.followers(7L, 0, 10).length);
+    }
+
+    @Test
+    void followingAmongAndFollowersAmong_IntersectWithSortedIds() {
+        // Given
+        SocialGraph graph = new SocialGraph();
+        graph.follow(1L, 2L);
+        graph.follow(1L, 4L);
+        graph.follow(1L, 9L);
+        graph.follow(4L, 1L);
+        graph.follow(5L, 1L);
+
+        // When & Then
+        assertArrayEquals(new long[] {2L, 4L}, graph.followingAmong(1L, new long[] {2L, 3L, 4L, 5L}));
+        assertArrayEquals(new long[] {4L, 5L}, graph.followersAmong(1L, new long[] {2L, 3L, 4L, 5L}));
+        assertEquals(0, graph.followingAmong(7L, new long[] {1L}).length);
+    }
+
+    @Test
+    void builder_SortsAndDedupesAcrossTableGrowth() {
+        // Given
+        SocialGraph.Builder builder = SocialGraph.builder();
+        for (long user = 5000; user >= 1; user--) {
+            builder.add(user + 1, 1L);
+            builder.add(1L, user + 1);
+        }
+        builder.add(2L, 1L);
+
+        // When
+        SocialGraph graph = builder.build();
+
+        // Then
+        assertEquals(5000, graph.followersCount(1L));
+        assertEquals(5000, graph.followingCount(1L));
+        assertArrayEquals(new long[] {2L, 3L, 4L}, graph.followers(1L, 0, 3));
+        assertTrue(graph.isFollowing(4321L, 1L));
+        assertTrue(graph.isFollowing(1L, 5001L));
+        assertEquals(10000L, graph.edgeCount());
+        assertEquals(5001, graph.userCount());
+        assertTrue(graph.follow(5002L, 1L));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.twitter.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH_MILLIS + 86_400_000L;
+
+    @Test
+    void nextId_EncodesTimestampAndNode() {
+        // Given
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, () -> NOW);
+
+        // When
+        long id = generator.nextId();
+
+        // Then
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(id));
+        assertEquals(7, SnowflakeIdGenerator.nodeOf(id));
+        assertTrue(id >= SnowflakeIdGenerator.lowestIdAt(NOW));
+        assertTrue(id < SnowflakeIdGenerator.lowestIdAt(NOW + 1));
+    }
+
+    @Test
+    void nextId_IncreasesThroughSequenceOverflowAndClockRegression() {
+        // Given
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+
+        // When & Then
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertTrue(SnowflakeIdGenerator.timestampOf(previous) > NOW);
+
+        clock.set(NOW - 1000);
+        assertTrue(generator.nextId() > previous);
+
+        clock.set(NOW + 1000);
+        assertEquals(NOW + 1000, SnowflakeIdGenerator.timestampOf(generator.nextId()));
+    }
+
+    @Test
+    void nextId_DistinctAcrossNodesInTheSameMillisecond() {
+        // Given
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1, () -> NOW);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2, () -> NOW);
+
+        // When & Then
+        assertNotEquals(first.nextId(), second.nextId());
+    }
+
+    @Test
+    void resolveNodeId_PrefersConfigurationThenPodOrdinal() {
+        assertEquals(5, SnowflakeIdGenerator.resolveNodeId("5", "twitter-3"));
+        assertEquals(3, SnowflakeIdGenerator.resolveNodeId(" ", "twitter-3"));
+        assertEquals(0, SnowflakeIdGenerator.resolveNodeId(null, "localhost"));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024));
+    }
+
+    @Test
+    void resolveNodeId_FallsBackToZeroWhenOutOfRange() {
+        assertEquals(0, SnowflakeIdGenerator.resolveNodeId("1024", "twitter-3"));
+        assertEquals(0, SnowflakeIdGenerator.resolveNodeId("node-a", "twitter-3"));
+        assertEquals(0, SnowflakeIdGenerator.resolveNodeId("-1", "twitter-3"));
+        assertEquals(0, SnowflakeIdGenerator.resolveNodeId(null, "twitter-7d9f8-40518"));
+        assertEquals(0, SnowflakeIdGenerator.resolveNodeId(null, "twitter-12345678901234567890"));
+        assertEquals(1023, SnowflakeIdGenerator.resolveNodeId(null, "twitter-1023"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.twitter.repository;
+
+import com.twitter.dto.FeedCursor;
+import com.twitter.model.Tweet;
+import com.twitter.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class TweetRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TweetRepository tweetRepository;
+
+    private User author;
+
+    @BeforeEach
+    void setUp() {
+        author = new User();
+        author.setUsername("author");
+        author.setEmail("author@example.com");
+        author.setPassword("password123");
+        entityManager.persistAndFlush(author);
+
+        for (int i = 1; i <= 3; i++) {
+            entityManager.persistAndFlush(new Tweet("Tweet " + i, author));
+        }
+    }
+
+    @Test
+    void findByAuthorIdBefore_SeeksWithoutOverlap() {
+        // When
+        Slice<Tweet> first = tweetRepository.findByAuthorIdBefore(author.getId(),
+                FeedCursor.LATEST.getCreatedAt(), FeedCursor.LATEST.getId(), PageRequest.of(0, 2));
+
+        // Seek from the stored row, not the instance still held by the persistence context
+        entityManager.clear();
+        Tweet last = tweetRepository.findById(first.getContent().get(1).getId()).get();
+        Slice<Tweet> second = tweetRepository.findByAuthorIdBefore(author.getId(),
+                last.getCreatedAt(), last.getId(), PageRequest.of(0, 2));
+
+        // Then
+        assertEquals(2, first.getContent().size());
+        assertTrue(first.hasNext());
+        assertEquals("Tweet 3", first.getContent().get(0).getContent());
+
+        assertEquals(1, second.getContent().size());
+        assertFalse(second.hasNext());
+        assertEquals("Tweet 1", second.getContent().get(0).getContent());
+    }
+
+    @Test
+    void insertLike_IsIdempotent() {
+        // Given
+        Tweet tweet = tweetRepository.findAll().get(0);
+
+        // When
+        int first = tweetRepository.insertLike(author.getId(), tweet.getId());
+        int second = tweetRepository.insertLike(author.getId(), tweet.getId());
+
+        // Then
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertTrue(tweetRepository.isLikedByUser(tweet.getId(), author.getId()));
+
+        assertEquals(1, tweetRepository.deleteLike(author.getId(), tweet.getId()));
+        assertEquals(0, tweetRepository.deleteLike(author.getId(), tweet.getId()));
+        assertFalse(tweetRepository.isLikedByUser(tweet.getId(), author.getId()));
+    }
+}
\ No newline at end of file
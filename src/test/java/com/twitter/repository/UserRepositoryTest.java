@@ -11,6 +11,9 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -222,4 +225,46 @@ class UserRepositoryTest {
         assertEquals(1, following.getContent().size());
         assertEquals("testuser2", following.getContent().get(0).getUsername());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findIdsNotFollowedBy_SkipsUnknownUsersAndExistingFollows() {
+        // Given
+        User testUser3 = new User("testuser3", "test3@example.com", "password123");
+        entityManager.persistAndFlush(testUser3);
+        userRepository.insertFollow(testUser1.getId(), testUser2.getId());
+        List<Long> candidates = Arrays.asList(testUser2.getId(), testUser3.getId(), 999L);
+
+        // When
+        List<Long> notFollowed = userRepository.findIdsNotFollowedBy(testUser1.getId(), candidates);
+        int counted = userRepository.incrementFollowersCounts(notFollowed, 1);
+        entityManager.clear();
+
+        // Then
+        assertEquals(Collections.singletonList(testUser3.getId()), notFollowed);
+        assertEquals(1, counted);
+        assertEquals(1L, userRepository.findById(testUser3.getId()).get().getFollowersCount());
+        assertEquals(0, userRepository.insertFollow(testUser1.getId(), testUser2.getId())); // not followed twice
+    }
+
+    @Test
+    void findIdsByNamePrefix_MatchesOnlyPrefixesMostFollowedFirst() {
+        // Given
+        User alice = new User("alice", "alice@example.com", "password123");
+        alice.setDisplayName("Alice Smith");
+        User contains = new User("malice", "malice@example.com", "password123");
+        User byDisplayName = new User("zed", "zed@example.com", "password123");
+        byDisplayName.setDisplayName("Ali");
+        byDisplayName.setFollowersCount(5L);
+        entityManager.persist(alice);
+        entityManager.persist(contains);
+        entityManager.persistAndFlush(byDisplayName);
+
+        // When
+        List<Long> ids = userRepository.findIdsByNamePrefix("ali", PageRequest.of(0, 10));
+
+        // Then
+        assertEquals(Arrays.asList(byDisplayName.getId(), alice.getId()), ids);
+        assertTrue(userRepository.findIdsByNamePrefix("test\\_", PageRequest.of(0, 10)).isEmpty()); // '_' is literal
+        assertEquals(2, userRepository.findIdsByNamePrefix("test", PageRequest.of(0, 10)).size());
+    }
+}
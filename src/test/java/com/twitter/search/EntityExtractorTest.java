@@ -0,0 +1,37 @@
+package com.twitter.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityExtractorTest {
+
+    @Test
+    void hashtags_LowercasedDistinctInOrder() {
+        // When
+        Set<String> tags = EntityExtractor.hashtags("#Spring tips: #boot, #spring and #java_17!");
+
+        // Then
+        assertEquals(Arrays.asList("spring", "boot", "java_17"), Arrays.asList(tags.toArray()));
+    }
+
+    @Test
+    void hashtags_SkipsEmbeddedNumericAndEntityMarkers() {
+        // When & Then
+        assertTrue(EntityExtractor.hashtags("a#b ##double #1 &#39; # alone").isEmpty());
+    }
+
+    @Test
+    void mentions_KeepCaseAndIgnoreEmailAddresses() {
+        // When
+        Set<String> mentions = EntityExtractor.mentions("@Alice ping @bob_2 (mail bob@example.com) @Alice");
+
+        // Then
+        assertEquals(Arrays.asList("Alice", "bob_2"), Arrays.asList(mentions.toArray()));
+        assertEquals(Collections.emptySet(), EntityExtractor.mentions(null));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.twitter.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writeAndOpen_RoundTripsPostingsThroughManifest() throws Exception {
+        // Given
+        SegmentStore store = new SegmentStore(directory);
+        assertNull(store.open());
+
+        TweetSearchIndex tail = new TweetSearchIndex();
+        tail.add(1L, "spring boot tips");
+        tail.add(2L, "boot camp");
+        tail.add(3L, "spring is here");
+        MappedSegment segment = store.write(tail.toSortedPostings());
+        store.commit(Collections.singletonList(segment), 3L, Collections.singleton(2L));
+
+        // When
+        SegmentStore reopened = new SegmentStore(directory);
+        List<MappedSegment> segments = reopened.open();
+
+        // Then
+        assertEquals(1, segments.size());
+        assertEquals(3L, reopened.getCheckpoint());
+        assertEquals(Collections.singleton(2L), reopened.getTombstones());
+        MappedSegment mapped = segments.get(0);
+        assertEquals(3L, mapped.getMaxTweetId());
+        Set<String> terms = Tokenizer.tokenize("spring");
+        assertArrayEquals(new long[]{3L, 1L}, mapped.search(terms, Long.MAX_VALUE, 10, id -> false));
+        assertArrayEquals(new long[]{1L}, mapped.search(Tokenizer.tokenize("boot spring"), Long.MAX_VALUE, 10, id -> false));
+        assertArrayEquals(new long[]{1L}, mapped.search(terms, 3L, 10, id -> false));
+        assertArrayEquals(new long[0], mapped.search(Tokenizer.tokenize("winter"), Long.MAX_VALUE, 10, id -> false));
+    }
+
+    @Test
+    void merge_UnionsSegmentsAndDropsExcludedIds() throws Exception {
+        // Given
+        SegmentStore store = new SegmentStore(directory);
+        store.open();
+
+        TweetSearchIndex first = new TweetSearchIndex();
+        first.add(1L, "hello world");
+        first.add(4L, "hello there");
+        TweetSearchIndex second = new TweetSearchIndex();
+        second.add(2L, "hello again");
+        second.add(4L, "hello there"); // duplicate across segments
+        second.add(5L, "goodbye world");
+        List<MappedSegment> inputs = Arrays.asList(store.write(first.toSortedPostings()),
+                store.write(second.toSortedPostings()));
+
+        // When
+        MappedSegment merged = store.merge(inputs, id -> id == 2L);
+        store.commit(Collections.singletonList(merged), 5L, Collections.emptySet());
+        store.delete(inputs);
+
+        // Then
+        assertArrayEquals(new long[]{4L, 1L}, merged.search(Tokenizer.tokenize("hello"), Long.MAX_VALUE, 10, id -> false));
+        assertArrayEquals(new long[]{5L, 1L}, merged.search(Tokenizer.tokenize("world"), Long.MAX_VALUE, 10, id -> false));
+        assertEquals(5L, merged.getMaxTweetId());
+        for (MappedSegment input : inputs) {
+            assertFalse(Files.exists(input.getFile()));
+        }
+        assertEquals(1, new SegmentStore(directory).open().size());
+    }
+
+    @Test
+    void sealedTail_RejectsAdds() {
+        // Given
+        TweetSearchIndex tail = new TweetSearchIndex();
+        assertTrue(tail.add(1L, "hello"));
+
+        // When
+        tail.seal();
+
+        // Then
+        assertFalse(tail.add(2L, "hello"));
+        assertArrayEquals(new long[]{1L}, tail.search("hello", Long.MAX_VALUE, 10));
+    }
+}
\ No newline at end of file
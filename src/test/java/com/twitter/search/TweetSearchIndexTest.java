@@ -0,0 +1,66 @@
+package com.twitter.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TweetSearchIndexTest {
+
+    @Test
+    void tokenize_LowercasesAndStripsPunctuation() {
+        // When
+        Set<String> terms = Tokenizer.tokenize("Hello, #World! @Alice says hello_there hello");
+
+        // Then
+        assertEquals(Arrays.asList("hello", "world", "alice", "says", "hello_there"), Arrays.asList(terms.toArray()));
+    }
+
+    @Test
+    void search_AndsTermsNewestFirst() {
+        // Given
+        TweetSearchIndex index = new TweetSearchIndex();
+        index.add(1L, "spring boot tips");
+        index.add(2L, "boot camp");
+        index.add(3L, "Spring is here");
+        index.add(4L, "more spring boot");
+
+        // When & Then
+        assertArrayEquals(new long[]{4L, 3L, 1L}, index.search("spring", Long.MAX_VALUE, 10));
+        assertArrayEquals(new long[]{4L, 1L}, index.search("Boot SPRING", Long.MAX_VALUE, 10));
+        assertArrayEquals(new long[0], index.search("spring winter", Long.MAX_VALUE, 10));
+        assertArrayEquals(new long[0], index.search("!!!", Long.MAX_VALUE, 10));
+    }
+
+    @Test
+    void search_PagesBeforeId() {
+        // Given
+        TweetSearchIndex index = new TweetSearchIndex();
+        for (long id = 1; id <= 10; id++) {
+            index.add(id, "tweet number " + id);
+        }
+
+        // When & Then
+        assertArrayEquals(new long[]{10L, 9L, 8L}, index.search("tweet", Long.MAX_VALUE, 3));
+        assertArrayEquals(new long[]{7L, 6L, 5L}, index.search("tweet", 8L, 3));
+        assertArrayEquals(new long[]{1L}, index.search("tweet", 2L, 3));
+    }
+
+    @Test
+    void addAndRemove_HandleOutOfOrderAndDuplicateIds() {
+        // Given
+        TweetSearchIndex index = new TweetSearchIndex();
+        index.add(5L, "hello");
+        index.add(2L, "hello");
+        index.add(9L, "hello");
+        index.add(5L, "hello"); // replayed event
+
+        // When
+        index.remove(9L, "hello");
+
+        // Then
+        assertArrayEquals(new long[]{5L, 2L}, index.search("hello", Long.MAX_VALUE, 10));
+    }
+}
\ No newline at end of file
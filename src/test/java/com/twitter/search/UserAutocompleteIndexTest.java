@@ -0,0 +1,112 @@
+package com.twitter.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserAutocompleteIndexTest {
+
+    @Test
+    void complete_RanksByFollowersAcrossUsernameAndDisplayName() {
+        // Given
+        UserAutocompleteIndex index = new UserAutocompleteIndex(10, 12);
+        index.put(1L, "alice", "Alice Smith", 5);
+        index.put(2L, "alfred", "Alfred", 50);
+        index.put(3L, "bob", "Bob Allen", 20);
+
+        // When & Then
+        assertEquals(Arrays.asList(2L, 3L, 1L), index.complete("al", 10));
+        assertEquals(Arrays.asList(2L, 3L), index.complete("@AL", 2));
+        assertEquals(Collections.singletonList(1L), index.complete("smi", 10));
+        assertEquals(Collections.emptyList(), index.complete("zed", 10));
+        assertEquals(Collections.emptyList(), index.complete("  ", 10));
+    }
+
+    @Test
+    void complete_ReturnsEachUserOnce() {
+        // Given
+        UserAutocompleteIndex index = new UserAutocompleteIndex(10, 12);
+        index.put(1L, "anna", "Anna Annabel", 1);
+
+        // When & Then
+        assertEquals(Collections.singletonList(1L), index.complete("ann", 10));
+    }
+
+    @Test
+    void complete_KeepsOnlyTopKPerPrefix() {
+        // Given
+        UserAutocompleteIndex index = new UserAutocompleteIndex(2, 12);
+        index.put(1L, "sam1", "Sam", 1);
+        index.put(2L, "sam2", "Sam", 3);
+        index.put(3L, "sam3", "Sam", 2);
+
+        // When & Then
+        assertEquals(Arrays.asList(2L, 3L), index.complete("sam", 10));
+    }
+
+    @Test
+    void complete_FiltersPrefixesLongerThanTrieDepth() {
+        // Given
+        UserAutocompleteIndex index = new UserAutocompleteIndex(10, 3);
+        index.put(1L, "johnny", "Johnny", 1);
+        index.put(2L, "johanna", "Johanna", 2);
+
+        // When & Then
+        assertEquals(Arrays.asList(2L, 1L), index.complete("joh", 10));
+        assertEquals(Collections.singletonList(1L), index.complete("johnn", 10));
+    }
+
+    @Test
+    void put_ReplacesPreviousKeysAndRanking() {
+        // Given
+        UserAutocompleteIndex index = new UserAutocompleteIndex(10, 12);
+        index.put(1L, "carol", "Carol", 1);
+        index.put(2L, "carl", "Carl", 5);
+
+        // When
+        index.put(1L, "carol", "Dana", 10);
+
+        // Then
+        assertEquals(Arrays.asList(1L, 2L), index.complete("car", 10));
+        assertEquals(Collections.singletonList(1L), index.complete("dan", 10));
+
+        // When
+        index.remove(1L);
+
+        // Then
+        assertEquals(Collections.singletonList(2L), index.complete("car", 10));
+        assertEquals(Collections.emptyList(), index.complete("dan", 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void load_RanksLikePutOnceRankAllRuns() {
+        // Given
+        UserAutocompleteIndex loaded = new UserAutocompleteIndex(2, 3);
+        UserAutocompleteIndex put = new UserAutocompleteIndex(2, 3);
+        for (long id = 1; id <= 20; id++) {
+            loaded.load(id, "johnny" + id, "John Smith", id % 7);
+            put.put(id, "johnny" + id, "John Smith", id % 7);
+        }
+
+        // When
+        loaded.rankAll();
+
+        // Then
+        assertEquals(Arrays.asList(6L, 13L), loaded.complete("jo", 10));
+        assertEquals(put.complete("jo", 10), loaded.complete("jo", 10));
+        assertEquals(put.complete("johnny1", 10), loaded.complete("johnny1", 10));
+        assertEquals(put.complete("smi", 10), loaded.complete("smi", 10));
+
+        // When
+        loaded.put(3L, "johnny3", "John Smith", 100);
+        loaded.remove(6L);
+
+        // Then
+        assertEquals(Arrays.asList(3L, 13L), loaded.complete("jo", 10));
+        assertEquals(Arrays.asList(3L, 13L), loaded.complete("smi", 10));
+    }
+}
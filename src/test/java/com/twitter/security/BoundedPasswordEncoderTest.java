@@ -0,0 +1,77 @@
+package com.twitter.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (encoder != null) {
+            encoder.destroy();
+        }
+    }
+
+    @Test
+    void encodeAndMatches_RunOnExecutorAndRecordLatency() {
+        // Given
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1, meterRegistry);
+
+        // When
+        String hash = encoder.encode("password123");
+
+        // Then
+        assertTrue(encoder.matches("password123", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals(1L, meterRegistry.get("auth.password.hash").tag("operation", "encode").timer().count());
+        assertEquals(2L, meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count());
+        assertEquals(3L, meterRegistry.get("auth.password.queue-wait").timer().count());
+    }
+
+    @Test
+    void encode_RejectsWhenPoolAndQueueAreFull() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        encoder = new BoundedPasswordEncoder(blocking, 1, 1, meterRegistry);
+
+        callers.submit(() -> encoder.encode("running"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> encoder.encode("queued"));
+        while (meterRegistry.get("auth.password.queue-depth").gauge().value() < 1) {
+            Thread.sleep(10);
+        }
+
+        // When & Then
+        assertThrows(PasswordHashingRejectedException.class, () -> encoder.encode("rejected"));
+        assertEquals(1.0, meterRegistry.get("auth.password.rejected").counter().count());
+        release.countDown();
+    }
+}
\ No newline at end of file
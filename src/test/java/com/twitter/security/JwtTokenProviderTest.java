@@ -0,0 +1,150 @@
+package com.twitter.security;
+
+import com.twitter.model.RevokedToken;
+import com.twitter.repository.RevokedTokenRepository;
+import com.twitter.repository.UserRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JwtTokenProviderTest {
+
+    private JwtTokenProvider tokenProvider;
+    private UserPrincipal principal;
+    private final AtomicInteger tokenVersion = new AtomicInteger();
+    private final Set<String> revokedTokenIds = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", "testSecret");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 60000);
+        ReflectionTestUtils.setField(tokenProvider, "cacheSize", 100L);
+        ReflectionTestUtils.setField(tokenProvider, "cacheTtlMs", 60000L);
+        ReflectionTestUtils.setField(tokenProvider, "revocationRegistry", revocationRegistry());
+        tokenProvider.init();
+
+        principal = new UserPrincipal(1L, "testuser", "test@example.com", "password",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @Test
+    void getPrincipalFromToken_BuildsPrincipalFromClaims() {
+        // Given
+        String jwt = tokenProvider.generateToken(principal);
+
+        // When
+        UserPrincipal result = tokenProvider.getPrincipalFromToken(jwt);
+
+        // Then
+        assertNotNull(result);
+        assertEquals(1L, result.getId());
+        assertEquals("testuser", result.getUsername());
+        assertNull(result.getPassword());
+        assertEquals("ROLE_USER", result.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void getPrincipalFromToken_RejectsTokenSignedWithOtherKey() {
+        // Given
+        String jwt = Jwts.builder()
+                .setSubject("1")
+                .claim("username", "testuser")
+                .setExpiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(SignatureAlgorithm.HS512, "otherSecret")
+                .compact();
+
+        // When & Then
+        assertNull(tokenProvider.getPrincipalFromToken(jwt));
+        assertFalse(tokenProvider.validateToken(jwt));
+    }
+
+    @Test
+    void revokeToken_RejectsOnlyThatToken() {
+        // Given
+        String revoked = tokenProvider.generateToken(principal);
+        String other = tokenProvider.generateToken(principal);
+        assertNotNull(tokenProvider.getPrincipalFromToken(revoked));
+
+        // When
+        assertTrue(tokenProvider.revokeToken(revoked, false));
+
+        // Then
+        assertNull(tokenProvider.getPrincipalFromToken(revoked));
+        assertNotNull(tokenProvider.getPrincipalFromToken(other));
+    }
+
+    @Test
+    void revokeToken_AllSessionsRejectsEarlierTokens() {
+        // Given
+        String earlier = tokenProvider.generateToken(principal);
+        assertNotNull(tokenProvider.getPrincipalFromToken(earlier));
+
+        // When
+        tokenProvider.revokeToken(earlier, true);
+        String later = tokenProvider.generateToken(principal);
+
+        // Then
+        assertNull(tokenProvider.getPrincipalFromToken(earlier));
+        assertNotNull(tokenProvider.getPrincipalFromToken(later));
+    }
+
+    @Test
+    void revokeToken_SurvivesANewRegistry() {
+        // Given
+        String revoked = tokenProvider.generateToken(principal);
+        tokenProvider.revokeToken(revoked, false);
+
+        // When the state is read back from the database, e.g. after a restart
+        ReflectionTestUtils.setField(tokenProvider, "revocationRegistry", revocationRegistry());
+        tokenProvider.init();
+
+        // Then
+        assertNull(tokenProvider.getPrincipalFromToken(revoked));
+    }
+
+    /**
+     * A registry over in-memory stand-ins for the token version column and the
+     * revoked_tokens table, shared by every registry this test builds.
+     */
+    private TokenRevocationRegistry revocationRegistry() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findTokenVersion(anyLong()))
+                .thenAnswer(invocation -> Optional.of(tokenVersion.get()));
+        when(userRepository.incrementTokenVersion(anyLong()))
+                .thenAnswer(invocation -> tokenVersion.incrementAndGet() > 0 ? 1 : 0);
+
+        RevokedTokenRepository revokedTokenRepository = mock(RevokedTokenRepository.class);
+        when(revokedTokenRepository.existsById(anyString()))
+                .thenAnswer(invocation -> revokedTokenIds.contains(invocation.<String>getArgument(0)));
+        when(revokedTokenRepository.save(any(RevokedToken.class))).thenAnswer(invocation -> {
+            RevokedToken token = invocation.getArgument(0);
+            revokedTokenIds.add(token.getTokenId());
+            return token;
+        });
+
+        TokenRevocationRegistry registry = new TokenRevocationRegistry();
+        ReflectionTestUtils.setField(registry, "userRepository", userRepository);
+        ReflectionTestUtils.setField(registry, "revokedTokenRepository", revokedTokenRepository);
+        ReflectionTestUtils.setField(registry, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(registry, "cacheSize", 100L);
+        ReflectionTestUtils.setField(registry, "cacheTtlMs", 60000L);
+        registry.init();
+        return registry;
+    }
+}
\ No newline at end of file
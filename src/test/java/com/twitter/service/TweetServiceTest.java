@@ -1,23 +1,41 @@
 package com.twitter.service;
 
+import com.twitter.cache.EntityCache;
+import com.twitter.counter.TweetCounterBuffer;
+import com.twitter.dto.BulkTweetResult;
+import com.twitter.dto.FeedCursor;
+import com.twitter.dto.FeedSlice;
 import com.twitter.dto.TweetDto;
+import com.twitter.dto.TweetRequest;
+import com.twitter.event.TweetLikedEvent;
 import com.twitter.model.Tweet;
 import com.twitter.model.User;
 import com.twitter.repository.TweetRepository;
 import com.twitter.repository.UserRepository;
+import com.twitter.search.TweetSearchService;
+import com.twitter.trends.TrendsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import javax.validation.Validation;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,6 +51,18 @@ class TweetServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TweetCounterBuffer tweetCounterBuffer;
+
+    @Mock
+    private TweetSearchService tweetSearchService;
+
+    @Mock
+    private TrendsService trendsService;
+
     @InjectMocks
     private TweetService tweetService;
 
@@ -52,6 +82,22 @@ class TweetServiceTest {
         testTweet.setAuthor(testUser);
         testTweet.setCreatedAt(LocalDateTime.now());
         testTweet.setType(Tweet.TweetType.ORIGINAL);
+
+        EntityCache entityCache = new EntityCache();
+        ReflectionTestUtils.setField(entityCache, "cacheManager",
+                new ConcurrentMapCacheManager(EntityCache.TWEETS, EntityCache.USERS));
+        ReflectionTestUtils.setField(entityCache, "tweetRepository", tweetRepository);
+        ReflectionTestUtils.setField(entityCache, "userRepository", userRepository);
+        entityCache.init();
+        ReflectionTestUtils.setField(tweetService, "entityCache", entityCache);
+
+        TweetDtoAssembler tweetDtoAssembler = new TweetDtoAssembler();
+        ReflectionTestUtils.setField(tweetDtoAssembler, "tweetRepository", tweetRepository);
+        ReflectionTestUtils.setField(tweetDtoAssembler, "tweetCounterBuffer", tweetCounterBuffer);
+        ReflectionTestUtils.setField(tweetDtoAssembler, "entityCache", entityCache);
+        ReflectionTestUtils.setField(tweetService, "tweetDtoAssembler", tweetDtoAssembler);
+        ReflectionTestUtils.setField(tweetService, "validator",
+                Validation.buildDefaultValidatorFactory().getValidator());
     }
 
     @Test
@@ -65,13 +111,39 @@ class TweetServiceTest {
         when(tweetRepository.save(any(Tweet.class))).thenReturn(testTweet);
 
         // When
-        Tweet result = tweetService.createTweet(userId, content, imageUrl);
+        TweetDto result = tweetService.createTweet(userId, content, imageUrl);
 
         // Then
         assertNotNull(result);
         assertEquals(testTweet.getId(), result.getId());
+        assertEquals(0L, result.getLikesCount());
+        assertFalse(result.getIsLiked());
+        assertEquals(1L, result.getAuthor().getTweetsCount());
         verify(userRepository).findById(userId);
         verify(tweetRepository).save(any(Tweet.class));
+        verify(tweetRepository, never()).findById(anyLong());
+        verify(tweetRepository, never()).findLikedTweetIdsByUser(anyCollection(), anyLong());
+    }
+
+    @Test
+    void createTweet_ExtractsHashtagsAndKnownMentions() {
+        // Given
+        Long userId = 1L;
+        String content = "Hello @alice and @ghost #Spring #boot";
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        when(userRepository.findIdsByUsernameIn(new HashSet<>(Arrays.asList("alice", "ghost"))))
+                .thenReturn(Collections.singletonList(2L));
+        when(tweetRepository.save(any(Tweet.class))).thenReturn(testTweet);
+
+        // When
+        tweetService.createTweet(userId, content, null);
+
+        // Then
+        ArgumentCaptor<Tweet> saved = ArgumentCaptor.forClass(Tweet.class);
+        verify(tweetRepository).save(saved.capture());
+        assertEquals(new HashSet<>(Arrays.asList("spring", "boot")), saved.getValue().getHashtags());
+        assertEquals(Collections.singleton(2L), saved.getValue().getMentionedUserIds());
     }
 
     @Test
@@ -113,15 +185,20 @@ class TweetServiceTest {
         when(tweetRepository.save(any(Tweet.class))).thenReturn(reply);
 
         // When
-        Tweet result = tweetService.createReply(userId, parentTweetId, content);
+        TweetDto result = tweetService.createReply(userId, parentTweetId, content);
 
         // Then
         assertNotNull(result);
         assertEquals(reply.getId(), result.getId());
-        assertEquals(Tweet.TweetType.REPLY, result.getType());
+        assertEquals("REPLY", result.getType());
+        assertEquals(0L, result.getRepliesCount());
+        assertEquals(parentTweetId, result.getParentTweet().getId());
+        assertEquals(1L, result.getParentTweet().getRepliesCount());
         verify(userRepository).findById(userId);
         verify(tweetRepository).findById(parentTweetId);
         verify(tweetRepository).save(any(Tweet.class));
+        verify(tweetCounterBuffer).addReplies(parentTweetId, 1);
+        verify(userRepository).incrementTweetsCount(userId, 1);
     }
 
     @Test
@@ -145,16 +222,22 @@ class TweetServiceTest {
         when(tweetRepository.findById(originalTweetId)).thenReturn(Optional.of(originalTweet));
         when(tweetRepository.isRetweetedByUser(originalTweetId, userId)).thenReturn(false);
         when(tweetRepository.save(any(Tweet.class))).thenReturn(retweet);
+        when(tweetRepository.findRetweetedTweetIdsByUser(anyCollection(), eq(userId)))
+                .thenReturn(Collections.singletonList(originalTweetId));
 
         // When
-        Tweet result = tweetService.createRetweet(userId, originalTweetId, content);
+        TweetDto result = tweetService.createRetweet(userId, originalTweetId, content);
 
         // Then
         assertNotNull(result);
         assertEquals(retweet.getId(), result.getId());
-        assertEquals(Tweet.TweetType.RETWEET, result.getType());
+        assertEquals("RETWEET", result.getType());
+        assertFalse(result.getIsRetweeted());
+        assertTrue(result.getOriginalTweet().getIsRetweeted());
+        assertEquals(1L, result.getOriginalTweet().getRetweetsCount());
         verify(tweetRepository).isRetweetedByUser(originalTweetId, userId);
         verify(tweetRepository).save(any(Tweet.class));
+        verify(tweetCounterBuffer).addRetweets(originalTweetId, 1);
     }
 
     @Test
@@ -179,23 +262,119 @@ class TweetServiceTest {
         verify(tweetRepository, never()).save(any(Tweet.class));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void createTweets_SavesValidItemsAndReportsInvalidOnes() {
+        // Given
+        Long userId = 1L;
+        TweetRequest original = new TweetRequest("Hello @alice #bulk");
+        TweetRequest blank = new TweetRequest("  ");
+        TweetRequest reply = new TweetRequest("Reply", 2L);
+        TweetRequest orphan = new TweetRequest("Orphan reply", 404L);
+        TweetRequest retweet = new TweetRequest("RT");
+        retweet.setOriginalTweetId(2L);
+        TweetRequest duplicateRetweet = new TweetRequest("RT again");
+        duplicateRetweet.setOriginalTweetId(2L);
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        when(tweetRepository.findExistingIds(anyCollection())).thenReturn(Collections.singletonList(2L));
+        when(tweetRepository.findRetweetedTweetIdsByUser(anyCollection(), eq(userId)))
+                .thenReturn(Collections.emptyList());
+        when(tweetRepository.getReferenceById(2L)).thenAnswer(invocation -> {
+            Tweet target = new Tweet();
+            target.setId(2L);
+            return target;
+        });
+        when(userRepository.findUsernameIdPairs(Collections.singleton("alice")))
+                .thenReturn(Collections.singletonList(new Object[]{"alice", 7L}));
+        when(tweetRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Tweet> tweets = invocation.getArgument(0);
+            long id = 100L;
+            for (Tweet tweet : tweets) {
+                tweet.setId(id++);
+            }
+            return tweets;
+        });
+
+        // When
+        List<BulkTweetResult> results = tweetService.createTweets(userId,
+                Arrays.asList(original, blank, reply, orphan, retweet, duplicateRetweet));
+
+        // Then
+        assertEquals(6, results.size());
+        assertEquals(100L, results.get(0).getId());
+        assertNotNull(results.get(1).getError());
+        assertEquals(101L, results.get(2).getId());
+        assertEquals("Parent tweet not found", results.get(3).getError());
+        assertEquals(102L, results.get(4).getId());
+        assertEquals("Already retweeted this tweet", results.get(5).getError());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+
+        ArgumentCaptor<List<Tweet>> saved = ArgumentCaptor.forClass(List.class);
+        verify(tweetRepository).saveAll(saved.capture());
+        assertEquals(3, saved.getValue().size());
+        assertEquals(Collections.singleton(7L), saved.getValue().get(0).getMentionedUserIds());
+        assertEquals(Collections.singleton("bulk"), saved.getValue().get(0).getHashtags());
+        verify(tweetRepository, never()).save(any(Tweet.class));
+        verify(tweetCounterBuffer).addReplies(2L, 1);
+        verify(tweetCounterBuffer).addRetweets(2L, 1);
+        verify(userRepository).incrementTweetsCount(userId, 3);
+    }
+
     @Test
     void likeTweet_Success() {
         // Given
         Long tweetId = 1L;
         Long userId = 1L;
 
-        when(tweetRepository.findById(tweetId)).thenReturn(Optional.of(testTweet));
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(userRepository.save(testUser)).thenReturn(testUser);
+        when(tweetRepository.existsById(tweetId)).thenReturn(true);
+        when(tweetRepository.insertLike(userId, tweetId)).thenReturn(1);
 
         // When
-        tweetService.likeTweet(tweetId, userId);
+        boolean result = tweetService.likeTweet(tweetId, userId);
 
         // Then
-        verify(tweetRepository).findById(tweetId);
-        verify(userRepository).findById(userId);
-        verify(userRepository).save(testUser);
+        assertTrue(result);
+        verify(tweetRepository).insertLike(userId, tweetId);
+        verify(tweetCounterBuffer).addLikes(tweetId, 1);
+        verify(eventPublisher).publishEvent(any(TweetLikedEvent.class));
+        verify(tweetRepository, never()).findById(anyLong());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void likeTweet_AlreadyLikedIsNoOp() {
+        // Given
+        Long tweetId = 1L;
+        Long userId = 1L;
+
+        when(tweetRepository.existsById(tweetId)).thenReturn(true);
+        when(tweetRepository.insertLike(userId, tweetId)).thenReturn(0);
+
+        // When
+        boolean result = tweetService.likeTweet(tweetId, userId);
+
+        // Then
+        assertFalse(result);
+        verify(tweetCounterBuffer, never()).addLikes(anyLong(), anyLong());
+    }
+
+    @Test
+    void unlikeTweet_Success() {
+        // Given
+        Long tweetId = 1L;
+        Long userId = 1L;
+
+        when(tweetRepository.deleteLike(userId, tweetId)).thenReturn(1);
+
+        // When
+        boolean result = tweetService.unlikeTweet(tweetId, userId);
+
+        // Then
+        assertTrue(result);
+        verify(tweetCounterBuffer).addLikes(tweetId, -1);
     }
 
     @Test
@@ -212,6 +391,7 @@ class TweetServiceTest {
         // Then
         verify(tweetRepository).findById(tweetId);
         verify(tweetRepository).delete(testTweet);
+        verify(userRepository).incrementTweetsCount(userId, -1);
     }
 
     @Test
@@ -237,12 +417,12 @@ class TweetServiceTest {
         Long tweetId = 1L;
         Long currentUserId = 1L;
 
+        testTweet.setLikesCount(5L);
+        testTweet.setRetweetsCount(3L);
+        testTweet.setRepliesCount(2L);
+
         when(tweetRepository.findById(tweetId)).thenReturn(Optional.of(testTweet));
-        when(tweetRepository.countLikesByTweetId(tweetId)).thenReturn(5L);
-        when(tweetRepository.countRetweetsByTweetId(tweetId)).thenReturn(3L);
-        when(tweetRepository.countRepliesByTweetId(tweetId)).thenReturn(2L);
-        when(tweetRepository.isLikedByUser(tweetId, currentUserId)).thenReturn(true);
-        when(tweetRepository.isRetweetedByUser(tweetId, currentUserId)).thenReturn(false);
+        stubEnrichment(tweetId, currentUserId);
 
         // When
         TweetDto result = tweetService.getTweetById(tweetId, currentUserId);
@@ -268,11 +448,7 @@ class TweetServiceTest {
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
         when(tweetRepository.findByAuthorOrderByCreatedAtDesc(testUser, pageable)).thenReturn(tweetPage);
-        when(tweetRepository.countLikesByTweetId(testTweet.getId())).thenReturn(5L);
-        when(tweetRepository.countRetweetsByTweetId(testTweet.getId())).thenReturn(3L);
-        when(tweetRepository.countRepliesByTweetId(testTweet.getId())).thenReturn(2L);
-        when(tweetRepository.isLikedByUser(testTweet.getId(), currentUserId)).thenReturn(true);
-        when(tweetRepository.isRetweetedByUser(testTweet.getId(), currentUserId)).thenReturn(false);
+        stubEnrichment(testTweet.getId(), currentUserId);
 
         // When
         Page<TweetDto> result = tweetService.getUserTweets(userId, pageable, currentUserId);
@@ -294,11 +470,7 @@ class TweetServiceTest {
         Page<Tweet> tweetPage = new PageImpl<>(Arrays.asList(testTweet));
 
         when(tweetRepository.searchTweets(query, pageable)).thenReturn(tweetPage);
-        when(tweetRepository.countLikesByTweetId(testTweet.getId())).thenReturn(5L);
-        when(tweetRepository.countRetweetsByTweetId(testTweet.getId())).thenReturn(3L);
-        when(tweetRepository.countRepliesByTweetId(testTweet.getId())).thenReturn(2L);
-        when(tweetRepository.isLikedByUser(testTweet.getId(), currentUserId)).thenReturn(true);
-        when(tweetRepository.isRetweetedByUser(testTweet.getId(), currentUserId)).thenReturn(false);
+        stubEnrichment(testTweet.getId(), currentUserId);
 
         // When
         Page<TweetDto> result = tweetService.searchTweets(query, pageable, currentUserId);
@@ -309,4 +481,189 @@ class TweetServiceTest {
         assertEquals(testTweet.getContent(), result.getContent().get(0).getContent());
         verify(tweetRepository).searchTweets(query, pageable);
     }
+
+    @Test
+    void searchTweets_ServedFromIndexWhenReady() {
+        // Given
+        String query = "test tweet";
+        Long currentUserId = 1L;
+        Pageable pageable = PageRequest.of(0, 10);
+
+        when(tweetSearchService.isReady()).thenReturn(true);
+        when(tweetSearchService.search(query, Long.MAX_VALUE, 11))
+                .thenReturn(Collections.singletonList(testTweet.getId()));
+        when(tweetRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(testTweet));
+        stubEnrichment(testTweet.getId(), currentUserId);
+
+        // When
+        Page<TweetDto> result = tweetService.searchTweets(query, pageable, currentUserId);
+
+        // Then
+        assertEquals(1, result.getTotalElements());
+        assertEquals(testTweet.getContent(), result.getContent().get(0).getContent());
+        verify(tweetRepository, never()).searchTweets(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void searchTweets_ReadsOnlyOneMatchPastThePage() {
+        // Given
+        String query = "test tweet";
+        Long currentUserId = 1L;
+        Pageable pageable = PageRequest.of(2, 1);
+
+        when(tweetSearchService.isReady()).thenReturn(true);
+        when(tweetSearchService.search(query, Long.MAX_VALUE, 4)).thenReturn(Arrays.asList(9L, 5L, 1L, 0L));
+        when(tweetRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(testTweet));
+        stubEnrichment(testTweet.getId(), currentUserId);
+
+        // When
+        Page<TweetDto> result = tweetService.searchTweets(query, pageable, currentUserId);
+
+        // Then
+        assertEquals(testTweet.getId(), result.getContent().get(0).getId());
+        assertEquals(4, result.getTotalElements());
+        assertTrue(result.hasNext());
+    }
+
+    @Test
+    void getHashtagTweetsBefore_PagesByTweetId() {
+        // Given
+        Long currentUserId = 1L;
+        FeedCursor before = new FeedCursor(LocalDateTime.now(), 10L);
+
+        when(tweetRepository.findIdsByHashtagBefore("spring", 10L, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(1L, 0L));
+        when(tweetRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(testTweet));
+        stubEnrichment(testTweet.getId(), currentUserId);
+
+        // When
+        FeedSlice<TweetDto> result = tweetService.getHashtagTweetsBefore("#Spring", before, 1, currentUserId);
+
+        // Then
+        assertEquals(1, result.getContent().size());
+        assertEquals(testTweet.getContent(), result.getContent().get(0).getContent());
+        assertEquals(1L, FeedCursor.decode(result.getNextCursor()).getId());
+    }
+
+    @Test
+    void getTrendingTweets_ServedFromTrendsSnapshot() {
+        // Given
+        Long currentUserId = 1L;
+        Pageable pageable = PageRequest.of(0, 10);
+
+        when(trendsService.getTrendingTweetIds()).thenReturn(Collections.singletonList(testTweet.getId()));
+        when(tweetRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(testTweet));
+        stubEnrichment(testTweet.getId(), currentUserId);
+
+        // When
+        Page<TweetDto> result = tweetService.getTrendingTweets(pageable, currentUserId);
+
+        // Then
+        assertEquals(1, result.getTotalElements());
+        assertEquals(testTweet.getContent(), result.getContent().get(0).getContent());
+        verify(tweetRepository, never()).findTrendingTweets(any(LocalDateTime.class), any(Pageable.class));
+    }
+
+    @Test
+    void getTrendingTweetsBefore_ResumesAtTheCursorRankWhenItsTweetLeftTheSnapshot() {
+        // Given
+        Long currentUserId = 1L;
+        FeedCursor before = new FeedCursor(LocalDateTime.now(), 99L, 1); // 99 was second before the refresh
+
+        when(trendsService.getTrendingTweetIds()).thenReturn(Arrays.asList(10L, 11L, 1L, 13L));
+        when(tweetRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(testTweet));
+        stubEnrichment(testTweet.getId(), currentUserId);
+
+        // When
+        FeedSlice<TweetDto> result = tweetService.getTrendingTweetsBefore(before, 1, currentUserId);
+
+        // Then
+        assertEquals(testTweet.getId(), result.getContent().get(0).getId());
+        FeedCursor next = FeedCursor.decode(result.getNextCursor());
+        assertEquals(1L, next.getId());
+        assertEquals(2, next.getRank());
+        verify(tweetRepository, never()).findTrendingTweetsBefore(any(), any(), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void getTrendingTweetsBefore_KeepsPagingByRecencyForAFallbackCursor() {
+        // Given
+        Long currentUserId = 1L;
+        FeedCursor before = new FeedCursor(LocalDateTime.now(), 99L); // issued while the snapshot was empty
+
+        when(trendsService.getTrendingTweetIds()).thenReturn(Arrays.asList(10L, 11L));
+        when(tweetRepository.findTrendingTweetsBefore(any(LocalDateTime.class), eq(before.getCreatedAt()), eq(99L),
+                any(Pageable.class))).thenReturn(new SliceImpl<>(Collections.singletonList(testTweet)));
+        stubEnrichment(testTweet.getId(), currentUserId);
+
+        // When
+        FeedSlice<TweetDto> result = tweetService.getTrendingTweetsBefore(before, 1, currentUserId);
+
+        // Then
+        assertEquals(testTweet.getId(), result.getContent().get(0).getId());
+    }
+
+    @Test
+    void getTweetById_ResolvesNestedTweetsInOneBatch() {
+        // Given
+        Long currentUserId = 1L;
+
+        Tweet originalTweet = new Tweet();
+        originalTweet.setId(2L);
+        originalTweet.setContent("Original content");
+        originalTweet.setAuthor(testUser);
+        originalTweet.setType(Tweet.TweetType.ORIGINAL);
+        originalTweet.setLikesCount(7L);
+        originalTweet.setRetweetsCount(1L);
+
+        Tweet retweet = new Tweet("", testUser, originalTweet, Tweet.TweetType.RETWEET);
+        retweet.setId(3L);
+
+        when(tweetRepository.findById(3L)).thenReturn(Optional.of(retweet));
+        when(tweetRepository.findAllById(Collections.singletonList(2L)))
+                .thenReturn(Collections.singletonList(originalTweet));
+        when(tweetRepository.findLikedTweetIdsByUser(anyCollection(), eq(currentUserId)))
+                .thenReturn(Collections.emptyList());
+        when(tweetRepository.findRetweetedTweetIdsByUser(anyCollection(), eq(currentUserId)))
+                .thenReturn(Collections.singletonList(2L));
+
+        // When
+        TweetDto result = tweetService.getTweetById(3L, currentUserId);
+
+        // Then
+        assertEquals(0L, result.getLikesCount());
+        assertNotNull(result.getOriginalTweet());
+        assertEquals(7L, result.getOriginalTweet().getLikesCount());
+        assertEquals(1L, result.getOriginalTweet().getRetweetsCount());
+        assertTrue(result.getOriginalTweet().getIsRetweeted());
+        verify(tweetRepository, times(1)).findLikedTweetIdsByUser(anyCollection(), eq(currentUserId));
+        verify(tweetRepository, never()).countLikesByTweetIds(anyCollection());
+        verify(tweetRepository, never()).countLikesByTweetId(anyLong());
+        verify(tweetRepository, never()).isLikedByUser(anyLong(), anyLong());
+    }
+
+    @Test
+    void getTweetById_ServedFromCacheOnRepeatRead() {
+        // Given
+        Long tweetId = 1L;
+        Long currentUserId = 1L;
+
+        when(tweetRepository.findById(tweetId)).thenReturn(Optional.of(testTweet));
+        stubEnrichment(tweetId, currentUserId);
+
+        // When
+        tweetService.getTweetById(tweetId, currentUserId);
+        TweetDto result = tweetService.getTweetById(tweetId, currentUserId);
+
+        // Then
+        assertEquals(testTweet.getContent(), result.getContent());
+        verify(tweetRepository, times(1)).findById(tweetId);
+    }
+
+    private void stubEnrichment(Long tweetId, Long currentUserId) {
+        when(tweetRepository.findLikedTweetIdsByUser(anyCollection(), eq(currentUserId)))
+                .thenReturn(Collections.singletonList(tweetId));
+        when(tweetRepository.findRetweetedTweetIdsByUser(anyCollection(), eq(currentUserId)))
+                .thenReturn(Collections.emptyList());
+    }
 }
\ No newline at end of file
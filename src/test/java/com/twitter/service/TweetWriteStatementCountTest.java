@@ -0,0 +1,116 @@
+package com.twitter.service;
+
+import com.twitter.dto.TweetDto;
+import com.twitter.model.User;
+import com.twitter.repository.UserRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the SQL statements a create issues on the calling thread. That includes the
+ * after-commit listeners but not the background index and graph loads.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.twitter.service.TweetWriteStatementCountTest$StatementRecorder")
+@ActiveProfiles("test")
+class TweetWriteStatementCountTest {
+
+    private static final Pattern TWEETS_TABLE = Pattern.compile("\\btweets\\b", Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private TweetService tweetService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void createTweet_DoesNotReadTheNewTweetBack() {
+        // Given
+        User author = userRepository.save(new User("writer", "writer@example.com", "password123"));
+
+        // When
+        StatementRecorder.start();
+        TweetDto created = tweetService.createTweet(author.getId(), "Hello world", null);
+        List<String> statements = StatementRecorder.stop();
+
+        // Then
+        assertNotNull(created.getId());
+        assertEquals("Hello world", created.getContent());
+        assertEquals(0L, created.getLikesCount());
+        assertEquals(0L, created.getRetweetsCount());
+        assertEquals(0L, created.getRepliesCount());
+        assertFalse(created.getIsLiked());
+        assertFalse(created.getIsRetweeted());
+        assertEquals(1L, created.getAuthor().getTweetsCount());
+
+        // The INSERT is the only statement on tweets; reading back cost a SELECT of
+        // the tweet plus the liked and retweeted lookups
+        List<String> onTweets = new ArrayList<>();
+        for (String sql : statements) {
+            if (TWEETS_TABLE.matcher(sql).find()) {
+                onTweets.add(sql);
+            }
+        }
+        assertEquals(1, onTweets.size(), onTweets::toString);
+        assertTrue(onTweets.get(0).trim().toLowerCase().startsWith("insert"));
+    }
+
+    @Test
+    void createReply_ReadsOnlyTheParent() {
+        // Given
+        User author = userRepository.save(new User("replier", "replier@example.com", "password123"));
+        TweetDto parent = tweetService.createTweet(author.getId(), "Parent", null);
+
+        // When
+        StatementRecorder.start();
+        TweetDto reply = tweetService.createReply(author.getId(), parent.getId(), "Reply");
+        List<String> statements = StatementRecorder.stop();
+
+        // Then
+        assertEquals("REPLY", reply.getType());
+        assertEquals(parent.getId(), reply.getParentTweet().getId());
+        assertEquals(1L, reply.getParentTweet().getRepliesCount());
+        assertEquals(2L, reply.getAuthor().getTweetsCount());
+
+        // Parent lookup, INSERT, and the liked and retweeted lookups for the parent
+        long onTweets = statements.stream().filter(sql -> TWEETS_TABLE.matcher(sql).find()).count();
+        assertEquals(4, onTweets, statements::toString);
+    }
+
+    /**
+     * Records the statements Hibernate prepares on the current thread between
+     * {@link #start()} and {@link #stop()}.
+     */
+    public static class StatementRecorder implements StatementInspector {
+
+        private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+        static void start() {
+            RECORDED.set(new ArrayList<>());
+        }
+
+        static List<String> stop() {
+            List<String> recorded = RECORDED.get();
+            RECORDED.remove();
+            return recorded;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            List<String> recorded = RECORDED.get();
+            if (recorded != null) {
+                recorded.add(sql);
+            }
+            return sql;
+        }
+    }
+}
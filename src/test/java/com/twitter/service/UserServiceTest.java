@@ -1,23 +1,33 @@
 package com.twitter.service;
 
+import com.twitter.cache.EntityCache;
+import com.twitter.dto.RelationshipDto;
 import com.twitter.dto.UserDto;
+import com.twitter.event.UserProfileChangedEvent;
+import com.twitter.graph.SocialGraphService;
 import com.twitter.model.User;
-import com.twitter.repository.TweetRepository;
 import com.twitter.repository.UserRepository;
+import com.twitter.search.UserAutocompleteService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,10 +41,16 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private TweetRepository tweetRepository;
+    private PasswordEncoder passwordEncoder;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private UserAutocompleteService autocompleteService;
+
+    @Mock
+    private SocialGraphService socialGraph;
 
     @InjectMocks
     private UserService userService;
@@ -50,6 +66,19 @@ class UserServiceTest {
         testUser.setPassword("encodedPassword");
         testUser.setDisplayName("Test User");
         testUser.setCreatedAt(LocalDateTime.now());
+
+        EntityCache entityCache = new EntityCache();
+        ReflectionTestUtils.setField(entityCache, "cacheManager",
+                new ConcurrentMapCacheManager(EntityCache.TWEETS, EntityCache.USERS));
+        ReflectionTestUtils.setField(entityCache, "userRepository", userRepository);
+        entityCache.init();
+        ReflectionTestUtils.setField(userService, "entityCache", entityCache);
+
+        UserDtoAssembler userDtoAssembler = new UserDtoAssembler();
+        ReflectionTestUtils.setField(userDtoAssembler, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userDtoAssembler, "entityCache", entityCache);
+        ReflectionTestUtils.setField(userDtoAssembler, "socialGraph", socialGraph);
+        ReflectionTestUtils.setField(userService, "userDtoAssembler", userDtoAssembler);
     }
 
     @Test
@@ -75,6 +104,7 @@ class UserServiceTest {
         verify(userRepository).existsByEmail(email);
         verify(passwordEncoder).encode(password);
         verify(userRepository).save(any(User.class));
+        verify(eventPublisher).publishEvent(any(UserProfileChangedEvent.class));
     }
 
     @Test
@@ -122,10 +152,11 @@ class UserServiceTest {
         Long userId = 1L;
         Long currentUserId = 2L;
 
+        testUser.setFollowersCount(10L);
+        testUser.setFollowingCount(5L);
+        testUser.setTweetsCount(20L);
+
         when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(userRepository.countFollowersByUserId(userId)).thenReturn(10L);
-        when(userRepository.countFollowingByUserId(userId)).thenReturn(5L);
-        when(tweetRepository.countTweetsByUserId(userId)).thenReturn(20L);
         when(userRepository.isFollowing(currentUserId, userId)).thenReturn(true);
 
         // When
@@ -162,22 +193,94 @@ class UserServiceTest {
         Long followerId = 1L;
         Long followingId = 2L;
 
-        User follower = new User();
-        follower.setId(followerId);
-        User following = new User();
-        following.setId(followingId);
+        when(userRepository.existsById(followingId)).thenReturn(true);
+        when(userRepository.insertFollow(followerId, followingId)).thenReturn(1);
+
+        // When
+        boolean result = userService.followUser(followerId, followingId);
+
+        // Then
+        assertTrue(result);
+        verify(userRepository).insertFollow(followerId, followingId);
+        verify(userRepository).incrementFollowingCount(followerId, 1);
+        verify(userRepository).incrementFollowersCount(followingId, 1);
+        verify(userRepository, never()).findById(anyLong());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void followUser_AlreadyFollowingIsNoOp() {
+        // Given
+        Long followerId = 1L;
+        Long followingId = 2L;
+
+        when(userRepository.existsById(followingId)).thenReturn(true);
+        when(userRepository.insertFollow(followerId, followingId)).thenReturn(0);
+
+        // When
+        boolean result = userService.followUser(followerId, followingId);
+
+        // Then
+        assertFalse(result);
+        verify(userRepository, never()).incrementFollowersCount(anyLong(), anyLong());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void followUsers_SkipsSelfUnknownAndExisting() {
+        // Given
+        Long followerId = 1L;
+
+        // 3 is already followed and 99 does not exist
+        when(userRepository.findIdsNotFollowedBy(eq(followerId), anyCollection())).thenReturn(Arrays.asList(2L, 4L));
+        when(userRepository.insertFollow(followerId, 4L)).thenReturn(1);
+        when(userRepository.insertFollow(followerId, 2L)).thenReturn(1);
+
+        // When
+        List<Long> result = userService.followUsers(followerId, Arrays.asList(4L, 1L, 2L, 3L, 99L, 2L));
+
+        // Then
+        assertEquals(Arrays.asList(4L, 2L), result);
+        verify(userRepository).findIdsNotFollowedBy(followerId, new LinkedHashSet<>(Arrays.asList(4L, 2L, 3L, 99L)));
+        verify(userRepository, times(2)).insertFollow(eq(followerId), anyLong());
+        verify(userRepository).incrementFollowersCounts(Arrays.asList(4L, 2L), 1);
+        verify(userRepository).incrementFollowingCount(followerId, 2);
+        verify(eventPublisher, times(2)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void followUsers_CountsOnlyFollowsItInserted() {
+        // Given
+        Long followerId = 1L;
+        when(userRepository.findIdsNotFollowedBy(eq(followerId), anyCollection())).thenReturn(Arrays.asList(2L, 3L));
+        when(userRepository.insertFollow(followerId, 2L)).thenReturn(1);
+        when(userRepository.insertFollow(followerId, 3L)).thenReturn(0); // followed concurrently
+
+        // When
+        List<Long> result = userService.followUsers(followerId, Arrays.asList(2L, 3L));
+
+        // Then
+        assertEquals(Collections.singletonList(2L), result);
+        verify(userRepository).incrementFollowersCounts(Collections.singletonList(2L), 1);
+        verify(userRepository).incrementFollowingCount(followerId, 1);
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+    }
 
-        when(userRepository.findById(followerId)).thenReturn(Optional.of(follower));
-        when(userRepository.findById(followingId)).thenReturn(Optional.of(following));
-        when(userRepository.save(follower)).thenReturn(follower);
+    @Test
+    void unfollowUser_Success() {
+        // Given
+        Long followerId = 1L;
+        Long followingId = 2L;
+
+        when(userRepository.deleteFollow(followerId, followingId)).thenReturn(1);
 
         // When
-        userService.followUser(followerId, followingId);
+        boolean result = userService.unfollowUser(followerId, followingId);
 
         // Then
-        verify(userRepository).findById(followerId);
-        verify(userRepository).findById(followingId);
-        verify(userRepository).save(follower);
+        assertTrue(result);
+        verify(userRepository).incrementFollowingCount(followerId, -1);
+        verify(userRepository).incrementFollowersCount(followingId, -1);
     }
 
     @Test
@@ -202,9 +305,6 @@ class UserServiceTest {
         Page<User> userPage = new PageImpl<>(Arrays.asList(testUser));
 
         when(userRepository.searchUsers(query, pageable)).thenReturn(userPage);
-        when(userRepository.countFollowersByUserId(testUser.getId())).thenReturn(10L);
-        when(userRepository.countFollowingByUserId(testUser.getId())).thenReturn(5L);
-        when(tweetRepository.countTweetsByUserId(testUser.getId())).thenReturn(20L);
 
         // When
         Page<UserDto> result = userService.searchUsers(query, pageable);
@@ -216,6 +316,89 @@ class UserServiceTest {
         verify(userRepository).searchUsers(query, pageable);
     }
 
+    @Test
+    void autocomplete_ServedFromIndexInRankOrder() {
+        // Given
+        User other = new User("testuser2", "test2@example.com", "encodedPassword");
+        other.setId(2L);
+        when(autocompleteService.isReady()).thenReturn(true);
+        when(autocompleteService.complete("tes", 5)).thenReturn(Arrays.asList(2L, 1L));
+        when(userRepository.findAllById(anyCollection())).thenReturn(Arrays.asList(testUser, other));
+
+        // When
+        List<UserDto> result = userService.autocomplete("tes", 5);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals("testuser2", result.get(0).getUsername());
+        assertEquals("testuser", result.get(1).getUsername());
+        verify(userRepository, never()).searchUsers(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void autocomplete_FallsBackToSearchUntilIndexIsReady() {
+        // Given
+        when(autocompleteService.isReady()).thenReturn(false);
+        when(userRepository.findIdsByNamePrefix("te\\_s", PageRequest.of(0, 5)))
+                .thenReturn(Collections.singletonList(1L));
+        when(userRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(testUser));
+
+        // When
+        List<UserDto> result = userService.autocomplete("@Te_s", 5);
+
+        // Then
+        assertEquals(1, result.size());
+        verify(userRepository, never()).searchUsers(anyString(), any(Pageable.class));
+        verify(autocompleteService, never()).complete(anyString(), anyInt());
+    }
+
+    @Test
+    void autocomplete_RejectsLimitBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> userService.autocomplete("tes", 0));
+    }
+
+    @Test
+    void getFollowers_ServedFromSocialGraphOnceLoaded() {
+        // Given
+        User other = new User("testuser2", "test2@example.com", "encodedPassword");
+        other.setId(2L);
+        Pageable pageable = PageRequest.of(1, 2);
+        when(socialGraph.isReady()).thenReturn(true);
+        when(socialGraph.getFollowerIds(3L, 2, 2)).thenReturn(new long[] {1L, 2L});
+        when(socialGraph.getFollowersCount(3L)).thenReturn(4);
+        when(userRepository.findAllById(anyCollection())).thenReturn(Arrays.asList(other, testUser));
+
+        // When
+        Page<UserDto> result = userService.getFollowers(3L, pageable);
+
+        // Then
+        assertEquals(4, result.getTotalElements());
+        assertEquals("testuser", result.getContent().get(0).getUsername());
+        assertEquals("testuser2", result.getContent().get(1).getUsername());
+        verify(userRepository, never()).findFollowersByUserId(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void getRelationships_AnsweredWithTwoQueriesBeforeGraphLoads() {
+        // Given
+        List<Long> userIds = Arrays.asList(2L, 3L, 4L, 2L);
+        when(userRepository.findFollowingIdsAmong(eq(1L), anyCollection())).thenReturn(Arrays.asList(2L, 4L));
+        when(userRepository.findFollowerIdsAmong(eq(1L), anyCollection())).thenReturn(Arrays.asList(4L));
+
+        // When
+        List<RelationshipDto> result = userService.getRelationships(1L, userIds);
+
+        // Then
+        assertEquals(3, result.size());
+        assertEquals(2L, result.get(0).getUserId());
+        assertTrue(result.get(0).isFollowing());
+        assertFalse(result.get(0).isMutual());
+        assertFalse(result.get(1).isFollowing());
+        assertFalse(result.get(1).isFollowedBy());
+        assertTrue(result.get(2).isMutual());
+        verify(userRepository, never()).isFollowing(anyLong(), anyLong());
+    }
+
     @Test
     void updateProfile_Success() {
         // Given
@@ -236,5 +419,6 @@ class UserServiceTest {
         assertEquals(newBio, result.getBio());
         assertEquals(newProfileImageUrl, result.getProfileImageUrl());
         verify(userRepository).save(testUser);
+        verify(eventPublisher).publishEvent(any(UserProfileChangedEvent.class));
     }
 }
\ No newline at end of file
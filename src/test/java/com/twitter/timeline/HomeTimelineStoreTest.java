@@ -0,0 +1,56 @@
+package com.twitter.timeline;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HomeTimelineStoreTest {
+
+    private HomeTimelineStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new HomeTimelineStore();
+        ReflectionTestUtils.setField(store, "capacity", 10);
+        ReflectionTestUtils.setField(store, "maxTimelines", 100L);
+        ReflectionTestUtils.setField(store, "maxOutboxes", 100L);
+        ReflectionTestUtils.setField(store, "expireAfterAccessMinutes", 60L);
+        store.init();
+    }
+
+    @Test
+    void push_DuringBuild_IsKeptInTheInstalledTimeline() {
+        // Given
+        TimelineBuffer buffer = store.beginBuild(1L);
+        buffer.add(10L, 1000L); // loaded from the database
+
+        // When
+        store.push(Collections.singletonList(1L), 20L, 2000L); // fan-out lands mid-build
+        boolean installed = store.completeBuild(1L, buffer);
+
+        // Then
+        assertTrue(installed);
+        assertSame(buffer, store.get(1L));
+        assertEquals(2, store.get(1L).size());
+        assertEquals(20L, store.get(1L).slice(0, 1).get(0).getTweetId());
+    }
+
+    @Test
+    void invalidate_DuringBuild_DiscardsTheLoadedTimeline() {
+        // Given
+        TimelineBuffer buffer = store.beginBuild(1L);
+        buffer.add(10L, 1000L);
+
+        // When
+        store.invalidate(1L); // follow change while loading
+        boolean installed = store.completeBuild(1L, buffer);
+
+        // Then
+        assertFalse(installed);
+        assertNull(store.get(1L));
+    }
+}
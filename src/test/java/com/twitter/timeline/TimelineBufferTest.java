@@ -0,0 +1,81 @@
+package com.twitter.timeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimelineBufferTest {
+
+    @Test
+    void add_KeepsNewestFirst() {
+        // Given
+        TimelineBuffer buffer = new TimelineBuffer(10);
+
+        // When
+        buffer.add(1L, 1000L);
+        buffer.add(3L, 3000L);
+        buffer.add(2L, 2000L);
+        buffer.add(3L, 3000L); // duplicate fan-out
+
+        // Then
+        List<TimelineEntry> entries = buffer.slice(0, 10);
+        assertEquals(3, entries.size());
+        assertEquals(3L, entries.get(0).getTweetId());
+        assertEquals(2L, entries.get(1).getTweetId());
+        assertEquals(1L, entries.get(2).getTweetId());
+    }
+
+    @Test
+    void add_DropsOldestWhenFull() {
+        // Given
+        TimelineBuffer buffer = new TimelineBuffer(2);
+        buffer.add(1L, 1000L);
+        buffer.add(2L, 2000L);
+
+        // When
+        buffer.add(3L, 3000L);
+        buffer.add(0L, 500L); // older than everything kept
+
+        // Then
+        List<TimelineEntry> entries = buffer.slice(0, 10);
+        assertEquals(2, entries.size());
+        assertEquals(3L, entries.get(0).getTweetId());
+        assertEquals(2L, entries.get(1).getTweetId());
+    }
+
+    @Test
+    void remove_And_Slice() {
+        // Given
+        TimelineBuffer buffer = new TimelineBuffer(10);
+        for (long id = 1; id <= 5; id++) {
+            buffer.add(id, id * 1000L);
+        }
+
+        // When
+        boolean removed = buffer.remove(4L);
+
+        // Then
+        assertTrue(removed);
+        assertFalse(buffer.remove(42L));
+        assertEquals(4, buffer.size());
+
+        List<TimelineEntry> page = buffer.slice(1, 2);
+        assertEquals(2, page.size());
+        assertEquals(3L, page.get(0).getTweetId());
+        assertEquals(2L, page.get(1).getTweetId());
+    }
+
+    @Test
+    void contains_MatchesOnTweetIdAndTime() {
+        // Given
+        TimelineBuffer buffer = new TimelineBuffer(10);
+        buffer.add(1L, 1000L);
+        buffer.add(2L, 2000L);
+
+        // Then
+        assertTrue(buffer.contains(2L, 2000L));
+        assertFalse(buffer.contains(3L, 3000L));
+    }
+}
\ No newline at end of file
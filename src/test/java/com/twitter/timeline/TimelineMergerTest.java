@@ -0,0 +1,47 @@
+package com.twitter.timeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimelineMergerTest {
+
+    @Test
+    void merge_InterleavesRunsByCreatedAt() {
+        // Given
+        List<TimelineEntry> home = Arrays.asList(entry(6, 600), entry(3, 300), entry(1, 100));
+        List<TimelineEntry> celebrity = Arrays.asList(entry(5, 500), entry(4, 400));
+        List<TimelineEntry> otherCelebrity = Arrays.asList(entry(2, 200));
+
+        // When
+        List<TimelineEntry> merged = TimelineMerger.merge(Arrays.asList(home, celebrity, otherCelebrity), 0, 10);
+
+        // Then
+        assertEquals(6, merged.size());
+        for (int i = 0; i < merged.size(); i++) {
+            assertEquals(6 - i, merged.get(i).getTweetId());
+        }
+    }
+
+    @Test
+    void merge_AppliesOffsetAndDropsDuplicates() {
+        // Given
+        List<TimelineEntry> home = Arrays.asList(entry(5, 500), entry(3, 300));
+        List<TimelineEntry> celebrity = Arrays.asList(entry(5, 500), entry(4, 400), entry(2, 200));
+
+        // When
+        List<TimelineEntry> merged = TimelineMerger.merge(Arrays.asList(home, celebrity), 1, 2);
+
+        // Then
+        assertEquals(2, merged.size());
+        assertEquals(4L, merged.get(0).getTweetId());
+        assertEquals(3L, merged.get(1).getTweetId());
+    }
+
+    private TimelineEntry entry(long tweetId, long createdAt) {
+        return new TimelineEntry(tweetId, createdAt);
+    }
+}
\ No newline at end of file
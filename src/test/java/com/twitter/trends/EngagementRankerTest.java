@@ -0,0 +1,77 @@
+package com.twitter.trends;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EngagementRankerTest {
+
+    private static final long HOUR = 3600000L;
+
+    @Test
+    void record_RanksByWeightedEngagement() {
+        // Given
+        EngagementRanker ranker = new EngagementRanker(10, HOUR, 0L);
+
+        // When
+        ranker.record(1L, 1.0, 0L);
+        ranker.record(2L, 3.0, 0L);
+        ranker.record(3L, 1.0, 0L);
+        ranker.record(3L, 1.0, 0L);
+
+        // Then
+        assertEquals(Arrays.asList(2L, 3L, 1L), ranker.top(10));
+        assertEquals(2.0, ranker.score(3L, 0L), 1e-9);
+    }
+
+    @Test
+    void record_NewerEngagementOutweighsOlder() {
+        // Given
+        EngagementRanker ranker = new EngagementRanker(10, HOUR, 0L);
+        ranker.record(1L, 3.0, 0L);
+
+        // When
+        ranker.record(2L, 2.0, 2 * HOUR);
+
+        // Then
+        assertEquals(Arrays.asList(2L, 1L), ranker.top(10));
+        assertEquals(0.75, ranker.score(1L, 2 * HOUR), 1e-9);
+    }
+
+    @Test
+    void decay_RebasesScoresAndDropsFadedTweets() {
+        // Given
+        EngagementRanker ranker = new EngagementRanker(10, HOUR, 0L);
+        ranker.record(1L, 8.0, 0L);
+        ranker.record(2L, 1.0, 0L);
+
+        // When
+        ranker.decay(3 * HOUR, 0.5);
+
+        // Then
+        assertEquals(Collections.singletonList(1L), ranker.top(10));
+        assertEquals(1.0, ranker.score(1L, 3 * HOUR), 1e-9);
+        ranker.record(1L, 1.0, 3 * HOUR);
+        assertEquals(2.0, ranker.score(1L, 3 * HOUR), 1e-9);
+    }
+
+    @Test
+    void record_EvictsLowestAndInheritsItsScoreWhenFull() {
+        // Given
+        EngagementRanker ranker = new EngagementRanker(2, HOUR, 0L);
+        ranker.record(1L, 5.0, 0L);
+        ranker.record(2L, 1.0, 0L);
+
+        // When
+        ranker.record(3L, 1.0, 0L);
+
+        // Then
+        assertEquals(2, ranker.size());
+        assertEquals(Arrays.asList(1L, 3L), ranker.top(10));
+        assertEquals(2.0, ranker.score(3L, 0L), 1e-9);
+        assertEquals(0.0, ranker.score(2L, 0L), 0.0);
+    }
+}
\ No newline at end of file
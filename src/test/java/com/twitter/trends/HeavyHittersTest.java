@@ -0,0 +1,87 @@
+package com.twitter.trends;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeavyHittersTest {
+
+    @Test
+    void countMinSketch_NeverUndercounts() {
+        // Given
+        CountMinSketch sketch = new CountMinSketch(64, 4);
+        for (long key = 0; key < 1000; key++) {
+            sketch.add(CountMinSketch.hash(key), key % 7 + 1);
+        }
+
+        // When & Then
+        for (long key = 0; key < 1000; key++) {
+            assertTrue(sketch.estimate(CountMinSketch.hash(key)) >= key % 7 + 1);
+        }
+        sketch.clear();
+        assertEquals(0L, sketch.estimate(CountMinSketch.hash(1L)));
+    }
+
+    @Test
+    void top_FindsHeavyKeysAmongManyLightOnes() {
+        // Given
+        HeavyHitters<Long> hitters = new HeavyHitters<>(4, 1024, 4, 1.0, 10, CountMinSketch::hash);
+        for (long key = 100; key < 5000; key++) {
+            hitters.add(key, 1);
+            if (key % 100 == 0) {
+                hitters.add(1L, 30);
+                hitters.add(2L, 20);
+                hitters.add(3L, 10);
+            }
+        }
+
+        // When
+        List<Long> top = keys(hitters.top(3));
+
+        // Then
+        assertEquals(Arrays.asList(1L, 2L, 3L), top);
+        assertTrue(hitters.candidateCount() <= 10);
+    }
+
+    @Test
+    void rotate_DecaysOldActivityAndAgesItOut() {
+        // Given
+        HeavyHitters<String> hitters = new HeavyHitters<>(2, 64, 4, 0.5, 10, CountMinSketch::hash);
+        hitters.add("old", 10);
+        hitters.rotate();
+        hitters.add("new", 6);
+
+        // When & Then
+        assertEquals(Arrays.asList("new", "old"), keys(hitters.top(10)));
+        assertEquals(5.0, hitters.top(10).get(1).getScore(), 0.0);
+
+        hitters.rotate();
+        assertEquals(Arrays.asList("new"), keys(hitters.top(10)));
+    }
+
+    @Test
+    void remove_StopsTrackingKey() {
+        // Given
+        HeavyHitters<Long> hitters = new HeavyHitters<>(2, 64, 4, 0.5, 10, CountMinSketch::hash);
+        hitters.add(1L, 5);
+        hitters.add(2L, 1);
+
+        // When
+        hitters.remove(1L);
+
+        // Then
+        assertEquals(Arrays.asList(2L), keys(hitters.top(10)));
+    }
+
+    private static <K> List<K> keys(List<HeavyHitters.Scored<K>> scored) {
+        List<K> keys = new ArrayList<>();
+        for (HeavyHitters.Scored<K> entry : scored) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+}
\ No newline at end of file